@@ -0,0 +1,116 @@
+/*
+ *    Benchmark.java
+ *    Copyright (C) 2016 NanChang University, JiangXi, China
+ *
+ */
+
+package cn.myluo.datamining.algorithm.ID3;
+
+import java.io.File;
+import java.util.Arrays;
+
+import cn.myluo.datamining.data.Attribute;
+import cn.myluo.datamining.data.DataSet;
+import cn.myluo.datamining.util.Reader;
+
+/**
+ * Measures the throughput of classifying a test set with a trained ID3 tree,
+ * by walking the tree and by the compiled tree.
+ * 
+ * @author Luo Mingyuan
+ * @version 1612
+ */
+public class Benchmark {
+
+	/**
+	 * Trains a tree and classifies the test set repeatedly.
+	 * 
+	 * @param args
+	 *            must contain the name of a train set and a test set, the
+	 *            number of threads, runs and bins of numeric attributes are
+	 *            optional.
+	 */
+	public static void main(String[] args) {
+
+		if (args.length < 2) {
+			System.out.println("\nUsage: " + Benchmark.class.getName()
+					+ " <train set> <test set> [<threads>] [<runs>]"
+					+ " [<bins>]\n");
+			return;
+		}
+
+		try {
+			int parallelism = args.length > 2 ? Integer.parseInt(args[2]) : 1;
+			int runs = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+			int numBins = args.length > 4 ? Integer.parseInt(args[4]) : 0;
+			ID3 id3 = new ID3(Reader.readDataSet(new File(args[0]),
+					parallelism), parallelism, numBins);
+			DataSet testset = Reader.readDataSet(new File(args[1]),
+					parallelism);
+			int n = testset.numInstances();
+
+			// the first run checks the accuracy.
+			int[] classes = id3.classify(testset, parallelism);
+			Attribute c = id3.getClassAttribute();
+			int index = testset.indexOfAttribute(c.getName());
+			int correct = 0;
+			for (int i = 0; i < n; i++) {
+				if (index >= 0 && classes[i] >= 0
+						&& c.getValue(classes[i]).equals(
+								testset.getObject(i, index)))
+					correct++;
+			}
+			System.out.println(n + " instances, accuracy: "
+					+ (n == 0 ? 0.0 : (double) correct / n));
+
+			System.out.println("walked:   "
+					+ time(id3, testset, parallelism, runs));
+			if (id3.compile()) {
+				if (!Arrays.equals(classes, id3.classify(testset, parallelism)))
+					System.out.println("the compiled tree differs.");
+				System.out.println("compiled: "
+						+ time(id3, testset, parallelism, runs));
+			} else {
+				System.out.println("the tree is too big to compile or has "
+						+ "numeric attributes.");
+			}
+		} catch (Exception e) {
+			System.out.println(e);
+		}
+	}
+
+	/**
+	 * Classifies the given test set repeatedly.
+	 * 
+	 * @param id3
+	 *            the trained ID3
+	 * @param testset
+	 *            the given test set
+	 * @param parallelism
+	 *            the number of threads
+	 * @param runs
+	 *            the number of runs
+	 * @return the mean and best throughput as a string
+	 */
+	private static String time(ID3 id3, DataSet testset, int parallelism,
+			int runs) {
+
+		int n = testset.numInstances();
+		// warms up the JIT.
+		id3.classify(testset, parallelism);
+		long best = Long.MAX_VALUE;
+		long total = 0;
+		for (int r = 0; r < runs; r++) {
+			long start = System.nanoTime();
+			id3.classify(testset, parallelism);
+			long time = System.nanoTime() - start;
+			best = Math.min(best, time);
+			total += time;
+		}
+		if (runs <= 0)
+			return "no runs";
+		return runs + " runs with " + parallelism + " threads, mean: "
+				+ (long) (n * 1e9 * runs / total) + " rows/s, best: "
+				+ (long) (n * 1e9 / best) + " rows/s";
+	}
+}
@@ -0,0 +1,33 @@
+/*
+ *    Classifier.java
+ *    Copyright (C) 2016 NanChang University, JiangXi, China
+ *
+ */
+
+package cn.myluo.datamining.algorithm.ID3;
+
+import java.nio.IntBuffer;
+
+/**
+ * Classifies rows of value codes with a decision tree.
+ * 
+ * @author Luo Mingyuan
+ * @version 1612
+ */
+public interface Classifier {
+
+	/**
+	 * Classifies the given row of the given columns. The codes of the columns
+	 * are mapped to the codes of the tree by the given maps.
+	 * 
+	 * @param columns
+	 *            the value codes by attributes of the tree
+	 * @param maps
+	 *            the maps from the codes of the columns to the codes of the
+	 *            tree by attributes
+	 * @param row
+	 *            the given row
+	 * @return the class code, Tree.NONE if the tree has no class for the row
+	 */
+	int classify(IntBuffer[] columns, int[][] maps, int row);
+}
@@ -0,0 +1,506 @@
+/*
+ *    Forest.java
+ *    Copyright (C) 2016 NanChang University, JiangXi, China
+ *
+ */
+
+package cn.myluo.datamining.algorithm.ID3;
+
+import java.io.File;
+import java.nio.Buffer;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import cn.myluo.datamining.data.Attribute;
+import cn.myluo.datamining.data.DataSet;
+import cn.myluo.datamining.data.Instance;
+import cn.myluo.datamining.util.Reader;
+
+/**
+ * Class for random forest with ID3 trees.
+ * 
+ * Each tree is trained with a bootstrap sample of the train set, which is
+ * the indexes of as many instances drawn with replacement, in ascending
+ * order, so the train set is shared by the trees and never copied. Each node
+ * of a tree scores a random sample of its unused attributes. The trees are
+ * trained as parallel tasks, and every tree has its own random numbers seeded
+ * by the forest, so the forest is the same with any number of threads.
+ * Numeric attributes are split into bins once for all trees, or by exact
+ * thresholds in each tree.
+ * 
+ * An instance is classified by the majority vote of the trees, the first
+ * class wins a tie and a tree without class for the instance does not vote.
+ * A data set is classified in parallel blocks of instances, where each tree
+ * votes for all instances of a block in turn.
+ * 
+ * @author Luo Mingyuan
+ * @version 1612
+ */
+public class Forest {
+
+	/** the default number of trees. */
+	public static final int DEFAULT_NUM_TREES = 100;
+
+	/** the number of instances classified by a task. */
+	private static final int BLOCK_SIZE = 1 << 12;
+
+	/** the train set. */
+	private DataSet m_Trainset;
+
+	/** the trains of the trees. */
+	private Train[] m_Trains;
+
+	/** the number of attributes sampled at each node. */
+	private int m_NumSampled;
+
+	/**
+	 * Creates a forest with the given number of trees of the given train set,
+	 * the trees are trained by the given number of threads.
+	 * 
+	 * @param trainset
+	 *            the given train set
+	 * @param numTrees
+	 *            the given number of trees
+	 * @param parallelism
+	 *            the number of threads
+	 */
+	public Forest(DataSet trainset, int numTrees, int parallelism) {
+
+		this(trainset, numTrees, 0, 0, 1L, parallelism);
+	}
+
+	/**
+	 * Creates a forest with the given number of trees of the given train set,
+	 * the trees are trained by the given number of threads.
+	 * 
+	 * @param trainset
+	 *            the given train set
+	 * @param numTrees
+	 *            the given number of trees
+	 * @param numSampled
+	 *            the number of attributes sampled at each node, 0 for the
+	 *            square root of the number of attributes
+	 * @param numBins
+	 *            the number of bins of numeric attributes, from 2 to
+	 *            Train.MAX_NUM_BINS, 0 for exact thresholds
+	 * @param seed
+	 *            the seed of the random numbers
+	 * @param parallelism
+	 *            the number of threads
+	 */
+	public Forest(final DataSet trainset, int numTrees, int numSampled,
+			int numBins, long seed, int parallelism) {
+
+		if (numTrees < 1)
+			throw new IllegalArgumentException("Bad number of trees: "
+					+ numTrees);
+		if (numBins == 1 || numBins < 0 || numBins > Train.MAX_NUM_BINS)
+			throw new IllegalArgumentException("Bad number of bins: "
+					+ numBins);
+		this.m_Trainset = trainset;
+		int numAttributes = trainset.numAttributes() - 1;
+		this.m_NumSampled = numSampled > 0 ? numSampled : Math.max(1,
+				(int) Math.sqrt(numAttributes));
+		m_Trains = new Train[numTrees];
+
+		ForkJoinPool pool = new ForkJoinPool(Math.max(1, parallelism));
+		try {
+			byte[][] codes = null;
+			double[][] bounds = null;
+			if (numBins > 0) {
+				codes = new byte[trainset.numAttributes()][];
+				bounds = new double[codes.length][];
+				Train.bin(trainset, numBins, pool, codes, bounds);
+			}
+			final byte[][] bins = codes;
+			final double[][] cuts = bounds;
+			// the seeds are drawn in order, whatever the order of the tasks.
+			Random random = new Random(seed);
+			List<ForkJoinTask<?>> tasks = new ArrayList<ForkJoinTask<?>>();
+			for (int t = 0; t < numTrees; t++) {
+				final int index = t;
+				final long treeSeed = random.nextLong();
+				tasks.add(pool.submit(new Runnable() {
+					public void run() {
+						Random random = new Random(treeSeed);
+						m_Trains[index] = new Train(trainset, bootstrap(
+								trainset.numInstances(), random), m_NumSampled,
+								random, bins, cuts);
+					}
+				}));
+			}
+			for (ForkJoinTask<?> task : tasks) {
+				task.join();
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Draws a bootstrap sample of the given number of instances.
+	 * 
+	 * @param n
+	 *            the given number of instances
+	 * @param random
+	 *            the random numbers to draw the instances
+	 * @return the indexes of n instances drawn with replacement, in ascending
+	 *         order
+	 */
+	private static int[] bootstrap(int n, Random random) {
+
+		// the number of draws of each instance.
+		int[] weights = new int[n];
+		for (int i = 0; i < n; i++) {
+			weights[random.nextInt(n)]++;
+		}
+		int[] rows = new int[n];
+		int j = 0;
+		for (int i = 0; i < n; i++) {
+			for (int w = 0; w < weights[i]; w++) {
+				rows[j++] = i;
+			}
+		}
+		return rows;
+	}
+
+	/**
+	 * Writes out the given instances of the given data set as a data set, an
+	 * instance drawn more than once is written as often.
+	 * 
+	 * @param dataset
+	 *            the given data set
+	 * @param rows
+	 *            the indexes of the instances
+	 * @return the data set of the instances, with the same attributes
+	 */
+	private static DataSet sample(DataSet dataset, int[] rows) {
+
+		List<Attribute> attributes = dataset.getAttributes();
+		Buffer[] columns = new Buffer[attributes.size()];
+		for (int i = 0; i < columns.length; i++) {
+			if (attributes.get(i).isNumeric()) {
+				DoubleBuffer values = dataset.getNumericColumn(i);
+				DoubleBuffer column = DoubleBuffer.allocate(rows.length);
+				for (int row : rows) {
+					column.put(values.get(row));
+				}
+				columns[i] = column.flip();
+			} else {
+				IntBuffer codes = dataset.getNominalColumn(i);
+				IntBuffer column = IntBuffer.allocate(rows.length);
+				for (int row : rows) {
+					column.put(codes.get(row));
+				}
+				columns[i] = column.flip();
+			}
+		}
+		return new DataSet(dataset.getName(), attributes, columns, rows.length);
+	}
+
+	/**
+	 * Gets the number of trees.
+	 * 
+	 * @return the number of trees
+	 */
+	public int numTrees() {
+
+		return m_Trains.length;
+	}
+
+	/**
+	 * Gets the tree at the given index.
+	 * 
+	 * @param index
+	 *            the given index
+	 * @return the tree at the given index
+	 */
+	public Tree getTree(int index) {
+
+		return m_Trains[index].getTree();
+	}
+
+	/**
+	 * Gets the number of nodes of all trees.
+	 * 
+	 * @return the number of nodes of all trees
+	 */
+	public long numNodes() {
+
+		long numNodes = 0;
+		for (Train train : m_Trains) {
+			numNodes += train.getTree().numNodes();
+		}
+		return numNodes;
+	}
+
+	/**
+	 * Gets the number of attributes sampled at each node.
+	 * 
+	 * @return the number of attributes sampled at each node
+	 */
+	public int numSampled() {
+
+		return m_NumSampled;
+	}
+
+	/**
+	 * Gets the class attribute of the train set, which decodes the class codes
+	 * of the trees.
+	 * 
+	 * @return the class attribute
+	 */
+	public Attribute getClassAttribute() {
+
+		return m_Trainset.getAttributes().get(m_Trainset.numAttributes() - 1);
+	}
+
+	/**
+	 * Classifies the given instance by the votes of the trees.
+	 * 
+	 * @param instance
+	 *            the given instance
+	 * @return the class value, null if no tree has a class for the instance
+	 */
+	public String classify(Instance instance) {
+
+		int[] codes = new int[m_Trainset.numAttributes()];
+		double[] values = new double[codes.length];
+		m_Trains[0].encode(instance, codes, values);
+		int[] votes = new int[getClassAttribute().numValues()];
+		for (Train train : m_Trains) {
+			int c = train.getTree().classify(codes, values);
+			if (c != Tree.NONE)
+				votes[c]++;
+		}
+		int code = elect(votes, 0);
+		return code == Tree.NONE ? null : getClassAttribute().getValue(code);
+	}
+
+	/**
+	 * Classifies all instances of the given data set by the votes of the
+	 * trees.
+	 * 
+	 * @param dataset
+	 *            the given data set, attributes are matched by names
+	 * @return the class codes of the class attribute of the train set by
+	 *         instances, Tree.NONE if no tree has a class for an instance
+	 */
+	public int[] classify(DataSet dataset) {
+
+		return classify(dataset, 1);
+	}
+
+	/**
+	 * Classifies all instances of the given data set by the votes of the
+	 * trees with the given number of threads. Each thread votes for blocks of
+	 * instances into the result.
+	 * 
+	 * @param dataset
+	 *            the given data set, attributes are matched by names
+	 * @param parallelism
+	 *            the number of threads
+	 * @return the class codes of the class attribute of the train set by
+	 *         instances, Tree.NONE if no tree has a class for an instance
+	 */
+	public int[] classify(DataSet dataset, int parallelism) {
+
+		final int[] classes = new int[dataset.numInstances()];
+		final int[][] maps = new int[m_Trainset.numAttributes()][];
+		final DoubleBuffer[] numbers = new DoubleBuffer[maps.length];
+		final IntBuffer[] columns = m_Trains[0].getColumns(dataset, maps,
+				numbers);
+		if (parallelism <= 1 || classes.length <= BLOCK_SIZE) {
+			vote(columns, maps, numbers, classes, 0, classes.length);
+			return classes;
+		}
+		ForkJoinPool pool = new ForkJoinPool(parallelism);
+		try {
+			List<ForkJoinTask<?>> tasks = new ArrayList<ForkJoinTask<?>>();
+			for (int from = 0; from < classes.length; from += BLOCK_SIZE) {
+				final int start = from;
+				final int end = Math.min(from + BLOCK_SIZE, classes.length);
+				tasks.add(pool.submit(new Runnable() {
+					public void run() {
+						vote(columns, maps, numbers, classes, start, end);
+					}
+				}));
+			}
+			for (ForkJoinTask<?> task : tasks) {
+				task.join();
+			}
+		} finally {
+			pool.shutdown();
+		}
+		return classes;
+	}
+
+	/**
+	 * Classifies the instances from the given start to the given end by the
+	 * votes of the trees.
+	 * 
+	 * @param columns
+	 *            the value codes by attributes of the train set
+	 * @param maps
+	 *            the maps from the codes of the columns to the codes of the
+	 *            train set by attributes
+	 * @param numbers
+	 *            the values by numeric attributes of the train set
+	 * @param classes
+	 *            the class codes by instances
+	 * @param from
+	 *            the given start
+	 * @param to
+	 *            the given end
+	 */
+	private void vote(IntBuffer[] columns, int[][] maps,
+			DoubleBuffer[] numbers, int[] classes, int from, int to) {
+
+		int numClasses = getClassAttribute().numValues();
+		int[] votes = new int[(to - from) * numClasses];
+		for (Train train : m_Trains) {
+			Tree tree = train.getTree();
+			for (int i = from; i < to; i++) {
+				int c = tree.classify(columns, maps, numbers, i);
+				if (c != Tree.NONE)
+					votes[(i - from) * numClasses + c]++;
+			}
+		}
+		for (int i = from; i < to; i++) {
+			classes[i] = elect(votes, (i - from) * numClasses);
+		}
+	}
+
+	/**
+	 * Gets the class with the most votes, the first class wins a tie.
+	 * 
+	 * @param votes
+	 *            the numbers of votes by class codes from the given start
+	 * @param from
+	 *            the given start
+	 * @return the class code, Tree.NONE if there is no vote
+	 */
+	private int elect(int[] votes, int from) {
+
+		int numClasses = getClassAttribute().numValues();
+		int code = Tree.NONE;
+		int max = 0;
+		for (int k = 0; k < numClasses; k++) {
+			if (votes[from + k] > max) {
+				max = votes[from + k];
+				code = k;
+			}
+		}
+		return code;
+	}
+
+	/**
+	 * Returns a description of this forest.
+	 * 
+	 * @return a description of this forest as a string
+	 */
+	public String toString() {
+
+		return "Forest {" + m_Trains.length + " trees, " + numNodes()
+				+ " nodes, " + m_NumSampled + " attributes sampled}";
+	}
+
+	/**
+	 * Tests a forest with the given train set and test set. The times of
+	 * training and classifying, and the accuracies of the forest and of a
+	 * single tree are shown. A tree of a bootstrap sample is checked to be the
+	 * tree of the sample written out as a data set.
+	 * 
+	 * @param args
+	 *            must contain the name of a train set and a test set, the
+	 *            number of trees, threads and bins of numeric attributes are
+	 *            optional.
+	 */
+	public static void main(String[] args) {
+
+		if (args.length < 2) {
+			System.out.println("\nUsage: " + Forest.class.getName()
+					+ " <train set> <test set> [<trees>] [<threads>]"
+					+ " [<bins>]\n");
+			return;
+		}
+
+		try {
+			int numTrees = args.length > 2 ? Integer.parseInt(args[2])
+					: DEFAULT_NUM_TREES;
+			int parallelism = args.length > 3 ? Integer.parseInt(args[3]) : 1;
+			int numBins = args.length > 4 ? Integer.parseInt(args[4]) : 0;
+			DataSet trainset = Reader.readDataSet(new File(args[0]),
+					parallelism);
+			DataSet testset = Reader.readDataSet(new File(args[1]),
+					parallelism);
+
+			long start = System.nanoTime();
+			Forest forest = new Forest(trainset, numTrees, 0, numBins, 1L,
+					parallelism);
+			long time = System.nanoTime() - start;
+			System.out.println(forest + ", trained in " + time / 1000000
+					+ " ms with " + parallelism + " threads");
+
+			start = System.nanoTime();
+			int[] classes = forest.classify(testset, parallelism);
+			time = System.nanoTime() - start;
+			System.out.println(testset.numInstances()
+					+ " instances classified in " + time / 1000000
+					+ " ms, rows/s: "
+					+ (long) (testset.numInstances() * 1e9 / Math.max(1,
+							time)));
+
+			Attribute c = forest.getClassAttribute();
+			ID3 id3 = new ID3(trainset, parallelism, numBins);
+			System.out.println("forest accuracy: "
+					+ accuracy(classes, c, testset) + ", tree accuracy: "
+					+ accuracy(id3.classify(testset, parallelism), c, testset));
+
+			// a tree of a bootstrap sample with all attributes is the tree of
+			// the sample written out.
+			int[] rows = bootstrap(trainset.numInstances(), new Random(1L));
+			Train written = new Train(sample(trainset, rows));
+			Train bootstrap = new Train(trainset, rows,
+					trainset.numAttributes() - 1, new Random(1L), null, null);
+			System.out.println("bootstrap tree: "
+					+ bootstrap.getTree().numNodes() + " nodes, "
+					+ (bootstrap.toString().equals(written.toString()) ? "same"
+							: "other") + " tree as the written sample");
+		} catch (Exception e) {
+			System.out.println(e);
+		}
+	}
+
+	/**
+	 * Computes the accuracy of the given classes of the given test set.
+	 * 
+	 * @param classes
+	 *            the given class codes by instances
+	 * @param c
+	 *            the class attribute which decodes the classes
+	 * @param testset
+	 *            the given test set
+	 * @return the ratio of the instances whose class is right
+	 */
+	private static double accuracy(int[] classes, Attribute c,
+			DataSet testset) {
+
+		int n = testset.numInstances();
+		int index = testset.indexOfAttribute(c.getName());
+		int correct = 0;
+		for (int i = 0; i < n; i++) {
+			if (index >= 0
+					&& classes[i] >= 0
+					&& c.getValue(classes[i]).equals(
+							testset.getObject(i, index)))
+				correct++;
+		}
+		return n == 0 ? 0.0 : (double) correct / n;
+	}
+}
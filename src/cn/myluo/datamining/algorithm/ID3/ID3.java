@@ -7,8 +7,11 @@
 package cn.myluo.datamining.algorithm.ID3;
 
 import java.io.File;
+import java.util.concurrent.ForkJoinPool;
 
+import cn.myluo.datamining.data.Attribute;
 import cn.myluo.datamining.data.DataSet;
+import cn.myluo.datamining.data.Instance;
 import cn.myluo.datamining.util.Reader;
 
 /**
@@ -33,6 +36,121 @@ public class ID3 {
 		m_Train = new Train(trainset);
 	}
 
+	/**
+	 * Run ID3 algorithm with the given train set, the attributes are scored by
+	 * the given number of threads.
+	 * 
+	 * @param trainset
+	 *            the given train set
+	 * @param parallelism
+	 *            the number of threads
+	 */
+	public ID3(DataSet trainset, int parallelism) {
+
+		m_Train = new Train(trainset, parallelism);
+	}
+
+	/**
+	 * Run ID3 algorithm with the given train set, the attributes are scored by
+	 * the given number of threads, and numeric attributes are split into the
+	 * given number of bins.
+	 * 
+	 * @param trainset
+	 *            the given train set
+	 * @param parallelism
+	 *            the number of threads
+	 * @param numBins
+	 *            the number of bins, 0 for exact thresholds
+	 */
+	public ID3(DataSet trainset, int parallelism, int numBins) {
+
+		m_Train = new Train(trainset, parallelism, numBins);
+	}
+
+	/**
+	 * Run ID3 algorithm with the given train set, the attributes are scored in
+	 * the given pool.
+	 * 
+	 * @param trainset
+	 *            the given train set
+	 * @param pool
+	 *            the given pool, null for a sequential run
+	 */
+	public ID3(DataSet trainset, ForkJoinPool pool) {
+
+		m_Train = new Train(trainset, pool);
+	}
+
+	/**
+	 * Classifies the given instance with the decision tree.
+	 * 
+	 * @param instance
+	 *            the given instance
+	 * @return the class value, null if the tree has no class for the instance
+	 */
+	public String classify(Instance instance) {
+
+		return m_Train.classify(instance);
+	}
+
+	/**
+	 * Classifies all instances of the given data set with the decision tree.
+	 * 
+	 * @param dataset
+	 *            the given data set
+	 * @return the class codes by instances, decoded by getClassAttribute()
+	 */
+	public int[] classify(DataSet dataset) {
+
+		return m_Train.classify(dataset);
+	}
+
+	/**
+	 * Classifies all instances of the given data set with the decision tree
+	 * by the given number of threads.
+	 * 
+	 * @param dataset
+	 *            the given data set
+	 * @param parallelism
+	 *            the number of threads
+	 * @return the class codes by instances, decoded by getClassAttribute()
+	 */
+	public int[] classify(DataSet dataset, int parallelism) {
+
+		return m_Train.classify(dataset, parallelism);
+	}
+
+	/**
+	 * Gets the trained model.
+	 * 
+	 * @return the trained model
+	 */
+	public Model getModel() {
+
+		return m_Train.getModel();
+	}
+
+	/**
+	 * Compiles the decision tree into a class for classifying data sets.
+	 * 
+	 * @return true if the tree is compiled, false if it is too big or has
+	 *         numeric attributes and the tree is walked instead.
+	 */
+	public boolean compile() {
+
+		return m_Train.compile();
+	}
+
+	/**
+	 * Gets the class attribute of the train set.
+	 * 
+	 * @return the class attribute
+	 */
+	public Attribute getClassAttribute() {
+
+		return m_Train.getClassAttribute();
+	}
+
 	/**
 	 * Returns the result of this ID3 algorithm with train set.
 	 * 
@@ -47,19 +165,25 @@ public class ID3 {
 	 * Tests this ID3 algorithm with the given train set.
 	 * 
 	 * @param args
-	 *            must contain the name of an train set file to load.
+	 *            must contain the name of an train set file to load, and may
+	 *            contain the number of threads and the name of a file to save
+	 *            the model.
 	 */
 	public static void main(String[] args) {
 
 		if (args.length == 0) {
 			System.out.println("\nUsage: " + ID3.class.getName()
-					+ " <dataset>\n");
+					+ " <dataset> [<threads>] [<model>]\n");
 			return;
 		}
 
 		try {
-			System.out
-					.print(new ID3(new Reader(new File(args[0])).getDataSet()));
+			int parallelism = args.length > 1 ? Integer.parseInt(args[1]) : 1;
+			ID3 id3 = new ID3(Reader.readDataSet(new File(args[0]),
+					parallelism), parallelism);
+			System.out.print(id3);
+			if (args.length > 2)
+				id3.getModel().save(new File(args[2]));
 		} catch (Exception e) {
 			System.out.println(e);
 		}
@@ -0,0 +1,672 @@
+/*
+ *    Incremental.java
+ *    Copyright (C) 2016 NanChang University, JiangXi, China
+ *
+ */
+
+package cn.myluo.datamining.algorithm.ID3;
+
+import java.io.File;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+import cn.myluo.datamining.data.Attribute;
+import cn.myluo.datamining.data.DataSet;
+import cn.myluo.datamining.util.Reader;
+
+/**
+ * Class for incremental train with ID3 algorithm.
+ * 
+ * Like ID5R, each node keeps the numbers of its instances by classes, and a
+ * split node keeps the numbers of its instances by values and classes of every
+ * unused attribute, so the best attribute of a node is known without a pass
+ * over its instances. A leaf keeps its instances, and a split node keeps
+ * those without a value of its attribute.
+ * 
+ * The instances appended to the train set are passed down the tree and only
+ * the numbers of the nodes on their paths change. A leaf which is no longer
+ * pure is grown, and a node whose best attribute changes is grown again from
+ * the instances of its subtree, the other subtrees are kept. Numeric
+ * attributes are not used, so for a train set of nominal attributes the tree
+ * is the same as the tree a Train builds from the whole train set.
+ * 
+ * @author Luo Mingyuan
+ * @version 1612
+ */
+public class Incremental {
+
+	/** the train set. */
+	private DataSet m_Trainset;
+
+	/** the root node. */
+	private Node m_Root;
+
+	/** the number of instances of the train set in the tree. */
+	private int m_NumLearned;
+
+	/** the number of nodes grown by the last update. */
+	private int m_NumGrown;
+
+	/** the decision tree of the nodes, null until it is built. */
+	private Tree m_Tree;
+
+	/**
+	 * Creates an incremental train with the given train set, all instances of
+	 * the train set are learned.
+	 * 
+	 * @param trainset
+	 *            the given train set
+	 */
+	public Incremental(DataSet trainset) {
+
+		this.m_Trainset = trainset;
+		int n = 0;
+		int[] attributeIndexs = new int[trainset.numAttributes() - 1];
+		for (int i = 0; i < attributeIndexs.length; i++) {
+			if (!trainset.getAttributes().get(i).isNumeric())
+				attributeIndexs[n++] = i;
+		}
+		m_Root = new Node(Arrays.copyOf(attributeIndexs, n));
+		update();
+	}
+
+	/**
+	 * Learns the instances appended to the train set since the last update.
+	 * 
+	 * @return the number of learned instances
+	 */
+	public int update() {
+
+		int from = m_NumLearned;
+		int to = m_Trainset.numInstances();
+		m_NumGrown = 0;
+		if (from == to)
+			return 0;
+		int[] rows = new int[to - from];
+		for (int i = 0; i < rows.length; i++) {
+			rows[i] = from + i;
+		}
+		learn(m_Root, rows, 0, rows.length);
+		m_NumLearned = to;
+		// empty leaves take the class of the last instance.
+		m_Tree = null;
+		return rows.length;
+	}
+
+	/**
+	 * Appends all instances of the given data set into the train set and
+	 * learns them. Attributes are matched by names, the values of unknown
+	 * attributes are missing.
+	 * 
+	 * @param dataset
+	 *            the given data set
+	 * @return the number of learned instances
+	 */
+	public int update(DataSet dataset) {
+
+		int numAttributes = m_Trainset.numAttributes();
+		int[] indexes = new int[numAttributes];
+		int[][] maps = new int[numAttributes][];
+		for (int i = 0; i < numAttributes; i++) {
+			Attribute a = m_Trainset.getAttributes().get(i);
+			indexes[i] = dataset.indexOfAttribute(a.getName());
+			if (indexes[i] < 0)
+				continue;
+			Attribute b = dataset.getAttributes().get(indexes[i]);
+			if (a.isNumeric() != b.isNumeric()) {
+				indexes[i] = -1;
+			} else if (!a.isNumeric()) {
+				// values are added when they are first appended.
+				maps[i] = new int[b.numValues()];
+				Arrays.fill(maps[i], -2);
+			}
+		}
+
+		double[] values = new double[numAttributes];
+		int[] codes = new int[numAttributes];
+		for (int r = 0; r < dataset.numInstances(); r++) {
+			for (int i = 0; i < numAttributes; i++) {
+				int index = indexes[i];
+				values[i] = Double.NaN;
+				codes[i] = -1;
+				if (index < 0)
+					continue;
+				if (maps[i] == null) {
+					values[i] = dataset.getValue(r, index);
+					continue;
+				}
+				int code = dataset.getCode(r, index);
+				if (code < 0)
+					continue;
+				if (maps[i][code] == -2)
+					maps[i][code] = m_Trainset.getAttributes().get(i)
+							.addValue(dataset.getAttributes().get(index)
+									.getValue(code));
+				codes[i] = maps[i][code];
+			}
+			m_Trainset.appendInstance(values, codes);
+		}
+		return update();
+	}
+
+	/**
+	 * Gets the number of nodes grown by the last update.
+	 * 
+	 * @return the number of grown nodes
+	 */
+	public int numGrown() {
+
+		return m_NumGrown;
+	}
+
+	/**
+	 * Gets the decision tree, which is built from the nodes after an update.
+	 * 
+	 * @return the decision tree
+	 */
+	public Tree getTree() {
+
+		if (m_Tree == null) {
+			Tree tree = new Tree();
+			build(tree, 0, m_Root);
+			tree.trimToSize();
+			m_Tree = tree;
+		}
+		return m_Tree;
+	}
+
+	/**
+	 * Gets a train with the decision tree, which classifies instances as a
+	 * train from the whole train set.
+	 * 
+	 * @return the train with the decision tree
+	 */
+	public Train getTrain() {
+
+		return new Train(m_Trainset, getTree());
+	}
+
+	/**
+	 * Gets the trained model.
+	 * 
+	 * @return the trained model
+	 */
+	public Model getModel() {
+
+		return new Model(m_Trainset.getAttributes(), getTree());
+	}
+
+	/**
+	 * Learns the given instances at the given node. The numbers of the node
+	 * are updated, and the node is grown again if its best attribute changes,
+	 * otherwise the instances are passed to its children.
+	 * 
+	 * @param node
+	 *            the given node
+	 * @param rows
+	 *            the indexes of the instances, in the order of the train set
+	 * @param from
+	 *            the start of the instances
+	 * @param to
+	 *            the end of the instances
+	 */
+	private void learn(Node node, int[] rows, int from, int to) {
+
+		int classIndex = m_Trainset.numAttributes() - 1;
+		int numClasses = numValues(classIndex);
+		IntBuffer classes = m_Trainset.getNominalColumn(classIndex);
+		if (node.m_ClassCounts.length < numClasses)
+			node.m_ClassCounts = Arrays.copyOf(node.m_ClassCounts, numClasses);
+		for (int i = from; i < to; i++) {
+			int k = classes.get(rows[i]);
+			if (k >= 0)
+				node.m_ClassCounts[k]++;
+		}
+		node.m_NumInstances += to - from;
+
+		if (node.m_Attribute == Tree.NONE) {
+			node.append(rows, from, to);
+			if (node.m_Attributes.length > 0 && !isPure(node))
+				grow(node, node.m_Rows, 0, node.m_NumRows);
+			return;
+		}
+
+		for (int j = 0; j < node.m_Attributes.length; j++) {
+			int attributeIndex = node.m_Attributes[j];
+			int[][] table = resize(node.m_Tables[j], numValues(attributeIndex),
+					numClasses);
+			IntBuffer values = m_Trainset.getNominalColumn(attributeIndex);
+			for (int i = from; i < to; i++) {
+				int v = values.get(rows[i]);
+				if (v < 0)
+					continue;
+				table[v][numClasses]++;
+				int k = classes.get(rows[i]);
+				if (k >= 0)
+					table[v][k]++;
+			}
+			node.m_Tables[j] = table;
+		}
+
+		if (node.m_Attributes[best(node)] != node.m_Attribute) {
+			// the subtree is grown again with all of its instances.
+			int[] all = new int[node.m_NumInstances];
+			int n = collect(node, all, 0);
+			System.arraycopy(rows, from, all, n, to - from);
+			Arrays.sort(all);
+			grow(node, all, 0, all.length);
+			return;
+		}
+
+		int numValues = numValues(node.m_Attribute);
+		if (node.m_Children.length < numValues) {
+			// new values of the attribute come with new children.
+			int n = node.m_Children.length;
+			int[] unused = unused(node.m_Attributes, node.m_Attribute);
+			node.m_Children = Arrays.copyOf(node.m_Children, numValues);
+			for (int code = n; code < numValues; code++) {
+				node.m_Children[code] = new Node(unused);
+			}
+		}
+		int[] bounds = partition(node.m_Attribute, rows, from, to);
+		for (int code = 0; code < numValues; code++) {
+			if (bounds[code] < bounds[code + 1])
+				learn(node.m_Children[code], rows, bounds[code],
+						bounds[code + 1]);
+		}
+		node.append(rows, bounds[numValues], to);
+	}
+
+	/**
+	 * Grows the subtree at the given node with the given instances, as a
+	 * Train trains a node.
+	 * 
+	 * @param node
+	 *            the given node
+	 * @param rows
+	 *            the indexes of the instances, in the order of the train set
+	 * @param from
+	 *            the start of the instances
+	 * @param to
+	 *            the end of the instances
+	 */
+	private void grow(Node node, int[] rows, int from, int to) {
+
+		m_NumGrown++;
+		int classIndex = m_Trainset.numAttributes() - 1;
+		int numClasses = numValues(classIndex);
+		IntBuffer classes = m_Trainset.getNominalColumn(classIndex);
+		int[] classCounts = new int[numClasses];
+		for (int i = from; i < to; i++) {
+			int k = classes.get(rows[i]);
+			if (k >= 0)
+				classCounts[k]++;
+		}
+		rows = Arrays.copyOfRange(rows, from, to);
+		node.m_ClassCounts = classCounts;
+		node.m_NumInstances = rows.length;
+		node.m_Attribute = Tree.NONE;
+		node.m_Children = null;
+		node.m_Tables = null;
+		node.m_Rows = rows;
+		node.m_NumRows = rows.length;
+		if (isPure(node) || node.m_Attributes.length == 0)
+			return;
+
+		node.m_Tables = new int[node.m_Attributes.length][][];
+		for (int j = 0; j < node.m_Attributes.length; j++) {
+			int attributeIndex = node.m_Attributes[j];
+			int[][] table = new int[numValues(attributeIndex)][numClasses + 1];
+			IntBuffer values = m_Trainset.getNominalColumn(attributeIndex);
+			for (int row : rows) {
+				int v = values.get(row);
+				if (v < 0)
+					continue;
+				table[v][numClasses]++;
+				int k = classes.get(row);
+				if (k >= 0)
+					table[v][k]++;
+			}
+			node.m_Tables[j] = table;
+		}
+
+		int best = best(node);
+		int attributeIndex = node.m_Attributes[best];
+		int[] unused = unused(node.m_Attributes, attributeIndex);
+		int numValues = numValues(attributeIndex);
+		int[] bounds = partition(attributeIndex, rows, 0, rows.length);
+		node.m_Attribute = attributeIndex;
+		node.m_Children = new Node[numValues];
+		for (int code = 0; code < numValues; code++) {
+			node.m_Children[code] = new Node(unused);
+			grow(node.m_Children[code], rows, bounds[code], bounds[code + 1]);
+		}
+		// the instances without value stay at the node.
+		node.m_Rows = Arrays.copyOfRange(rows, bounds[numValues], rows.length);
+		node.m_NumRows = node.m_Rows.length;
+	}
+
+	/**
+	 * Finds the unused attribute with the max gain at the given split node,
+	 * the first attribute wins a tie as in a Train.
+	 * 
+	 * @param node
+	 *            the given node
+	 * @return the position of the attribute in the unused attributes
+	 */
+	private int best(Node node) {
+
+		int numClasses = numValues(m_Trainset.numAttributes() - 1);
+		int c = node.m_NumInstances;
+		double e = Train.information(node.m_ClassCounts, numClasses, c) / c;
+		double max = -1;
+		int best = -1;
+		for (int j = 0; j < node.m_Attributes.length; j++) {
+			double g = Train.gain(e, node.m_Tables[j], numClasses, c);
+			if (g > max + Train.TIE) {
+				max = g;
+				best = j;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Gets the given attributes' index without the given attribute.
+	 * 
+	 * @param attributeIndexs
+	 *            the given attributes' index
+	 * @param attributeIndex
+	 *            the given attribute's index
+	 * @return the attributes' index without the given attribute, in order
+	 */
+	private static int[] unused(int[] attributeIndexs, int attributeIndex) {
+
+		int[] unused = new int[attributeIndexs.length - 1];
+		int n = 0;
+		for (int i : attributeIndexs) {
+			if (i != attributeIndex)
+				unused[n++] = i;
+		}
+		return unused;
+	}
+
+	/**
+	 * Checks if all instances of the given node belong to one class.
+	 * 
+	 * @param node
+	 *            the given node
+	 * @return true if the entropy of the node is 0, false otherwise.
+	 */
+	private static boolean isPure(Node node) {
+
+		int c = node.m_NumInstances;
+		return c == 0
+				|| Train.information(node.m_ClassCounts,
+						node.m_ClassCounts.length, c) == 0.0;
+	}
+
+	/**
+	 * Partitions the given instances by the values of the given attribute. The
+	 * instances of each value keep their order, instances without value are
+	 * put at the end.
+	 * 
+	 * @param attributeIndex
+	 *            the given index of attribute
+	 * @param rows
+	 *            the indexes of the instances
+	 * @param from
+	 *            the start of the instances
+	 * @param to
+	 *            the end of the instances
+	 * @return the bounds of the instances by value codes, the instances of
+	 *         code i are from bounds[i] to bounds[i + 1]
+	 */
+	private int[] partition(int attributeIndex, int[] rows, int from, int to) {
+
+		int numValues = numValues(attributeIndex);
+		IntBuffer values = m_Trainset.getNominalColumn(attributeIndex);
+		int[] bounds = new int[numValues + 3];
+		for (int i = from; i < to; i++) {
+			int v = values.get(rows[i]);
+			bounds[(v < 0 ? numValues : v) + 2]++;
+		}
+		bounds[0] = from;
+		bounds[1] = from;
+		for (int i = 2; i < bounds.length; i++) {
+			bounds[i] += bounds[i - 1];
+		}
+		int[] buffer = Arrays.copyOfRange(rows, from, to);
+		for (int row : buffer) {
+			int v = values.get(row);
+			rows[bounds[(v < 0 ? numValues : v) + 1]++] = row;
+		}
+		return bounds;
+	}
+
+	/**
+	 * Copies the instances of the subtree at the given node into the given
+	 * array.
+	 * 
+	 * @param node
+	 *            the given node
+	 * @param rows
+	 *            the given array
+	 * @param n
+	 *            the number of instances in the array
+	 * @return the number of instances in the array after the copy
+	 */
+	private static int collect(Node node, int[] rows, int n) {
+
+		System.arraycopy(node.m_Rows, 0, rows, n, node.m_NumRows);
+		n += node.m_NumRows;
+		if (node.m_Children != null) {
+			for (Node child : node.m_Children) {
+				n = collect(child, rows, n);
+			}
+		}
+		return n;
+	}
+
+	/**
+	 * Resizes the given table to the given numbers of values and classes, the
+	 * numbers of instances by values stay at the last column.
+	 * 
+	 * @param table
+	 *            the numbers of instances by value codes and class codes
+	 * @param numValues
+	 *            the number of values
+	 * @param numClasses
+	 *            the number of classes
+	 * @return the given table if its size is right, a resized copy otherwise
+	 */
+	static int[][] resize(int[][] table, int numValues, int numClasses) {
+
+		if (table.length == numValues
+				&& (numValues == 0 || table[0].length == numClasses + 1))
+			return table;
+		int[][] resized = new int[numValues][numClasses + 1];
+		for (int v = 0; v < table.length; v++) {
+			int last = table[v].length - 1;
+			System.arraycopy(table[v], 0, resized[v], 0, last);
+			resized[v][numClasses] = table[v][last];
+		}
+		return resized;
+	}
+
+	/**
+	 * Builds the decision tree at the given index of the given tree from the
+	 * subtree at the given node, in the order a sequential Train adds nodes.
+	 * 
+	 * @param tree
+	 *            the given tree
+	 * @param index
+	 *            the given index
+	 * @param node
+	 *            the given node
+	 */
+	private void build(Tree tree, int index, Node node) {
+
+		if (node.m_Attribute == Tree.NONE) {
+			if (node.m_NumInstances == 0)
+				tree.setLeaf(index, getLastClass());
+			else if (isPure(node))
+				tree.setLeaf(index, m_Trainset.getCode(node.m_Rows[0],
+						m_Trainset.numAttributes() - 1));
+			return;
+		}
+		int numValues = numValues(node.m_Attribute);
+		int first = tree.split(index, node.m_Attribute, numValues);
+		for (int code = 0; code < numValues; code++) {
+			if (code < node.m_Children.length)
+				build(tree, first + code, node.m_Children[code]);
+			else
+				tree.setLeaf(first + code, getLastClass());
+		}
+	}
+
+	/**
+	 * Gets the class of the last instance of the train set, which is the
+	 * class of empty leaves.
+	 * 
+	 * @return the code of the class
+	 */
+	private int getLastClass() {
+
+		return m_Trainset.getCode(m_Trainset.numInstances() - 1,
+				m_Trainset.numAttributes() - 1);
+	}
+
+	/**
+	 * Gets the number of values of the given attribute.
+	 * 
+	 * @param attributeIndex
+	 *            the given index of attribute
+	 * @return the number of values
+	 */
+	private int numValues(int attributeIndex) {
+
+		return m_Trainset.getAttributes().get(attributeIndex).numValues();
+	}
+
+	/**
+	 * Returns the result of this incremental train.
+	 * 
+	 * @return the result of this incremental train
+	 */
+	public String toString() {
+
+		return getTrain().toString();
+	}
+
+	/**
+	 * A node of the incremental tree.
+	 */
+	private static class Node {
+
+		/** the unused attributes' index at the node. */
+		private int[] m_Attributes;
+
+		/** the index of the attribute of the node, Tree.NONE for a leaf. */
+		private int m_Attribute = Tree.NONE;
+
+		/** the children by value codes of the attribute. */
+		private Node[] m_Children;
+
+		/** the number of instances of the node. */
+		private int m_NumInstances;
+
+		/** the numbers of instances by class codes. */
+		private int[] m_ClassCounts = new int[0];
+
+		/**
+		 * the numbers of instances by value codes and class codes of the
+		 * unused attributes, the last number of a value is the number of its
+		 * instances.
+		 */
+		private int[][][] m_Tables;
+
+		/**
+		 * the indexes of instances of a leaf, or of those without a value of
+		 * the attribute of a split node, in the order of the train set.
+		 */
+		private int[] m_Rows = new int[0];
+
+		/** the number of instances in m_Rows. */
+		private int m_NumRows;
+
+		/**
+		 * Creates a leaf with the given unused attributes.
+		 * 
+		 * @param attributes
+		 *            the unused attributes' index at the node
+		 */
+		Node(int[] attributes) {
+
+			this.m_Attributes = attributes;
+		}
+
+		/**
+		 * Adds the given instances into m_Rows.
+		 * 
+		 * @param rows
+		 *            the indexes of the instances
+		 * @param from
+		 *            the start of the instances
+		 * @param to
+		 *            the end of the instances
+		 */
+		void append(int[] rows, int from, int to) {
+
+			int n = m_NumRows + to - from;
+			if (n > m_Rows.length)
+				m_Rows = Arrays.copyOf(m_Rows, Math.max(n, m_Rows.length * 2));
+			System.arraycopy(rows, from, m_Rows, m_NumRows, to - from);
+			m_NumRows = n;
+		}
+	}
+
+	/**
+	 * Tests this incremental train with the given train set and increments.
+	 * Each increment is learned and compared with a train from scratch.
+	 * 
+	 * @param args
+	 *            must contain the name of a train set file and the names of
+	 *            increment files
+	 */
+	public static void main(String[] args) {
+
+		if (args.length < 2) {
+			System.out.println("\nUsage: " + Incremental.class.getName()
+					+ " <dataset> <increment>...\n");
+			return;
+		}
+
+		try {
+			DataSet trainset = Reader.readDataSet(new File(args[0]));
+			long start = System.nanoTime();
+			Incremental incremental = new Incremental(trainset);
+			System.out.println(args[0] + ": " + trainset.numInstances()
+					+ " instances in " + (System.nanoTime() - start) / 1000000
+					+ " ms");
+			for (int i = 1; i < args.length; i++) {
+				DataSet increment = Reader.readDataSet(new File(args[i]));
+				start = System.nanoTime();
+				int n = incremental.update(increment);
+				incremental.getTree();
+				long time = System.nanoTime() - start;
+				start = System.nanoTime();
+				Train train = new Train(trainset);
+				long retrain = System.nanoTime() - start;
+				System.out.println(args[i] + ": " + n + " instances, "
+						+ incremental.numGrown() + " nodes grown in " + time
+						/ 1000000 + " ms, retrain in " + retrain / 1000000
+						+ " ms, "
+						+ (incremental.toString().equals(train.toString()) ? "same" : "other")
+						+ " tree");
+			}
+		} catch (Exception e) {
+			System.out.println(e);
+		}
+	}
+}
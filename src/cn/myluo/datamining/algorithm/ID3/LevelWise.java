@@ -0,0 +1,773 @@
+/*
+ *    LevelWise.java
+ *    Copyright (C) 2016 NanChang University, JiangXi, China
+ *
+ */
+
+package cn.myluo.datamining.algorithm.ID3;
+
+import java.io.File;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import cn.myluo.datamining.data.Attribute;
+import cn.myluo.datamining.data.DataSet;
+import cn.myluo.datamining.util.Reader;
+
+/**
+ * Class for level-wise train with ID3 algorithm.
+ * 
+ * The tree is grown breadth first, without recursion. The open nodes of a
+ * level are kept in a frontier, and the node of each instance is kept in an
+ * array. For each level, the instances are routed to the children of their
+ * nodes in one pass, and the tables of all open nodes are counted in one pass
+ * over each column, where every instance counts into the table of its node.
+ * Then all open nodes of the level are split. So the number of passes over
+ * the train set is the depth of the tree.
+ * 
+ * The instances of each numeric attribute are sorted once, and the best
+ * thresholds of all open nodes are found in one pass over the sorted
+ * instances like SLIQ, each node keeps the numbers of its instances passed so
+ * far. The values of numeric attributes can also be split into bins as in
+ * Train. The tables of a level take memory by its nodes, so a level whose
+ * tables are too large is counted in groups of nodes, with a pass for each
+ * group.
+ * 
+ * The attributes of the nodes and their ties are those of Train, so the tree
+ * is the same as that of a Train with the same number of bins. The tree is
+ * shown by the Train of getTrain() without recursion either, so its depth is
+ * limited only by the memory of the shown lines, which are indented by their
+ * depths.
+ * 
+ * @author Luo Mingyuan
+ * @version 1612
+ */
+public class LevelWise {
+
+	/** the max number of table entries counted in one pass. */
+	private static final long MAX_CELLS = 1L << 24;
+
+	/** the train set. */
+	private DataSet m_Trainset;
+
+	/** the decision tree. */
+	private Tree m_Tree;
+
+	/** the pool to count attributes, null for a sequential train. */
+	private ForkJoinPool m_Pool;
+
+	/** the number of classes. */
+	private int m_NumClasses;
+
+	/** the nodes of instances, Tree.NONE for an instance out of the tree. */
+	private int[] m_Nodes;
+
+	/**
+	 * the indexes of instances sorted by the values of numeric attributes,
+	 * null for the other attributes or bins.
+	 */
+	private int[][] m_Sorted;
+
+	/**
+	 * the bin codes of instances as unsigned bytes by numeric attributes, null
+	 * for the other attributes or exact thresholds.
+	 */
+	private byte[][] m_Bins;
+
+	/**
+	 * the upper bounds of the bins but the last one by numeric attributes,
+	 * null for the other attributes or exact thresholds.
+	 */
+	private double[][] m_Cuts;
+
+	/** the number of levels. */
+	private int m_NumLevels;
+
+	/** the number of passes which count tables. */
+	private int m_NumPasses;
+
+	/**
+	 * Creates a level-wise train with the given train set.
+	 * 
+	 * @param trainset
+	 *            the given train set
+	 */
+	public LevelWise(DataSet trainset) {
+
+		this(trainset, 1, 0);
+	}
+
+	/**
+	 * Creates a level-wise train with the given train set, the attributes are
+	 * counted by the given number of threads, and numeric attributes are
+	 * split into the given number of bins.
+	 * 
+	 * @param trainset
+	 *            the given train set
+	 * @param parallelism
+	 *            the number of threads, the train is sequential if it is not
+	 *            greater than 1
+	 * @param numBins
+	 *            the number of bins, from 2 to Train.MAX_NUM_BINS, 0 for exact
+	 *            thresholds
+	 */
+	public LevelWise(DataSet trainset, int parallelism, int numBins) {
+
+		this(trainset, parallelism > 1 ? new ForkJoinPool(parallelism) : null,
+				numBins);
+		if (m_Pool != null)
+			m_Pool.shutdown();
+		m_Pool = null;
+	}
+
+	/**
+	 * Creates a level-wise train with the given train set, the attributes are
+	 * counted in the given pool, and numeric attributes are split into the
+	 * given number of bins.
+	 * 
+	 * @param trainset
+	 *            the given train set
+	 * @param pool
+	 *            the given pool, null for a sequential train
+	 * @param numBins
+	 *            the number of bins, from 2 to Train.MAX_NUM_BINS, 0 for exact
+	 *            thresholds
+	 */
+	public LevelWise(DataSet trainset, ForkJoinPool pool, int numBins) {
+
+		if (numBins == 1 || numBins < 0 || numBins > Train.MAX_NUM_BINS)
+			throw new IllegalArgumentException("Bad number of bins: "
+					+ numBins);
+		this.m_Trainset = trainset;
+		this.m_Pool = pool;
+		m_Tree = new Tree();
+		int n = trainset.numInstances();
+		int classIndex = trainset.numAttributes() - 1;
+		m_NumClasses = trainset.getAttributes().get(classIndex).numValues();
+		m_Nodes = new int[n];
+		if (numBins == 0) {
+			sort();
+		} else {
+			m_Bins = new byte[trainset.numAttributes()][];
+			m_Cuts = new double[m_Bins.length][];
+			Train.bin(trainset, numBins, pool, m_Bins, m_Cuts);
+		}
+
+		int[] classCounts = new int[m_NumClasses];
+		IntBuffer classes = trainset.getNominalColumn(classIndex);
+		for (int row = 0; row < n; row++) {
+			int k = classes.get(row);
+			if (k >= 0)
+				classCounts[k]++;
+		}
+		List<Integer> attributeIndexs = new ArrayList<Integer>();
+		for (int i = 0; i < classIndex; i++) {
+			attributeIndexs.add(i);
+		}
+		List<Open> created = new ArrayList<Open>();
+		created.add(new Open(0, attributeIndexs, classCounts, n));
+		while (!created.isEmpty()) {
+			int[] firsts = m_NumLevels == 0 ? new int[] { n > 0 ? 0 : -1 }
+					: route();
+			m_NumLevels++;
+			// the new nodes are leaves, or open until they are split.
+			List<Open> frontier = new ArrayList<Open>();
+			for (Open open : created) {
+				int c = open.m_NumInstances;
+				if (c == 0
+						|| Train.information(open.m_ClassCounts, m_NumClasses,
+								c) == 0.0)
+					m_Tree.setLeaf(open.m_Node, getClass(firsts[open.m_Node]));
+				else if (!open.m_Attributes.isEmpty())
+					frontier.add(open);
+			}
+			created = expand(frontier);
+		}
+		m_Tree.trimToSize();
+		m_Nodes = null;
+		m_Sorted = null;
+		m_Bins = null;
+		m_Cuts = null;
+	}
+
+	/**
+	 * Gets the decision tree.
+	 * 
+	 * @return the decision tree
+	 */
+	public Tree getTree() {
+
+		return m_Tree;
+	}
+
+	/**
+	 * Gets a train of the tree, which classifies instances and shows the
+	 * tree.
+	 * 
+	 * @return the train of the tree
+	 */
+	public Train getTrain() {
+
+		return new Train(m_Trainset, m_Tree);
+	}
+
+	/**
+	 * Gets the trained model.
+	 * 
+	 * @return the trained model
+	 */
+	public Model getModel() {
+
+		return new Model(m_Trainset.getAttributes(), m_Tree);
+	}
+
+	/**
+	 * Gets the number of levels, which is the number of passes that route
+	 * the instances plus one.
+	 * 
+	 * @return the number of levels
+	 */
+	public int numLevels() {
+
+		return m_NumLevels;
+	}
+
+	/**
+	 * Gets the number of passes which count tables, one for each level
+	 * unless its tables are too large.
+	 * 
+	 * @return the number of passes which count tables
+	 */
+	public int numPasses() {
+
+		return m_NumPasses;
+	}
+
+	/**
+	 * Sorts the indexes of instances by the values of each numeric attribute,
+	 * in parallel if there is a pool.
+	 */
+	private void sort() {
+
+		m_Sorted = new int[m_Trainset.numAttributes()][];
+		List<Runnable> tasks = new ArrayList<Runnable>();
+		for (int i = 0; i < m_Sorted.length - 1; i++) {
+			if (!m_Trainset.getAttributes().get(i).isNumeric())
+				continue;
+			final int attributeIndex = i;
+			tasks.add(new Runnable() {
+				public void run() {
+					int n = m_Trainset.numInstances();
+					int[] rows = new int[n];
+					for (int row = 0; row < n; row++) {
+						rows[row] = row;
+					}
+					Train.sort(rows, new int[n],
+							m_Trainset.getNumericColumn(attributeIndex), 0, n);
+					m_Sorted[attributeIndex] = rows;
+				}
+			});
+		}
+		run(tasks);
+	}
+
+	/**
+	 * Runs the given tasks, in parallel if there is a pool.
+	 * 
+	 * @param tasks
+	 *            the given tasks
+	 */
+	private void run(List<Runnable> tasks) {
+
+		if (m_Pool == null || tasks.size() < 2) {
+			for (Runnable task : tasks) {
+				task.run();
+			}
+			return;
+		}
+		List<ForkJoinTask<?>> forks = new ArrayList<ForkJoinTask<?>>();
+		for (Runnable task : tasks) {
+			forks.add(m_Pool.submit(task));
+		}
+		for (ForkJoinTask<?> fork : forks) {
+			fork.join();
+		}
+	}
+
+	/**
+	 * Gets the class of the given instance, or the class of the last instance
+	 * of the train set if there is no instance.
+	 * 
+	 * @param row
+	 *            the index of the instance, -1 for none
+	 * @return the code of the instance class
+	 */
+	private int getClass(int row) {
+
+		int instance = row >= 0 ? row : m_Trainset.numInstances() - 1;
+		return m_Trainset.getCode(instance, m_Trainset.numAttributes() - 1);
+	}
+
+	/**
+	 * Routes each instance to the child of its node by the attribute of the
+	 * node. An instance of a leaf, or without a value of the attribute, is
+	 * taken out of the tree.
+	 * 
+	 * @return the first instances by nodes, -1 for a node without instance
+	 */
+	private int[] route() {
+
+		int numAttributes = m_Trainset.numAttributes();
+		IntBuffer[] codes = new IntBuffer[numAttributes];
+		DoubleBuffer[] values = new DoubleBuffer[numAttributes];
+		for (int i = 0; i < numAttributes - 1; i++) {
+			if (m_Trainset.getAttributes().get(i).isNumeric())
+				values[i] = m_Trainset.getNumericColumn(i);
+			else
+				codes[i] = m_Trainset.getNominalColumn(i);
+		}
+		int[] firsts = new int[m_Tree.numNodes()];
+		Arrays.fill(firsts, -1);
+		for (int row = 0; row < m_Nodes.length; row++) {
+			int node = m_Nodes[row];
+			if (node == Tree.NONE)
+				continue;
+			int attribute = m_Tree.getAttribute(node);
+			int code = -1;
+			if (attribute == Tree.NONE) {
+				// a leaf or a node without attribute.
+			} else if (codes[attribute] != null) {
+				code = codes[attribute].get(row);
+			} else {
+				double value = values[attribute].get(row);
+				if (!Double.isNaN(value))
+					code = value <= m_Tree.getThreshold(node) ? 0 : 1;
+			}
+			if (code < 0) {
+				m_Nodes[row] = Tree.NONE;
+				continue;
+			}
+			int child = m_Tree.getChild(node, code);
+			m_Nodes[row] = child;
+			if (firsts[child] < 0)
+				firsts[child] = row;
+		}
+		return firsts;
+	}
+
+	/**
+	 * Counts the tables of the given open nodes and splits them, in groups
+	 * whose tables take at most MAX_CELLS numbers.
+	 * 
+	 * @param frontier
+	 *            the given open nodes
+	 * @return the children of the nodes
+	 */
+	private List<Open> expand(List<Open> frontier) {
+
+		List<Open> children = new ArrayList<Open>();
+		int start = 0;
+		while (start < frontier.size()) {
+			long cells = 0;
+			int end = start;
+			while (end < frontier.size()) {
+				long next = cells(frontier.get(end));
+				if (end > start && cells + next > MAX_CELLS)
+					break;
+				cells += next;
+				end++;
+			}
+			List<Open> group = frontier.subList(start, end);
+			count(group);
+			for (Open open : group) {
+				split(open, children);
+			}
+			start = end;
+		}
+		return children;
+	}
+
+	/**
+	 * Gets the number of table entries of the given open node.
+	 * 
+	 * @param open
+	 *            the given open node
+	 * @return the number of table entries
+	 */
+	private long cells(Open open) {
+
+		long cells = 0;
+		for (int attributeIndex : open.m_Attributes) {
+			cells += (long) numCodes(attributeIndex) * (m_NumClasses + 1);
+		}
+		return cells;
+	}
+
+	/**
+	 * Gets the number of codes the table of the given attribute counts.
+	 * 
+	 * @param attributeIndex
+	 *            the given index of attribute
+	 * @return the number of values, bins, or 4 for the numbers a numeric
+	 *         attribute of exact thresholds keeps by nodes
+	 */
+	private int numCodes(int attributeIndex) {
+
+		Attribute a = m_Trainset.getAttributes().get(attributeIndex);
+		if (!a.isNumeric())
+			return a.numValues();
+		return m_Bins == null ? 4 : m_Cuts[attributeIndex].length + 1;
+	}
+
+	/**
+	 * Counts the tables of the given open nodes by each attribute in one pass
+	 * over its instances, in parallel if there is a pool.
+	 * 
+	 * @param group
+	 *            the given open nodes
+	 */
+	private void count(final List<Open> group) {
+
+		m_NumPasses++;
+		final int[] slots = new int[m_Tree.numNodes()];
+		Arrays.fill(slots, -1);
+		int numAttributes = m_Trainset.numAttributes();
+		boolean[] counted = new boolean[numAttributes];
+		for (int i = 0; i < group.size(); i++) {
+			Open open = group.get(i);
+			slots[open.m_Node] = i;
+			open.m_Tables = new int[numAttributes][][];
+			open.m_Thresholds = new double[numAttributes];
+			for (int attributeIndex : open.m_Attributes) {
+				counted[attributeIndex] = true;
+			}
+		}
+
+		List<Runnable> tasks = new ArrayList<Runnable>();
+		for (int i = 0; i < numAttributes - 1; i++) {
+			if (!counted[i])
+				continue;
+			final int attributeIndex = i;
+			tasks.add(new Runnable() {
+				public void run() {
+					if (m_Sorted != null && m_Sorted[attributeIndex] != null)
+						countThresholds(attributeIndex, group, slots);
+					else
+						countCodes(attributeIndex, group, slots);
+				}
+			});
+		}
+		run(tasks);
+	}
+
+	/**
+	 * Counts the tables of the given nominal or binned attribute of the given
+	 * open nodes in one pass over the instances.
+	 * 
+	 * @param attributeIndex
+	 *            the given index of attribute
+	 * @param group
+	 *            the given open nodes
+	 * @param slots
+	 *            the indexes of the open nodes in the group by nodes, -1 for
+	 *            the other nodes
+	 */
+	private void countCodes(int attributeIndex, List<Open> group, int[] slots) {
+
+		int numCodes = numCodes(attributeIndex);
+		int width = m_NumClasses + 1;
+		IntBuffer classes = m_Trainset.getNominalColumn(m_Trainset
+				.numAttributes() - 1);
+		byte[] bins = m_Bins == null ? null : m_Bins[attributeIndex];
+		IntBuffer codes = bins != null ? null : m_Trainset
+				.getNominalColumn(attributeIndex);
+		int[][] counts = new int[group.size()][];
+		for (int i = 0; i < counts.length; i++) {
+			if (group.get(i).m_Attributes.contains(attributeIndex))
+				counts[i] = new int[numCodes * width];
+		}
+
+		for (int row = 0; row < m_Nodes.length; row++) {
+			int node = m_Nodes[row];
+			if (node == Tree.NONE || slots[node] < 0)
+				continue;
+			int[] table = counts[slots[node]];
+			if (table == null)
+				continue;
+			int v;
+			if (bins != null) {
+				v = bins[row] & 0xFF;
+				if (v == Train.MISSING)
+					continue;
+			} else {
+				v = codes.get(row);
+				if (v < 0)
+					continue;
+			}
+			table[v * width + m_NumClasses]++;
+			int k = classes.get(row);
+			if (k >= 0)
+				table[v * width + k]++;
+		}
+
+		for (int i = 0; i < counts.length; i++) {
+			if (counts[i] == null)
+				continue;
+			Open open = group.get(i);
+			if (bins != null) {
+				int[][] table = Train.countBins(counts[i], m_NumClasses,
+						open.m_NumInstances);
+				open.m_Tables[attributeIndex] = table;
+				open.m_Thresholds[attributeIndex] = table == null ? Double.NaN
+						: m_Cuts[attributeIndex][Train.lastBin(counts[i],
+								m_NumClasses, table[0][m_NumClasses])];
+				continue;
+			}
+			int[][] table = new int[numCodes][];
+			for (int v = 0; v < numCodes; v++) {
+				table[v] = Arrays.copyOfRange(counts[i], v * width, (v + 1)
+						* width);
+			}
+			open.m_Tables[attributeIndex] = table;
+			open.m_Thresholds[attributeIndex] = Double.NaN;
+		}
+	}
+
+	/**
+	 * Counts the tables of the best thresholds of the given numeric attribute
+	 * of the given open nodes. The numbers of instances with a value are
+	 * counted by nodes first, then every threshold of every node is scored in
+	 * one pass over the sorted instances.
+	 * 
+	 * @param attributeIndex
+	 *            the given index of numeric attribute
+	 * @param group
+	 *            the given open nodes
+	 * @param slots
+	 *            the indexes of the open nodes in the group by nodes, -1 for
+	 *            the other nodes
+	 */
+	private void countThresholds(int attributeIndex, List<Open> group,
+			int[] slots) {
+
+		int size = group.size();
+		int width = m_NumClasses + 1;
+		IntBuffer classes = m_Trainset.getNominalColumn(m_Trainset
+				.numAttributes() - 1);
+		DoubleBuffer values = m_Trainset.getNumericColumn(attributeIndex);
+		// the numbers of instances with a value and of those passed by nodes.
+		int[][] totals = new int[size][];
+		int[][] lefts = new int[size][];
+		double[] lasts = new double[size];
+		double[] maxs = new double[size];
+		for (int i = 0; i < size; i++) {
+			if (group.get(i).m_Attributes.contains(attributeIndex)) {
+				totals[i] = new int[width];
+				lefts[i] = new int[width];
+				lasts[i] = Double.NaN;
+				maxs[i] = Double.NEGATIVE_INFINITY;
+			}
+			group.get(i).m_Thresholds[attributeIndex] = Double.NaN;
+		}
+
+		for (int row = 0; row < m_Nodes.length; row++) {
+			int node = m_Nodes[row];
+			if (node == Tree.NONE || slots[node] < 0)
+				continue;
+			int[] total = totals[slots[node]];
+			if (total == null || Double.isNaN(values.get(row)))
+				continue;
+			total[m_NumClasses]++;
+			int k = classes.get(row);
+			if (k >= 0)
+				total[k]++;
+		}
+
+		int[] sorted = m_Sorted[attributeIndex];
+		int[] right = new int[width];
+		for (int i = 0; i < sorted.length; i++) {
+			int row = sorted[i];
+			double value = values.get(row);
+			// instances without value are at the end.
+			if (Double.isNaN(value))
+				break;
+			int node = m_Nodes[row];
+			if (node == Tree.NONE || slots[node] < 0)
+				continue;
+			int slot = slots[node];
+			int[] left = lefts[slot];
+			if (left == null)
+				continue;
+			if (lasts[slot] < value) {
+				for (int k = 0; k < width; k++) {
+					right[k] = totals[slot][k] - left[k];
+				}
+				double g = -(Train.information(left, m_NumClasses,
+						left[m_NumClasses]) + Train.information(right,
+						m_NumClasses, right[m_NumClasses]));
+				Open open = group.get(slot);
+				if (g > maxs[slot] + Train.TIE * open.m_NumInstances) {
+					maxs[slot] = g;
+					open.m_Tables[attributeIndex] = new int[][] {
+							left.clone(), right.clone() };
+					open.m_Thresholds[attributeIndex] = lasts[slot];
+				}
+			}
+			int k = classes.get(row);
+			if (k >= 0)
+				left[k]++;
+			left[m_NumClasses]++;
+			lasts[slot] = value;
+		}
+	}
+
+	/**
+	 * Splits the given open node by the attribute with the max gain, the
+	 * first attribute wins a tie, and adds its children to the given list.
+	 * The node is left without class if no attribute has a table.
+	 * 
+	 * @param open
+	 *            the given open node
+	 * @param children
+	 *            the children of the open nodes
+	 */
+	private void split(Open open, List<Open> children) {
+
+		int c = open.m_NumInstances;
+		double e = Train.information(open.m_ClassCounts, m_NumClasses, c) / c;
+		double max = -1;
+		int attributeIndex = -1;
+		int[][] table = null;
+		for (int i : open.m_Attributes) {
+			if (open.m_Tables[i] == null)
+				continue;
+			double g = Train.gain(e, open.m_Tables[i], m_NumClasses, c);
+			if (g > max + Train.TIE) {
+				max = g;
+				attributeIndex = i;
+				table = open.m_Tables[i];
+			}
+		}
+		double threshold = attributeIndex < 0 ? Double.NaN
+				: open.m_Thresholds[attributeIndex];
+		open.m_Tables = null;
+		open.m_Thresholds = null;
+		if (attributeIndex < 0)
+			return;
+
+		boolean numeric = m_Trainset.getAttributes().get(attributeIndex)
+				.isNumeric();
+		int first = numeric ? m_Tree.split(open.m_Node, attributeIndex,
+				threshold) : m_Tree.split(open.m_Node, attributeIndex,
+				table.length);
+		List<Integer> unused = new ArrayList<Integer>(open.m_Attributes);
+		if (!numeric)
+			unused.remove((Object) attributeIndex);
+		for (int code = 0; code < table.length; code++) {
+			children.add(new Open(first + code, unused, table[code],
+					table[code][m_NumClasses]));
+		}
+	}
+
+	/**
+	 * Returns the result of this level-wise train.
+	 * 
+	 * @return the result of this level-wise train
+	 */
+	public String toString() {
+
+		return getTrain().toString();
+	}
+
+	/**
+	 * A node of the frontier, which is open until it is split.
+	 */
+	private static class Open {
+
+		/** the index of the node. */
+		private int m_Node;
+
+		/** the unused attributes' index at the node. */
+		private List<Integer> m_Attributes;
+
+		/** the numbers of the instances by class codes. */
+		private int[] m_ClassCounts;
+
+		/** the number of the instances. */
+		private int m_NumInstances;
+
+		/**
+		 * the numbers of the instances by value codes and class codes by
+		 * attributes, null for an attribute without table.
+		 */
+		private int[][][] m_Tables;
+
+		/** the thresholds of the tables by attributes, NaN for none. */
+		private double[] m_Thresholds;
+
+		/**
+		 * Creates an open node.
+		 * 
+		 * @param node
+		 *            the index of the node
+		 * @param attributes
+		 *            the unused attributes' index at the node
+		 * @param classCounts
+		 *            the numbers of the instances by class codes
+		 * @param numInstances
+		 *            the number of the instances
+		 */
+		Open(int node, List<Integer> attributes, int[] classCounts,
+				int numInstances) {
+
+			this.m_Node = node;
+			this.m_Attributes = attributes;
+			this.m_ClassCounts = classCounts;
+			this.m_NumInstances = numInstances;
+		}
+	}
+
+	/**
+	 * Tests this level-wise train with the given train set, and compares it
+	 * with a Train.
+	 * 
+	 * @param args
+	 *            must contain the name of a train set file, the number of
+	 *            threads and bins are optional.
+	 */
+	public static void main(String[] args) {
+
+		if (args.length == 0) {
+			System.out.println("\nUsage: " + LevelWise.class.getName()
+					+ " <dataset> [<threads>] [<bins>]\n");
+			return;
+		}
+
+		try {
+			int parallelism = args.length > 1 ? Integer.parseInt(args[1]) : 1;
+			int numBins = args.length > 2 ? Integer.parseInt(args[2]) : 0;
+			DataSet trainset = Reader.readDataSet(new File(args[0]),
+					parallelism);
+			long start = System.nanoTime();
+			LevelWise levelWise = new LevelWise(trainset, parallelism, numBins);
+			long time = System.nanoTime() - start;
+			start = System.nanoTime();
+			Train train = new Train(trainset, parallelism, numBins);
+			long recursive = System.nanoTime() - start;
+			System.out.println(levelWise.getTree().numNodes() + " nodes, "
+					+ levelWise.numLevels() + " levels, "
+					+ levelWise.numPasses() + " passes in " + time / 1000000
+					+ " ms, recursive train in " + recursive / 1000000
+					+ " ms, "
+					+ (levelWise.toString().equals(train.toString()) ? "same"
+							: "other") + " tree");
+		} catch (Exception e) {
+			System.out.println(e);
+		}
+	}
+}
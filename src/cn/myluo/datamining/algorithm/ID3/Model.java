@@ -0,0 +1,387 @@
+/*
+ *    Model.java
+ *    Copyright (C) 2016 NanChang University, JiangXi, China
+ *
+ */
+
+package cn.myluo.datamining.algorithm.ID3;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+import cn.myluo.datamining.data.Attribute;
+import cn.myluo.datamining.util.BinaryReader;
+import cn.myluo.datamining.util.BinaryWriter;
+
+/**
+ * The trained model of ID3 algorithm.
+ * 
+ * A model is the decision tree with the attributes of the train set, whose
+ * values decode the value and class codes of the tree. It can be saved into a
+ * file and loaded without the train set.
+ * 
+ * The file starts with the magic number, the version and the length of the
+ * header. The header holds the attributes with their values and numbers, and
+ * the number of nodes. The nodes follow the header at a multiple of 8 bytes,
+ * as little-endian columns of their attributes, first children, numbers of
+ * children and class codes, and a column of the thresholds of numeric
+ * attributes as doubles. The parents and value codes of nodes are found from
+ * their children when the model is loaded. Files of version 1 have no
+ * thresholds.
+ * 
+ * @author Luo Mingyuan
+ * @version 1612
+ */
+public class Model {
+
+	/** The file extension of model files. */
+	public static final String FILE_EXTENSION = ".dmm";
+
+	/** The magic number of model files, "DMM1" in the file. */
+	private static final int MAGIC = 0x314D4D44;
+
+	/** The version of the file format. */
+	private static final int VERSION = 2;
+
+	/** The number of int columns of nodes. */
+	private static final int NUM_COLUMNS = 4;
+
+	/** The size of the buffer the file is written through. */
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	/** The attributes of the train set, the last is the class attribute. */
+	private List<Attribute> m_Attributes;
+
+	/** The decision tree. */
+	private Tree m_Tree;
+
+	/**
+	 * Creates a model with the given attributes and tree.
+	 * 
+	 * @param attributes
+	 *            the attributes of the train set
+	 * @param tree
+	 *            the decision tree
+	 */
+	public Model(List<Attribute> attributes, Tree tree) {
+
+		this.m_Attributes = attributes;
+		this.m_Tree = tree;
+	}
+
+	/**
+	 * Gets the attributes.
+	 * 
+	 * @return the attributes of the train set
+	 */
+	public List<Attribute> getAttributes() {
+
+		return m_Attributes;
+	}
+
+	/**
+	 * Gets the decision tree.
+	 * 
+	 * @return the decision tree
+	 */
+	public Tree getTree() {
+
+		return m_Tree;
+	}
+
+	/**
+	 * Gets the class attribute.
+	 * 
+	 * @return the class attribute
+	 */
+	public Attribute getClassAttribute() {
+
+		return m_Attributes.get(m_Attributes.size() - 1);
+	}
+
+	/**
+	 * Checks if the given file is a model file by its name.
+	 * 
+	 * @param file
+	 *            the given file
+	 * @return true if the file name ends with FILE_EXTENSION, false otherwise.
+	 */
+	public static boolean accept(File file) {
+
+		return file.getName().toLowerCase().endsWith(FILE_EXTENSION);
+	}
+
+	/**
+	 * Saves this model into the given file. The header and then each column
+	 * of the nodes are written through a buffer of BUFFER_SIZE bytes, so the
+	 * tree is not copied as a whole.
+	 * 
+	 * @param file
+	 *            the given file
+	 * @throws IOException
+	 *             if the file can not be written
+	 */
+	public void save(File file) throws IOException {
+
+		byte[] header = header();
+		RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		try {
+			raf.setLength(0);
+			FileChannel channel = raf.getChannel();
+			ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(
+					ByteOrder.LITTLE_ENDIAN);
+			buffer.putInt(MAGIC);
+			buffer.putInt(VERSION);
+			buffer.putInt(header.length);
+			for (int i = 0; i < header.length;) {
+				int n = Math.min(buffer.remaining(), header.length - i);
+				buffer.put(header, i, n);
+				i += n;
+				if (!buffer.hasRemaining())
+					flush(channel, buffer);
+			}
+			long position = 12L + header.length;
+			for (long i = position; i < BinaryReader.align(position); i++) {
+				if (!buffer.hasRemaining())
+					flush(channel, buffer);
+				buffer.put((byte) 0);
+			}
+
+			int numNodes = m_Tree.numNodes();
+			for (int column = 0; column < NUM_COLUMNS; column++) {
+				for (int i = 0; i < numNodes; i++) {
+					if (buffer.remaining() < 4)
+						flush(channel, buffer);
+					buffer.putInt(getColumn(column, i));
+				}
+			}
+			for (int i = 0; i < numNodes; i++) {
+				if (buffer.remaining() < 8)
+					flush(channel, buffer);
+				buffer.putDouble(m_Tree.getThreshold(i));
+			}
+			flush(channel, buffer);
+		} finally {
+			raf.close();
+		}
+	}
+
+	/**
+	 * Gets the value of the given int column of the given node.
+	 * 
+	 * @param column
+	 *            the given column, 0 for attributes, 1 for first children, 2
+	 *            for numbers of children and 3 for class codes
+	 * @param node
+	 *            the given node
+	 * @return the value of the column
+	 */
+	private int getColumn(int column, int node) {
+
+		switch (column) {
+		case 0:
+			return m_Tree.getAttribute(node);
+		case 1:
+			return m_Tree.getFirstChild(node);
+		case 2:
+			return m_Tree.numChildren(node);
+		default:
+			return m_Tree.getClassCode(node);
+		}
+	}
+
+	/**
+	 * Writes the bytes of the given buffer into the given channel, and clears
+	 * the buffer.
+	 * 
+	 * @param channel
+	 *            the given channel
+	 * @param buffer
+	 *            the given buffer
+	 * @throws IOException
+	 *             if the channel can not be written
+	 */
+	private static void flush(FileChannel channel, ByteBuffer buffer)
+			throws IOException {
+
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+
+	/**
+	 * Creates the header of the model.
+	 * 
+	 * @return the header as bytes
+	 * @throws IOException
+	 *             never for an in-memory stream
+	 */
+	private byte[] header() throws IOException {
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		out.writeInt(m_Attributes.size());
+		for (Attribute a : m_Attributes) {
+			BinaryWriter.writeString(out, a.getName());
+			BinaryWriter.writeString(out, a.getType());
+			out.writeInt(a.numValues());
+			for (int i = 0; i < a.numValues(); i++) {
+				BinaryWriter.writeString(out, a.getValue(i));
+				out.writeInt(a.getCount(i));
+			}
+		}
+		out.writeInt(m_Tree.numNodes());
+		out.flush();
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * Loads a model from the given file. The header is parsed and the nodes
+	 * are mapped into memory and copied into the tree in bulk.
+	 * 
+	 * @param file
+	 *            the given file
+	 * @return the model
+	 * @throws IOException
+	 *             if the file can not be read or is not a model file
+	 */
+	public static Model load(File file) throws IOException {
+
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			FileChannel channel = raf.getChannel();
+			long size = channel.size();
+			if (size < 12)
+				throw new IOException("Not a model file: " + file);
+			ByteBuffer prefix = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+					12).order(ByteOrder.LITTLE_ENDIAN);
+			if (prefix.getInt(0) != MAGIC)
+				throw new IOException("Not a model file: " + file);
+			int version = prefix.getInt(4);
+			if (version < 1 || version > VERSION)
+				throw new IOException("Unsupported model version: " + version);
+			int length = prefix.getInt(8);
+			if (length < 0 || 12L + length > size)
+				throw new IOException("Broken model header: " + file);
+			byte[] header = new byte[length];
+			channel.map(FileChannel.MapMode.READ_ONLY, 12, length).get(header);
+
+			DataInputStream in = new DataInputStream(new ByteArrayInputStream(
+					header));
+			int numAttributes = in.readInt();
+			List<Attribute> attributes = new ArrayList<Attribute>();
+			for (int i = 0; i < numAttributes; i++) {
+				Attribute a = new Attribute(BinaryReader.readString(in),
+						BinaryReader.readString(in));
+				int numValues = in.readInt();
+				for (int j = 0; j < numValues; j++) {
+					a.append(BinaryReader.readString(in), in.readInt());
+				}
+				attributes.add(a);
+			}
+			int numNodes = in.readInt();
+
+			long position = BinaryReader.align(12L + length);
+			int nodeSize = 4 * NUM_COLUMNS + (version > 1 ? 8 : 0);
+			if (numNodes < 1 || position + (long) nodeSize * numNodes > size)
+				throw new IOException("Broken model file: " + file);
+			// each column is mapped on its own, in long offsets.
+			int[][] columns = new int[NUM_COLUMNS][numNodes];
+			for (int i = 0; i < NUM_COLUMNS; i++) {
+				IntBuffer column = channel.map(FileChannel.MapMode.READ_ONLY,
+						position + 4L * numNodes * i, 4L * numNodes)
+						.order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+				column.get(columns[i]);
+			}
+			double[] thresholds = null;
+			if (version > 1) {
+				DoubleBuffer numbers = channel.map(
+						FileChannel.MapMode.READ_ONLY,
+						position + 4L * NUM_COLUMNS * numNodes, 8L * numNodes)
+						.order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+				thresholds = new double[numNodes];
+				numbers.get(thresholds);
+			}
+			check(attributes, columns, thresholds, file);
+			try {
+				return new Model(attributes, new Tree(columns[0], columns[1],
+						columns[2], columns[3], thresholds));
+			} catch (IllegalArgumentException e) {
+				throw new IOException("Broken model file: " + file + ", "
+						+ e.getMessage());
+			}
+		} finally {
+			// the mapped nodes are copied, nothing is used after closing.
+			raf.close();
+		}
+	}
+
+	/**
+	 * Checks that the attributes and classes of the given nodes are in the
+	 * given attributes, and that only numeric attributes have thresholds.
+	 * 
+	 * @param attributes
+	 *            the given attributes
+	 * @param columns
+	 *            the attributes, first children, numbers of children and
+	 *            classes by nodes
+	 * @param thresholds
+	 *            the thresholds by nodes, null if there is none
+	 * @param file
+	 *            the model file
+	 * @throws IOException
+	 *             if a node has an unknown attribute or class
+	 */
+	private static void check(List<Attribute> attributes, int[][] columns,
+			double[] thresholds, File file) throws IOException {
+
+		if (attributes.isEmpty())
+			throw new IOException("Broken model file: " + file);
+		int numClasses = attributes.get(attributes.size() - 1).numValues();
+		for (int i = 0; i < columns[0].length; i++) {
+			int attribute = columns[0][i];
+			int c = columns[3][i];
+			boolean split = attribute != Tree.NONE;
+			boolean numeric = thresholds != null
+					&& !Double.isNaN(thresholds[i]);
+			if (attribute < Tree.NONE || attribute >= attributes.size() - 1
+					|| c < Tree.NONE || c >= numClasses
+					|| (split && c != Tree.NONE)
+					|| (!split && (columns[2][i] != 0 || numeric)))
+				throw new IOException("Broken model file: " + file
+						+ ", bad node " + i);
+			if (!split)
+				continue;
+			Attribute a = attributes.get(attribute);
+			if (numeric ? !a.isNumeric() || columns[2][i] != 2
+					: a.isNumeric() || columns[2][i] != a.numValues())
+				throw new IOException("Broken model file: " + file
+						+ ", bad node " + i);
+		}
+	}
+
+	/**
+	 * Returns a description of this model.
+	 * 
+	 * @return a description of this model as a string
+	 */
+	public String toString() {
+
+		return "Model {" + m_Attributes.size() + " attributes, " + m_Tree
+				+ "}";
+	}
+}
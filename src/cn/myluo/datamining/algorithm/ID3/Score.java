@@ -0,0 +1,490 @@
+/*
+ *    Score.java
+ *    Copyright (C) 2016 NanChang University, JiangXi, China
+ *
+ */
+
+package cn.myluo.datamining.algorithm.ID3;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import cn.myluo.datamining.data.Attribute;
+import cn.myluo.datamining.util.Reader;
+
+/**
+ * Scores a TXT data set file with a saved ID3 model.
+ * 
+ * The instances are streamed from the file in batches, so that files larger
+ * than memory can be scored. The value codes of a batch are translated to the
+ * codes of the model on the reading thread, the values of numeric attributes
+ * are copied as they are, and the batch is classified on a
+ * fork-join pool. The number of batches in flight is bounded, a full pipeline
+ * waits for the oldest batch, whose classes are then written in the order of
+ * the file. Batches are reused, no object is created for an instance.
+ * 
+ * The output has a line with the class value for each instance, "?" if the
+ * tree has no class for it.
+ * 
+ * @author Luo Mingyuan
+ * @version 1612
+ */
+public class Score {
+
+	/** The number of instances in a batch. */
+	private static final int BATCH_SIZE = 1 << 14;
+
+	/** The number of batches in flight for each thread. */
+	private static final int BATCHES_PER_THREAD = 4;
+
+	/** The size of the output buffer. */
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	/** The output of an instance which has no class. */
+	private static final String UNKNOWN = "?";
+
+	/** The model. */
+	private Model m_Model;
+
+	/** The number of threads. */
+	private int m_Parallelism;
+
+	/** The translations from the codes of the input to the model by attributes. */
+	private int[][] m_Translations;
+
+	/** The numbers of translated codes by attributes. */
+	private int[] m_NumTranslations;
+
+	/** The number of scored instances. */
+	private long m_NumInstances;
+
+	/** The number of error instances. */
+	private int m_NumErrorInstances;
+
+	/** The time of scoring in nanoseconds. */
+	private long m_Time;
+
+	/** The latencies of batches in nanoseconds. */
+	private long[] m_Latencies;
+
+	/** The number of batches. */
+	private int m_NumBatches;
+
+	/**
+	 * Creates a scorer with the given model and number of threads.
+	 * 
+	 * @param model
+	 *            the given model
+	 * @param parallelism
+	 *            the number of threads
+	 */
+	public Score(Model model, int parallelism) {
+
+		this.m_Model = model;
+		this.m_Parallelism = Math.max(1, parallelism);
+	}
+
+	/**
+	 * Scores the given input file into the given output file.
+	 * 
+	 * @param input
+	 *            the given TXT data set file
+	 * @param output
+	 *            the given output file
+	 * @throws IOException
+	 *             if the input file can not be read or the output file can
+	 *             not be written
+	 */
+	public void score(File input, File output) throws IOException {
+
+		List<Attribute> attributes = m_Model.getAttributes();
+		m_Translations = new int[attributes.size()][0];
+		m_NumTranslations = new int[attributes.size()];
+		m_NumInstances = 0;
+		m_Latencies = new long[64];
+		m_NumBatches = 0;
+
+		long start = System.nanoTime();
+		Reader reader = Reader.open(input);
+		if (reader.getError() != null)
+			throw reader.getError();
+		int[] indexes = getIndexes(reader);
+		byte[][] lines = getLines(Charset.defaultCharset());
+		FileOutputStream out = new FileOutputStream(output);
+		ForkJoinPool pool = new ForkJoinPool(m_Parallelism);
+		try {
+			FileChannel channel = out.getChannel();
+			ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+			ArrayDeque<Batch> free = new ArrayDeque<Batch>();
+			ArrayDeque<Batch> inFlight = new ArrayDeque<Batch>();
+			for (int i = 0; i < m_Parallelism * BATCHES_PER_THREAD; i++) {
+				free.add(new Batch(m_Model.getTree(), attributes));
+			}
+
+			boolean end = false;
+			while (!end) {
+				Batch batch = free.isEmpty() ? finish(inFlight.poll(),
+						channel, buffer, lines) : free.poll();
+				batch.m_Size = 0;
+				while (batch.m_Size < BATCH_SIZE && !end) {
+					try {
+						end = !reader.next();
+					} catch (UncheckedIOException e) {
+						throw e.getCause();
+					}
+					if (!end)
+						read(reader, indexes, batch);
+				}
+				if (batch.m_Size == 0)
+					break;
+				batch.m_Start = System.nanoTime();
+				batch.m_Task = pool.submit(batch);
+				inFlight.add(batch);
+				m_NumInstances += batch.m_Size;
+			}
+			while (!inFlight.isEmpty()) {
+				finish(inFlight.poll(), channel, buffer, lines);
+			}
+			flush(channel, buffer);
+		} finally {
+			pool.shutdown();
+			out.close();
+			reader.close();
+		}
+		m_NumErrorInstances = reader.numErrorInstances();
+		m_Time = System.nanoTime() - start;
+	}
+
+	/**
+	 * Gets the indexes of the attributes of the model in the input.
+	 * 
+	 * @param reader
+	 *            the reader of the input
+	 * @return the indexes of the input attributes by the attributes of the
+	 *         model, -1 if the input has no attribute with its name and type
+	 */
+	private int[] getIndexes(Reader reader) {
+
+		List<Attribute> attributes = m_Model.getAttributes();
+		int[] indexes = new int[attributes.size()];
+		for (int i = 0; i < indexes.length; i++) {
+			int index = reader.getDataSet().indexOfAttribute(
+					attributes.get(i).getName());
+			indexes[i] = index >= 0
+					&& reader.getDataSet().getAttributes().get(index)
+							.isNumeric() == attributes.get(i).isNumeric() ? index
+					: -1;
+		}
+		return indexes;
+	}
+
+	/**
+	 * Gets the output lines of the class codes.
+	 * 
+	 * @param charset
+	 *            the charset of the output
+	 * @return the lines by class codes, the last is the line of NONE
+	 */
+	private byte[][] getLines(Charset charset) {
+
+		Attribute c = m_Model.getClassAttribute();
+		byte[][] lines = new byte[c.numValues() + 1][];
+		for (int i = 0; i <= c.numValues(); i++) {
+			String value = i < c.numValues() ? c.getValue(i) : UNKNOWN;
+			lines[i] = (value + "\n").getBytes(charset);
+		}
+		return lines;
+	}
+
+	/**
+	 * Reads the current instance of the reader into the given batch.
+	 * 
+	 * @param reader
+	 *            the reader of the input
+	 * @param indexes
+	 *            the indexes of the input attributes by the attributes of the
+	 *            model
+	 * @param batch
+	 *            the given batch
+	 */
+	private void read(Reader reader, int[] indexes, Batch batch) {
+
+		for (int i = 0; i < indexes.length; i++) {
+			if (batch.m_Values[i] != null) {
+				batch.m_Codes[i][batch.m_Size] = -1;
+				batch.m_Values[i][batch.m_Size] = indexes[i] < 0 ? Double.NaN
+						: reader.getValue(indexes[i]);
+				continue;
+			}
+			batch.m_Codes[i][batch.m_Size] = indexes[i] < 0 ? -1 : translate(
+					reader, indexes[i], i, reader.getCode(indexes[i]));
+		}
+		batch.m_Size++;
+	}
+
+	/**
+	 * Translates the given code of the input to the code of the model. The
+	 * translations grow with the values of the input.
+	 * 
+	 * @param reader
+	 *            the reader of the input
+	 * @param index
+	 *            the index of the input attribute
+	 * @param attribute
+	 *            the index of the model attribute
+	 * @param code
+	 *            the given code
+	 * @return the code of the model, -1 if the model has not the value
+	 */
+	private int translate(Reader reader, int index, int attribute, int code) {
+
+		if (code < m_NumTranslations[attribute])
+			return m_Translations[attribute][code];
+
+		Attribute a = reader.getDataSet().getAttributes().get(index);
+		Attribute b = m_Model.getAttributes().get(attribute);
+		int n = a.numValues();
+		if (n > m_Translations[attribute].length)
+			m_Translations[attribute] = Arrays.copyOf(
+					m_Translations[attribute],
+					Math.max(n, m_Translations[attribute].length * 2));
+		for (int i = m_NumTranslations[attribute]; i < n; i++) {
+			m_Translations[attribute][i] = b.getCode(a.getValue(i));
+		}
+		m_NumTranslations[attribute] = n;
+		return m_Translations[attribute][code];
+	}
+
+	/**
+	 * Waits for the given batch and writes its classes.
+	 * 
+	 * @param batch
+	 *            the given batch
+	 * @param channel
+	 *            the output channel
+	 * @param buffer
+	 *            the output buffer
+	 * @param lines
+	 *            the output lines by class codes
+	 * @return the batch which can be reused
+	 * @throws IOException
+	 *             if the classes can not be written
+	 */
+	private Batch finish(Batch batch, FileChannel channel, ByteBuffer buffer,
+			byte[][] lines) throws IOException {
+
+		batch.m_Task.join();
+		if (m_NumBatches == m_Latencies.length)
+			m_Latencies = Arrays.copyOf(m_Latencies, m_NumBatches * 2);
+		m_Latencies[m_NumBatches++] = batch.m_End - batch.m_Start;
+
+		int none = lines.length - 1;
+		for (int i = 0; i < batch.m_Size; i++) {
+			int c = batch.m_Classes[i];
+			byte[] line = lines[c < 0 || c > none ? none : c];
+			if (buffer.remaining() < line.length)
+				flush(channel, buffer);
+			buffer.put(line);
+		}
+		return batch;
+	}
+
+	/**
+	 * Writes the content of the given buffer into the given channel.
+	 * 
+	 * @param channel
+	 *            the given channel
+	 * @param buffer
+	 *            the given buffer
+	 * @throws IOException
+	 *             if the buffer can not be written
+	 */
+	private void flush(FileChannel channel, ByteBuffer buffer)
+			throws IOException {
+
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+
+	/**
+	 * Gets the number of scored instances.
+	 * 
+	 * @return the number of scored instances
+	 */
+	public long numInstances() {
+
+		return m_NumInstances;
+	}
+
+	/**
+	 * Gets the number of error instances which are skipped.
+	 * 
+	 * @return the number of error instances
+	 */
+	public int numErrorInstances() {
+
+		return m_NumErrorInstances;
+	}
+
+	/**
+	 * Gets the throughput of the last scoring.
+	 * 
+	 * @return the number of instances per second
+	 */
+	public double getThroughput() {
+
+		return m_Time == 0 ? 0.0 : m_NumInstances * 1e9 / m_Time;
+	}
+
+	/**
+	 * Gets the given percentile of the latencies of batches, from the start to
+	 * the end of their classifying.
+	 * 
+	 * @param percentile
+	 *            the given percentile between 0 and 100
+	 * @return the latency in milliseconds
+	 */
+	public double getLatency(double percentile) {
+
+		if (m_NumBatches == 0)
+			return 0.0;
+		long[] latencies = Arrays.copyOf(m_Latencies, m_NumBatches);
+		Arrays.sort(latencies);
+		int index = (int) Math.ceil(percentile / 100 * m_NumBatches) - 1;
+		return latencies[Math.max(0, Math.min(index, m_NumBatches - 1))] / 1e6;
+	}
+
+	/**
+	 * A batch of instances which is classified by a task.
+	 */
+	private static class Batch implements Runnable {
+
+		/** The decision tree. */
+		private Tree m_Tree;
+
+		/** The value codes of the model by attributes. */
+		private int[][] m_Codes;
+
+		/** The columns of the codes. */
+		private IntBuffer[] m_Columns;
+
+		/** The identity maps of the codes by attributes. */
+		private int[][] m_Maps;
+
+		/** The values by numeric attributes, null for the others. */
+		private double[][] m_Values;
+
+		/**
+		 * The columns of the values, null if the tree has no numeric
+		 * attribute.
+		 */
+		private DoubleBuffer[] m_Numbers;
+
+		/** The class codes by instances. */
+		private int[] m_Classes;
+
+		/** The number of instances. */
+		private int m_Size;
+
+		/** The time when the batch is submitted. */
+		private long m_Start;
+
+		/** The time when the batch is classified. */
+		private long m_End;
+
+		/** The task of the batch. */
+		private ForkJoinTask<?> m_Task;
+
+		/**
+		 * Creates a batch with the given tree and attributes.
+		 * 
+		 * @param tree
+		 *            the given tree
+		 * @param attributes
+		 *            the attributes of the model
+		 */
+		Batch(Tree tree, List<Attribute> attributes) {
+
+			this.m_Tree = tree;
+			m_Codes = new int[attributes.size()][BATCH_SIZE];
+			m_Columns = new IntBuffer[attributes.size()];
+			m_Maps = new int[attributes.size()][];
+			m_Values = new double[attributes.size()][];
+			if (tree.hasThresholds())
+				m_Numbers = new DoubleBuffer[attributes.size()];
+			for (int i = 0; i < m_Codes.length; i++) {
+				if (attributes.get(i).isNumeric()) {
+					m_Values[i] = new double[BATCH_SIZE];
+					if (m_Numbers != null)
+						m_Numbers[i] = DoubleBuffer.wrap(m_Values[i]);
+				}
+				m_Columns[i] = IntBuffer.wrap(m_Codes[i]);
+				m_Maps[i] = new int[attributes.get(i).numValues()];
+				for (int j = 0; j < m_Maps[i].length; j++) {
+					m_Maps[i][j] = j;
+				}
+			}
+			m_Classes = new int[BATCH_SIZE];
+		}
+
+		public void run() {
+
+			if (m_Numbers != null) {
+				for (int i = 0; i < m_Size; i++) {
+					m_Classes[i] = m_Tree.classify(m_Columns, m_Maps,
+							m_Numbers, i);
+				}
+			} else {
+				for (int i = 0; i < m_Size; i++) {
+					m_Classes[i] = m_Tree.classify(m_Columns, m_Maps, i);
+				}
+			}
+			m_End = System.nanoTime();
+		}
+	}
+
+	/**
+	 * Scores a TXT data set file with a saved model.
+	 * 
+	 * @param args
+	 *            must contain the name of a model file, an input file and an
+	 *            output file, and may contain the number of threads.
+	 */
+	public static void main(String[] args) {
+
+		if (args.length < 3) {
+			System.out.println("\nUsage: " + Score.class.getName()
+					+ " <model> <dataset> <output> [<threads>]\n");
+			return;
+		}
+
+		try {
+			int parallelism = args.length > 3 ? Integer.parseInt(args[3])
+					: Runtime.getRuntime().availableProcessors();
+			Score score = new Score(Model.load(new File(args[0])), parallelism);
+			score.score(new File(args[1]), new File(args[2]));
+			System.out.println(score.numInstances() + " instances scored, "
+					+ score.numErrorInstances()
+					+ " error instances skipped, "
+					+ (long) score.getThroughput() + " instances/s, "
+					+ "p99 batch latency: " + score.getLatency(99) + " ms");
+		} catch (Exception e) {
+			System.out.println(e);
+		}
+	}
+}
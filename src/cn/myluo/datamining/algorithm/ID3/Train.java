@@ -6,20 +6,57 @@
 
 package cn.myluo.datamining.algorithm.ID3;
 
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 import cn.myluo.datamining.data.Attribute;
+import cn.myluo.datamining.data.Bitmap;
 import cn.myluo.datamining.data.DataSet;
 import cn.myluo.datamining.data.Instance;
+import cn.myluo.datamining.data.QuantileSketch;
 
 /**
  * Class for train with ID3 algorithm.
  * 
+ * The instances of each node are kept as a range of the row indexes, and the
+ * gain of each attribute is computed from the numbers of instances by its
+ * values and classes counted in one pass over the range. Children take their
+ * ranges by a stable partition of the range of the parent.
+ * 
+ * A numeric attribute splits a node in two at a threshold, and can split the
+ * nodes below again. The instances of each numeric attribute are sorted by
+ * its values once, and the sorted indexes are partitioned with m_Rows, so the
+ * instances of a node are also a range of each sorted array and its best
+ * threshold is found in one pass over the range.
+ * 
+ * For large train sets, the values of numeric attributes can be split into
+ * bins instead, by the quantiles of a QuantileSketch, and kept as byte codes
+ * of the bins. The best threshold of a node is then found from the numbers of
+ * its instances by bins and classes. These histograms are counted for all
+ * children of a split but the largest one, whose histograms are those of the
+ * parent minus those of the other children. If an attribute has no more
+ * distinct values than bins, each value has its own bin and the thresholds
+ * are exact.
+ * 
+ * With a ForkJoinPool, the attributes of a large node are scored at the same
+ * time. The best attribute is still the first one with the max gain, so the
+ * tree is the same as that of a sequential train. The subtrees of the
+ * children of a large node are also built as parallel tasks and grafted onto
+ * the tree in the order of the children.
+ * 
+ * The trained tree classifies instances by their values, or all instances of
+ * a data set by their value codes in parallel blocks.
+ * 
  * @author Luo Mingyuan
  * @version 1612
  */
@@ -29,16 +66,103 @@ public class Train {
 	private DataSet m_Trainset;
 
 	/** the decision tree. */
-	private List<Node> m_Tree;
+	private Tree m_Tree;
+
+	/** the classifier of the tree, the tree itself until it is compiled. */
+	private Classifier m_Classifier;
+
+	/** the indexes of instances, grouped by nodes. */
+	private int[] m_Rows;
+
+	/** the buffer for partitioning m_Rows. */
+	private int[] m_Buffer;
+
+	/**
+	 * the indexes of instances sorted by the values of numeric attributes and
+	 * grouped by nodes as m_Rows, null for the other attributes.
+	 */
+	private int[][] m_Sorted;
+
+	/** the child codes of instances in the last partition of their node. */
+	private int[] m_Codes;
+
+	/**
+	 * the bin codes of instances as unsigned bytes by numeric attributes,
+	 * MISSING for instances without value, null for the other attributes or
+	 * exact thresholds.
+	 */
+	private byte[][] m_Bins;
+
+	/**
+	 * the upper bounds of the bins but the last one by numeric attributes,
+	 * null for the other attributes or exact thresholds.
+	 */
+	private double[][] m_Cuts;
+
+	/** the value codes of attributes in the order of their value maps. */
+	private int[][] m_Orders;
+
+	/** the pool to score attributes, null for a sequential train. */
+	private ForkJoinPool m_Pool;
+
+	/** the random numbers to sample attributes, null to score all of them. */
+	private Random m_Random;
+
+	/** the number of attributes sampled at each node. */
+	private int m_NumSampled;
+
+	/**
+	 * whether an instance repeats in m_Rows, then the nodes are not counted
+	 * by bitmaps which hold an instance once.
+	 */
+	private boolean m_Repeated;
+
+	/**
+	 * the last train instance, whose class an empty leaf takes, the last of
+	 * the sample for a tree of a forest.
+	 */
+	private int m_LastInstance;
+
+	/**
+	 * the minimum number of instances times attributes of a node to score
+	 * attributes in parallel.
+	 */
+	private static final int MIN_PARALLEL_WORK = 1 << 14;
+
+	/** the number of instances classified by a task. */
+	private static final int BLOCK_SIZE = 1 << 16;
+
+	/** the max number of bins of numeric attributes. */
+	public static final int MAX_NUM_BINS = 255;
+
+	/** the bin code of instances without value. */
+	static final int MISSING = 0xFF;
+
+	/** the number of values of a buffer of a sketch by bins. */
+	private static final int SKETCH_SIZE = 8;
+
+	/** the natural logarithm of 2. */
+	private static final double LN2 = Math.log(2.0);
+
+	/** the difference under which two gains are taken as a tie. */
+	static final double TIE = 1e-9;
+
+	/** n * log2(n) by counts n which are less than the length. */
+	private static final double[] N_LOG_N = new double[1 << 12];
+
+	static {
+		for (int n = 1; n < N_LOG_N.length; n++) {
+			N_LOG_N[n] = n * Math.log(n) / LN2;
+		}
+	}
 
 	/**
 	 * Creates a Train class.
 	 */
 	private Train() {
 
-		m_Tree = new ArrayList<Node>();
 		// Adds root node
-		m_Tree.add(new Node());
+		m_Tree = new Tree();
 	}
 
 	/**
@@ -49,10 +173,189 @@ public class Train {
 	 */
 	public Train(DataSet trainset) {
 
+		this(trainset, (ForkJoinPool) null);
+	}
+
+	/**
+	 * Creates a Train class with the given train set, the attributes are
+	 * scored by the given number of threads.
+	 * 
+	 * @param trainset
+	 *            the given train set
+	 * @param parallelism
+	 *            the number of threads, the train is sequential if it is not
+	 *            greater than 1
+	 */
+	public Train(DataSet trainset, int parallelism) {
+
+		this(trainset, parallelism, 0);
+	}
+
+	/**
+	 * Creates a Train class with the given train set, the attributes are
+	 * scored by the given number of threads, and numeric attributes are split
+	 * into the given number of bins.
+	 * 
+	 * @param trainset
+	 *            the given train set
+	 * @param parallelism
+	 *            the number of threads, the train is sequential if it is not
+	 *            greater than 1
+	 * @param numBins
+	 *            the number of bins, from 2 to MAX_NUM_BINS, 0 for exact
+	 *            thresholds
+	 */
+	public Train(DataSet trainset, int parallelism, int numBins) {
+
+		this(trainset, parallelism > 1 ? new ForkJoinPool(parallelism) : null,
+				numBins);
+		if (m_Pool != null)
+			m_Pool.shutdown();
+		m_Pool = null;
+	}
+
+	/**
+	 * Creates a Train class with the given train set, the attributes are
+	 * scored in the given pool.
+	 * 
+	 * @param trainset
+	 *            the given train set
+	 * @param pool
+	 *            the given pool, null for a sequential train
+	 */
+	public Train(DataSet trainset, ForkJoinPool pool) {
+
+		this(trainset, pool, 0);
+	}
+
+	/**
+	 * Creates a Train class with the given train set, the attributes are
+	 * scored in the given pool, and numeric attributes are split into the
+	 * given number of bins.
+	 * 
+	 * @param trainset
+	 *            the given train set
+	 * @param pool
+	 *            the given pool, null for a sequential train
+	 * @param numBins
+	 *            the number of bins, from 2 to MAX_NUM_BINS, 0 for exact
+	 *            thresholds
+	 */
+	public Train(DataSet trainset, ForkJoinPool pool, int numBins) {
+
 		this();
+		if (numBins == 1 || numBins < 0 || numBins > MAX_NUM_BINS)
+			throw new IllegalArgumentException("Bad number of bins: "
+					+ numBins);
 		this.m_Trainset = trainset;
+		this.m_Pool = pool;
+		m_Orders = getOrders();
+		m_Rows = new int[trainset.numInstances()];
+		for (int i = 0; i < m_Rows.length; i++) {
+			m_Rows[i] = i;
+		}
+		m_Buffer = new int[m_Rows.length];
+		m_Codes = new int[m_Rows.length];
+		if (numBins == 0) {
+			m_Sorted = sort();
+		} else {
+			m_Bins = new byte[trainset.numAttributes()][];
+			m_Cuts = new double[m_Bins.length][];
+			bin(trainset, numBins, m_Pool, m_Bins, m_Cuts);
+		}
+		trainRoot();
+	}
+
+	/**
+	 * Creates a Train class for a tree of a forest with the given instances
+	 * of the train set. Each node scores a random sample of its unused
+	 * attributes, and numeric attributes are split by the given bins, which
+	 * the trees share.
+	 * 
+	 * @param trainset
+	 *            the given train set
+	 * @param rows
+	 *            the indexes of the instances in ascending order, an index
+	 *            repeats for an instance drawn more than once, they are
+	 *            reordered by the train
+	 * @param numSampled
+	 *            the number of attributes sampled at each node
+	 * @param random
+	 *            the random numbers to sample attributes
+	 * @param bins
+	 *            the bin codes of instances by attributes, null for exact
+	 *            thresholds
+	 * @param cuts
+	 *            the upper bounds of the bins but the last one by attributes,
+	 *            null for exact thresholds
+	 */
+	Train(DataSet trainset, int[] rows, int numSampled, Random random,
+			byte[][] bins, double[][] cuts) {
+
+		this();
+		this.m_Trainset = trainset;
+		this.m_NumSampled = numSampled;
+		this.m_Random = random;
+		m_Orders = getOrders();
+		m_Rows = rows;
+		for (int i = 1; i < rows.length && !m_Repeated; i++) {
+			m_Repeated = rows[i] == rows[i - 1];
+		}
+		m_Buffer = new int[m_Rows.length];
+		m_Codes = new int[trainset.numInstances()];
+		m_Bins = bins;
+		m_Cuts = cuts;
+		if (bins == null)
+			m_Sorted = sort();
+		trainRoot();
+	}
+
+	/**
+	 * Trains the tree from its root with the instances of m_Rows, and frees
+	 * the buffers of the train.
+	 */
+	private void trainRoot() {
+
+		m_LastInstance = m_Rows.length > 0 ? m_Rows[m_Rows.length - 1]
+				: m_Trainset.numInstances() - 1;
 		// Training at root.
-		train(0);
+		if (m_Pool == null) {
+			train(m_Tree, 0, 0, m_Rows.length, getAttributeIndexs(), null,
+					null);
+		} else {
+			// tasks of attributes and subtrees are forked in the pool.
+			m_Pool.invoke(ForkJoinTask.adapt(new Runnable() {
+				public void run() {
+					train(m_Tree, 0, 0, m_Rows.length, getAttributeIndexs(),
+							null, null);
+				}
+			}));
+		}
+		m_Tree.trimToSize();
+		m_Classifier = m_Tree;
+		m_Rows = null;
+		m_Buffer = null;
+		m_Sorted = null;
+		m_Codes = null;
+		m_Bins = null;
+		m_Cuts = null;
+	}
+
+	/**
+	 * Creates a Train class with the given train set and the tree trained
+	 * with it elsewhere.
+	 * 
+	 * @param trainset
+	 *            the given train set
+	 * @param tree
+	 *            the trained tree
+	 */
+	Train(DataSet trainset, Tree tree) {
+
+		this.m_Trainset = trainset;
+		this.m_Tree = tree;
+		m_Orders = getOrders();
+		m_Classifier = tree;
 	}
 
 	/**
@@ -60,267 +363,1348 @@ public class Train {
 	 * 
 	 * @return the decision tree
 	 */
-	public List<Node> getTree() {
+	public Tree getTree() {
 
 		return m_Tree;
 	}
 
 	/**
-	 * Training decision tree with ID3 algorithm at the given index.
+	 * Gets the trained model, which can be saved without the train set.
+	 * 
+	 * @return the trained model
+	 */
+	public Model getModel() {
+
+		return new Model(m_Trainset.getAttributes(), m_Tree);
+	}
+
+	/**
+	 * Compiles the tree into a class which classifies data sets, the tree is
+	 * kept if it is too big to compile or has numeric attributes.
+	 * 
+	 * @return true if the tree is compiled, false otherwise.
+	 */
+	public boolean compile() {
+
+		m_Classifier = m_Tree.compile();
+		return m_Classifier != m_Tree;
+	}
+
+	/**
+	 * Gets the class attribute of the train set, which decodes the class codes
+	 * of the tree.
+	 * 
+	 * @return the class attribute
+	 */
+	public Attribute getClassAttribute() {
+
+		return m_Trainset.getAttributes().get(m_Trainset.numAttributes() - 1);
+	}
+
+	/**
+	 * Classifies the given instance.
+	 * 
+	 * @param instance
+	 *            the given instance
+	 * @return the class value, null if the tree has no class for the instance
+	 */
+	public String classify(Instance instance) {
+
+		int[] codes = new int[m_Trainset.numAttributes()];
+		double[] values = new double[codes.length];
+		encode(instance, codes, values);
+		int code = m_Tree.classify(codes, values);
+		return code == Tree.NONE ? null : getClassAttribute().getValue(code);
+	}
+
+	/**
+	 * Encodes the values of the given instance by the attributes of the train
+	 * set.
+	 * 
+	 * @param instance
+	 *            the given instance
+	 * @param codes
+	 *            the value codes by attributes, -1 for a missing or numeric
+	 *            value
+	 * @param values
+	 *            the values by attributes, NaN for a missing or nominal value
+	 */
+	void encode(Instance instance, int[] codes, double[] values) {
+
+		for (int i = 0; i < codes.length; i++) {
+			Attribute a = m_Trainset.getAttributes().get(i);
+			Object value = instance.getValues().get(a.getName());
+			codes[i] = -1;
+			values[i] = Double.NaN;
+			if (value == null)
+				continue;
+			if (!a.isNumeric()) {
+				codes[i] = a.getCode(value.toString());
+			} else if (value instanceof Number) {
+				values[i] = ((Number) value).doubleValue();
+			} else {
+				try {
+					values[i] = Double.parseDouble(value.toString());
+				} catch (NumberFormatException e) {
+					// an unknown value is missing.
+				}
+			}
+		}
+	}
+
+	/**
+	 * Classifies all instances of the given data set.
+	 * 
+	 * @param dataset
+	 *            the given data set, attributes are matched by names
+	 * @return the class codes of the class attribute of the train set by
+	 *         instances, Tree.NONE if the tree has no class for an instance
+	 */
+	public int[] classify(DataSet dataset) {
+
+		return classify(dataset, 1);
+	}
+
+	/**
+	 * Classifies all instances of the given data set with the given number of
+	 * threads. Each thread classifies blocks of instances into the result, no
+	 * object is created for an instance.
+	 * 
+	 * @param dataset
+	 *            the given data set, attributes are matched by names
+	 * @param parallelism
+	 *            the number of threads
+	 * @return the class codes of the class attribute of the train set by
+	 *         instances, Tree.NONE if the tree has no class for an instance
+	 */
+	public int[] classify(DataSet dataset, int parallelism) {
+
+		final int[] classes = new int[dataset.numInstances()];
+		final int[][] maps = new int[m_Trainset.numAttributes()][];
+		DoubleBuffer[] numbers = new DoubleBuffer[maps.length];
+		final IntBuffer[] columns = getColumns(dataset, maps, numbers);
+
+		// the compiled tree has no threshold.
+		final DoubleBuffer[] values = m_Tree.hasThresholds() ? numbers : null;
+		if (parallelism <= 1 || classes.length <= BLOCK_SIZE) {
+			classify(columns, maps, values, classes, 0, classes.length);
+			return classes;
+		}
+		ForkJoinPool pool = new ForkJoinPool(parallelism);
+		try {
+			List<ForkJoinTask<?>> tasks = new ArrayList<ForkJoinTask<?>>();
+			for (int from = 0; from < classes.length; from += BLOCK_SIZE) {
+				final int start = from;
+				final int end = Math.min(from + BLOCK_SIZE, classes.length);
+				tasks.add(pool.submit(new Runnable() {
+					public void run() {
+						classify(columns, maps, values, classes, start, end);
+					}
+				}));
+			}
+			for (ForkJoinTask<?> task : tasks) {
+				task.join();
+			}
+		} finally {
+			pool.shutdown();
+		}
+		return classes;
+	}
+
+	/**
+	 * Gets the columns of the given data set by the attributes of the train
+	 * set, attributes are matched by names and types.
 	 * 
+	 * @param dataset
+	 *            the given data set
+	 * @param maps
+	 *            the maps from the codes of the columns to the codes of the
+	 *            train set by attributes, which are set by this method
+	 * @param numbers
+	 *            the values by numeric attributes of the train set, which are
+	 *            set by this method
+	 * @return the value codes by attributes of the train set, -1 for missing
+	 *         and numeric values
+	 */
+	IntBuffer[] getColumns(DataSet dataset, int[][] maps,
+			DoubleBuffer[] numbers) {
+
+		int n = dataset.numInstances();
+		IntBuffer[] columns = new IntBuffer[m_Trainset.numAttributes()];
+		for (int i = 0; i < columns.length - 1; i++) {
+			Attribute a = m_Trainset.getAttributes().get(i);
+			int index = dataset.indexOfAttribute(a.getName());
+			boolean numeric = index >= 0
+					&& dataset.getAttributes().get(index).isNumeric();
+			if (a.isNumeric()) {
+				if (numeric) {
+					numbers[i] = dataset.getNumericColumn(index);
+				} else {
+					numbers[i] = DoubleBuffer.allocate(n);
+					Arrays.fill(numbers[i].array(), Double.NaN);
+				}
+			}
+			if (index < 0 || numeric || a.isNumeric()) {
+				// all instances miss the attribute.
+				columns[i] = IntBuffer.allocate(n);
+				Arrays.fill(columns[i].array(), -1);
+				maps[i] = new int[0];
+				continue;
+			}
+			Attribute b = dataset.getAttributes().get(index);
+			columns[i] = dataset.getNominalColumn(index);
+			maps[i] = new int[b.numValues()];
+			for (int j = 0; j < maps[i].length; j++) {
+				maps[i][j] = a.getCode(b.getValue(j));
+			}
+		}
+		return columns;
+	}
+
+	/**
+	 * Classifies the instances from the given start to the given end.
+	 * 
+	 * @param columns
+	 *            the value codes by attributes of the train set
+	 * @param maps
+	 *            the maps from the codes of the columns to the codes of the
+	 *            train set by attributes
+	 * @param numbers
+	 *            the values by numeric attributes of the train set, null if
+	 *            the tree has no threshold
+	 * @param classes
+	 *            the class codes by instances
+	 * @param from
+	 *            the given start
+	 * @param to
+	 *            the given end
+	 */
+	private void classify(IntBuffer[] columns, int[][] maps,
+			DoubleBuffer[] numbers, int[] classes, int from, int to) {
+
+		if (numbers != null) {
+			for (int i = from; i < to; i++) {
+				classes[i] = m_Tree.classify(columns, maps, numbers, i);
+			}
+			return;
+		}
+		Classifier classifier = m_Classifier;
+		for (int i = from; i < to; i++) {
+			classes[i] = classifier.classify(columns, maps, i);
+		}
+	}
+
+	/**
+	 * Training decision tree with ID3 algorithm at the given index of the
+	 * given tree. The instances of the node are the indexes in m_Rows from the
+	 * given start to the given end, in the order of the train set.
+	 * 
+	 * @param tree
+	 *            the given tree
 	 * @param index
 	 *            the given index
+	 * @param from
+	 *            the start of the instances of the node
+	 * @param to
+	 *            the end of the instances of the node
+	 * @param attributeIndexs
+	 *            the unused attributes' index at the node
+	 * @param classCounts
+	 *            the numbers of the instances by class codes, which the parent
+	 *            counted with the attribute of the node, null to count them
+	 * @param histograms
+	 *            the histograms of the instances by numeric attributes, which
+	 *            the parent counted, null to count them
 	 */
-	private void train(int index) {
+	private void train(Tree tree, int index, int from, int to,
+			List<Integer> attributeIndexs, int[] classCounts,
+			int[][] histograms) {
 
+		int classIndex = m_Trainset.numAttributes() - 1;
+		int numClasses = m_Orders[classIndex].length;
+		if (classCounts == null) {
+			classCounts = new int[numClasses];
+			IntBuffer classes = m_Trainset.getNominalColumn(classIndex);
+			for (int i = from; i < to; i++) {
+				int k = classes.get(m_Rows[i]);
+				if (k >= 0)
+					classCounts[k]++;
+			}
+		}
 		// checks if all instances in this node belongs one class.
-		if (entropy(index, null) == 0.0) {
+		int c = to - from;
+		double e = c == 0 ? 0.0 : information(classCounts, numClasses, c) / c;
+		if (e == 0.0) {
 			// creates leaf node.
-			m_Tree.get(index).setAttributeIndex(m_Trainset.numAttributes() - 1);
-			m_Tree.get(index).appendPostNodeIndex(getClass(index), index);
+			tree.setLeaf(index, getClass(from, to));
 		} else {
-			// unused attributes.
-			List<Integer> attributeIndexs = getAttributeIndexs(index);
 			if (attributeIndexs.size() == 0)
 				return;
+			if (m_Bins != null && histograms == null)
+				histograms = new int[m_Trainset.numAttributes()][];
+			List<Integer> candidates = sample(attributeIndexs);
+			int[][][] tables = count(candidates, from, to, histograms);
 			// the max gain.
 			double max = -1;
 			int attributeIndex = -1;
-			// find the max gain.
-			for (int i = 0; i < attributeIndexs.size(); i++) {
-				double g = gain(index, attributeIndexs.get(i));
-				if (g > max) {
+			int[][] table = null;
+			// find the max gain, the first attribute wins a tie.
+			for (int i = 0; i < candidates.size(); i++) {
+				if (tables[i] == null)
+					continue;
+				double g = gain(e, tables[i], numClasses, c);
+				if (g > max + TIE) {
 					max = g;
-					attributeIndex = attributeIndexs.get(i);
+					attributeIndex = candidates.get(i);
+					table = tables[i];
 				}
 			}
-			// sets the index of attribute in this node with the max gain.
-			m_Tree.get(index).setAttributeIndex(attributeIndex);
-			// creates child node.
-			for (Map.Entry<String, Integer> entry : m_Trainset.getAttributes()
-					.get(attributeIndex).getValues().entrySet()) {
-				m_Tree.add(new Node(index, entry.getKey()));
-				m_Tree.get(index).appendPostNodeIndex(entry.getKey(),
-						m_Tree.size() - 1);
+			// no numeric attribute has a threshold in this node.
+			if (attributeIndex < 0)
+				return;
+			// splits this node by the attribute with the max gain.
+			double threshold = threshold(attributeIndex, from, table,
+					histograms);
+			int[] bounds = partition(attributeIndex, threshold, from, to);
+			List<Integer> unused = new ArrayList<Integer>(attributeIndexs);
+			if (!isNumeric(attributeIndex))
+				unused.remove((Object) attributeIndex);
+			int[][][] children = m_Bins == null ? null : histograms(unused,
+					bounds, table, histograms);
+			if (m_Pool != null && table.length > 1
+					&& (long) (to - from) * unused.size() >= MIN_PARALLEL_WORK) {
+				trainChildren(tree, index, attributeIndex, threshold, bounds,
+						unused, table, children);
+				return;
+			}
+			int first = isNumeric(attributeIndex) ? tree.split(index,
+					attributeIndex, threshold) : tree.split(index,
+					attributeIndex, table.length);
+			for (int code = 0; code < table.length; code++) {
 				// recursion call this function at child node
-				train(m_Tree.size() - 1);
+				train(tree, first + code, bounds[code], bounds[code + 1],
+						unused, table[code], children == null ? null
+								: children[code]);
 			}
 		}
 	}
 
 	/**
-	 * Gets instances class if the instances at the given index of the decision
-	 * tree belongs one class.
+	 * Trains the subtrees of the children at the given index of the given
+	 * tree as parallel tasks. Each subtree is built as its own tree, and the
+	 * subtrees are grafted onto the children in order.
 	 * 
+	 * @param tree
+	 *            the given tree
 	 * @param index
-	 *            the given index of the decision tree
-	 * @return the instances class
-	 */
-	private Object getClass(int index) {
-
-		// backtracking to root to gets the used attributes.
-		Map<String, String> values = new HashMap<String, String>();
-		while (m_Tree.get(index).getPreNodeIndex() != -1) {
-			String value = m_Tree.get(index).getPreValue();
-			index = m_Tree.get(index).getPreNodeIndex();
-			String attribute = m_Trainset.getAttributes()
-					.get(m_Tree.get(index).getAttributeIndex()).getName();
-			values.put(attribute, value);
-		}
-		Object c = null;
-		for (Instance instance : m_Trainset.getInstances()) {
-			c = instance.getValues().get(
-					m_Trainset.getAttributes()
-							.get(m_Trainset.numAttributes() - 1).getName());
-			boolean flag = true;
-			if (values.size() > 0) {
-				for (Map.Entry<String, String> entry : values.entrySet()) {
-					if (!instance.getValues().get(entry.getKey())
-							.equals(entry.getValue())) {
-						flag = false;
-						break;
-					}
+	 *            the given index
+	 * @param attributeIndex
+	 *            the index of attribute in the node
+	 * @param threshold
+	 *            the threshold of a numeric attribute, NaN for the others
+	 * @param bounds
+	 *            the bounds of the instances of the children by value codes
+	 * @param attributeIndexs
+	 *            the unused attributes' index at the children
+	 * @param table
+	 *            the numbers of instances by value codes and class codes of
+	 *            the attribute
+	 * @param histograms
+	 *            the histograms of the children by value codes, null if there
+	 *            is no bin
+	 */
+	private void trainChildren(Tree tree, int index, int attributeIndex,
+			double threshold, int[] bounds,
+			final List<Integer> attributeIndexs, final int[][] table,
+			int[][][] histograms) {
+
+		int numValues = table.length;
+		List<ForkJoinTask<Tree>> tasks = new ArrayList<ForkJoinTask<Tree>>();
+		for (int code = 0; code < numValues; code++) {
+			final int from = bounds[code];
+			final int to = bounds[code + 1];
+			final int[] classCounts = table[code];
+			final int[][] children = histograms == null ? null
+					: histograms[code];
+			tasks.add(ForkJoinTask.adapt(new Callable<Tree>() {
+				public Tree call() {
+					Tree subtree = new Tree();
+					train(subtree, 0, from, to, attributeIndexs, classCounts,
+							children);
+					return subtree;
 				}
-			}
-			if (flag)
-				break;
+			}).fork());
+		}
+		int first = isNumeric(attributeIndex) ? tree.split(index,
+				attributeIndex, threshold) : tree.split(index, attributeIndex,
+				numValues);
+		for (int code = 0; code < numValues; code++) {
+			tree.graft(first + code, tasks.get(code).join());
 		}
-		return c;
 	}
 
 	/**
-	 * Gets the unused attributes' index at the given index of the decision tree
+	 * Gets the class of the first instance from the given start to the given
+	 * end of m_Rows, or the class of the last train instance if there is no
+	 * instance.
 	 * 
-	 * @param index
-	 *            the given index of the decision tree
-	 * @return the unused attributes' index at the given index of the decision
-	 *         tree
+	 * @param from
+	 *            the start of the instances of the node
+	 * @param to
+	 *            the end of the instances of the node
+	 * @return the code of the instances class
 	 */
-	private List<Integer> getAttributeIndexs(int index) {
+	private int getClass(int from, int to) {
+
+		int instance = from < to ? m_Rows[from] : m_LastInstance;
+		return m_Trainset.getCode(instance, m_Trainset.numAttributes() - 1);
+	}
+
+	/**
+	 * Gets the indexes of all attributes except the class.
+	 * 
+	 * @return the indexes of all attributes except the class
+	 */
+	private List<Integer> getAttributeIndexs() {
 
-		// backtracking to root to gets the unused attributes' index.
 		List<Integer> attributeIndexs = new ArrayList<Integer>();
 		for (int i = 0; i < m_Trainset.numAttributes() - 1; i++) {
 			attributeIndexs.add(i);
 		}
-		while (m_Tree.get(index).getPreNodeIndex() != -1) {
-			index = m_Tree.get(index).getPreNodeIndex();
-			attributeIndexs.remove((Object) m_Tree.get(index)
-					.getAttributeIndex());
-		}
 		return attributeIndexs;
 	}
 
 	/**
-	 * Computes the count of the instances at the given index of the decision
-	 * tree and other condition
+	 * Samples m_NumSampled of the given attributes at random, in their order.
 	 * 
-	 * @param index
-	 *            the given index of the decision tree
-	 * @param other
-	 *            the given other condition
-	 * @return the count of the instances at the given index of the decision
-	 *         tree and other condition
-	 */
-	private int count(int index, Map<String, String> other) {
-
-		// backtracking to root to gets the used attributes' index.
-		Map<String, String> values = new HashMap<String, String>();
-		if (other != null)
-			values.putAll(other);
-		while (m_Tree.get(index).getPreNodeIndex() != -1) {
-			String value = m_Tree.get(index).getPreValue();
-			index = m_Tree.get(index).getPreNodeIndex();
-			String attribute = m_Trainset.getAttributes()
-					.get(m_Tree.get(index).getAttributeIndex()).getName();
-			values.put(attribute, value);
-		}
-		if (values.size() == 0)
-			return m_Trainset.numInstances();
-		// computes the count of the instances.
-		int count = 0;
-		for (Instance instance : m_Trainset.getInstances()) {
-			boolean flag = true;
-			for (Map.Entry<String, String> entry : values.entrySet()) {
-				if (!instance.getValues().get(entry.getKey())
-						.equals(entry.getValue())) {
-					flag = false;
-					break;
+	 * @param attributeIndexs
+	 *            the given indexes of attributes
+	 * @return the sampled indexes, all given indexes if there is no random
+	 *         numbers or not more than m_NumSampled of them
+	 */
+	private List<Integer> sample(List<Integer> attributeIndexs) {
+
+		if (m_Random == null || attributeIndexs.size() <= m_NumSampled)
+			return attributeIndexs;
+		List<Integer> sampled = new ArrayList<Integer>(attributeIndexs);
+		for (int i = 0; i < m_NumSampled; i++) {
+			Collections.swap(sampled, i,
+					i + m_Random.nextInt(sampled.size() - i));
+		}
+		sampled = new ArrayList<Integer>(sampled.subList(0, m_NumSampled));
+		Collections.sort(sampled);
+		return sampled;
+	}
+
+	/**
+	 * Gets the value codes of each attribute in the order of the map of its
+	 * values, which is the order that the nodes and entropies use.
+	 * 
+	 * @return the value codes by attributes
+	 */
+	private int[][] getOrders() {
+
+		int[][] orders = new int[m_Trainset.numAttributes()][];
+		for (int i = 0; i < orders.length; i++) {
+			Attribute a = m_Trainset.getAttributes().get(i);
+			orders[i] = new int[a.numValues()];
+			int j = 0;
+			for (String value : a.getValues().keySet()) {
+				orders[i][j++] = a.getCode(value);
+			}
+		}
+		return orders;
+	}
+
+	/**
+	 * Gets n * log2(n) of the given count, from the table for small counts.
+	 * 
+	 * @param n
+	 *            the given count
+	 * @return n * log2(n), 0 for 0
+	 */
+	private static double nLogN(int n) {
+
+		return n < N_LOG_N.length ? N_LOG_N[n] : n * Math.log(n) / LN2;
+	}
+
+	/**
+	 * Computes the information of the given numbers of classes, which is the
+	 * entropy times the number of instances: c * log2(c) - sum t * log2(t).
+	 * 
+	 * @param classCounts
+	 *            the numbers of instances by class codes
+	 * @param numClasses
+	 *            the number of classes
+	 * @param c
+	 *            the number of instances, including those without class
+	 * @return the information
+	 */
+	static double information(int[] classCounts, int numClasses, int c) {
+
+		int m = 0;
+		double s = 0;
+		for (int k = 0; k < numClasses; k++) {
+			int t = classCounts[k];
+			m += t;
+			s += nLogN(t);
+		}
+		// instances without class only count in the probabilities.
+		return (m == c ? nLogN(c) : m * Math.log(c) / LN2) - s;
+	}
+
+	/**
+	 * Counts the tables of the given attributes with the instances from the
+	 * given start to the given end of m_Rows, in parallel if there is a pool
+	 * and the node is large enough.
+	 * 
+	 * @param attributeIndexs
+	 *            the given indexes of attributes
+	 * @param from
+	 *            the start of the instances
+	 * @param to
+	 *            the end of the instances
+	 * @param histograms
+	 *            the histograms of the instances by numeric attributes, the
+	 *            missing ones are counted into it, null if there is no bin
+	 * @return the tables in the order of the given attributes, null for a
+	 *         numeric attribute without threshold
+	 */
+	private int[][][] count(List<Integer> attributeIndexs, final int from,
+			final int to, final int[][] histograms) {
+
+		Bitmap bitmap = null;
+		for (int attributeIndex : attributeIndexs) {
+			if (!m_Repeated && !isNumeric(attributeIndex)
+					&& isDense(attributeIndex, from, to)) {
+				bitmap = new Bitmap(m_Rows, from, to);
+				break;
+			}
+		}
+		final Bitmap node = bitmap;
+
+		int[][][] tables = new int[attributeIndexs.size()][][];
+		if (m_Pool == null || tables.length < 2
+				|| (long) (to - from) * tables.length < MIN_PARALLEL_WORK) {
+			for (int i = 0; i < tables.length; i++) {
+				tables[i] = count(attributeIndexs.get(i), from, to, node,
+						histograms);
+			}
+			return tables;
+		}
+
+		List<ForkJoinTask<int[][]>> tasks = new ArrayList<ForkJoinTask<int[][]>>();
+		for (final int attributeIndex : attributeIndexs) {
+			tasks.add(ForkJoinTask.adapt(new Callable<int[][]>() {
+				public int[][] call() {
+					return count(attributeIndex, from, to, node, histograms);
+				}
+			}).fork());
+		}
+		for (int i = 0; i < tables.length; i++) {
+			tables[i] = tasks.get(i).join();
+		}
+		return tables;
+	}
+
+	/**
+	 * Checks if the instances from the given start to the given end of m_Rows
+	 * are dense enough to count the given attribute by bitmaps, which costs
+	 * about a word of each instance of the train set for every value and
+	 * class.
+	 * 
+	 * @param attributeIndex
+	 *            the given index of attribute
+	 * @param from
+	 *            the start of the instances
+	 * @param to
+	 *            the end of the instances
+	 * @return true if the bitmaps cost less than a pass over the instances,
+	 *         false otherwise.
+	 */
+	private boolean isDense(int attributeIndex, int from, int to) {
+
+		int classIndex = m_Trainset.numAttributes() - 1;
+		long words = m_Trainset.numInstances() / 64 + 1;
+		return (long) m_Orders[attributeIndex].length
+				* (m_Orders[classIndex].length + 1) * words <= to - from;
+	}
+
+	/**
+	 * Counts the table of the given attribute with the instances from the
+	 * given start to the given end of m_Rows. The numbers of instances by
+	 * attribute values and classes are counted in one pass, or by the bitmaps
+	 * of the values and classes if the node is dense. The table of a numeric
+	 * attribute is that of its best threshold.
+	 * 
+	 * @param attributeIndex
+	 *            the given index of attribute
+	 * @param from
+	 *            the start of the instances
+	 * @param to
+	 *            the end of the instances
+	 * @param node
+	 *            the bitmap of the instances, null if the node is not dense
+	 * @param histograms
+	 *            the histograms of the instances by numeric attributes, the
+	 *            missing one is counted into it, null if there is no bin
+	 * @return the numbers of instances by value codes and class codes, the
+	 *         last number of a value is the number of its instances
+	 */
+	private int[][] count(int attributeIndex, int from, int to, Bitmap node,
+			int[][] histograms) {
+
+		if (isNumeric(attributeIndex) && m_Bins == null)
+			return countThreshold(attributeIndex, from, to);
+		if (isNumeric(attributeIndex)) {
+			if (histograms[attributeIndex] == null)
+				histograms[attributeIndex] = histogram(attributeIndex, from,
+						to);
+			return countBins(histograms[attributeIndex],
+					m_Orders[m_Trainset.numAttributes() - 1].length, to - from);
+		}
+		int classIndex = m_Trainset.numAttributes() - 1;
+		int numValues = m_Orders[attributeIndex].length;
+		int numClasses = m_Orders[classIndex].length;
+		int[][] table = new int[numValues][numClasses + 1];
+		if (node != null && isDense(attributeIndex, from, to)) {
+			Bitmap[] values = m_Trainset.getBitmaps(attributeIndex);
+			Bitmap[] classes = m_Trainset.getBitmaps(classIndex);
+			for (int v = 0; v < numValues; v++) {
+				Bitmap instances = node.and(values[v]);
+				table[v][numClasses] = instances.cardinality();
+				for (int k = 0; k < numClasses; k++) {
+					table[v][k] = instances.andCardinality(classes[k]);
 				}
 			}
-			if (flag)
-				count++;
+		} else {
+			IntBuffer values = m_Trainset.getNominalColumn(attributeIndex);
+			IntBuffer classes = m_Trainset.getNominalColumn(classIndex);
+			for (int i = from; i < to; i++) {
+				int v = values.get(m_Rows[i]);
+				if (v < 0)
+					continue;
+				table[v][numClasses]++;
+				int k = classes.get(m_Rows[i]);
+				if (k >= 0)
+					table[v][k]++;
+			}
 		}
-		return count;
+		return table;
 	}
 
 	/**
-	 * Computes the entropy at the given index of the decision tree and other
-	 * condition
+	 * Counts the table of the best threshold of the given numeric attribute
+	 * with the instances from the given start to the given end of m_Sorted.
+	 * The instances are in the order of their values, so every threshold
+	 * between two values is scored in one pass by moving the instances from
+	 * the right side to the left one.
 	 * 
-	 * @param index
-	 *            the given index of the decision tree
-	 * @param other
-	 *            the given other condition
-	 * @return the entropy at the given index of the decision tree and other
-	 *         condition
+	 * @param attributeIndex
+	 *            the given index of numeric attribute
+	 * @param from
+	 *            the start of the instances
+	 * @param to
+	 *            the end of the instances
+	 * @return the numbers of instances by sides and class codes, the first
+	 *         side is not greater than the threshold, null if all values are
+	 *         equal or missing
 	 */
-	private double entropy(int index, Map<String, String> other) {
+	private int[][] countThreshold(int attributeIndex, int from, int to) {
 
-		Map<String, String> values = new HashMap<String, String>();
-		if (other != null)
-			values.putAll(other);
-		int c = count(index, values);
-		double e = 0;
-		Attribute f = m_Trainset.getAttributes().get(
-				m_Trainset.numAttributes() - 1);
-		for (Map.Entry<String, Integer> entry : f.getValues().entrySet()) {
-			values.clear();
-			if (other != null)
-				values.putAll(other);
-			values.put(f.getName(), entry.getKey());
-			int t = count(index, values);
-			if (t != 0) {
-				e -= (double) t / (double) c
-						* Math.log((double) t / (double) c) / Math.log(2.0);
+		int classIndex = m_Trainset.numAttributes() - 1;
+		int numClasses = m_Orders[classIndex].length;
+		int[] sorted = m_Sorted[attributeIndex];
+		DoubleBuffer values = m_Trainset.getNumericColumn(attributeIndex);
+		IntBuffer classes = m_Trainset.getNominalColumn(classIndex);
+		int[] left = new int[numClasses + 1];
+		int[] right = new int[numClasses + 1];
+		// instances without value are at the end.
+		int end = from;
+		while (end < to && !Double.isNaN(values.get(sorted[end]))) {
+			int k = classes.get(sorted[end++]);
+			if (k >= 0)
+				right[k]++;
+		}
+		right[numClasses] = end - from;
+
+		double max = Double.NEGATIVE_INFINITY;
+		int[][] table = null;
+		double value = end > from ? values.get(sorted[from]) : 0;
+		for (int i = from; i < end - 1; i++) {
+			int k = classes.get(sorted[i]);
+			if (k >= 0) {
+				left[k]++;
+				right[k]--;
 			}
+			left[numClasses]++;
+			right[numClasses]--;
+			double next = values.get(sorted[i + 1]);
+			if (value < next) {
+				double g = -(information(left, numClasses, left[numClasses])
+						+ information(right, numClasses, right[numClasses]));
+				if (g > max + TIE * (to - from)) {
+					max = g;
+					table = new int[][] { left.clone(), right.clone() };
+				}
+			}
+			value = next;
 		}
-		return e;
+		return table;
 	}
 
 	/**
-	 * Computes the gain at the given index of the decision tree and index of
-	 * attribute.
+	 * Counts the table of the best threshold with the given histogram of a
+	 * numeric attribute, whose thresholds are the upper bounds of the bins.
+	 * 
+	 * @param histogram
+	 *            the numbers of instances by bins and class codes, a bin has
+	 *            numClasses + 1 numbers and the last is the number of its
+	 *            instances
+	 * @param numClasses
+	 *            the number of classes
+	 * @param c
+	 *            the number of instances
+	 * @return the numbers of instances by sides and class codes, the first
+	 *         side is not greater than the threshold, null if all values are
+	 *         in one bin or missing
+	 */
+	static int[][] countBins(int[] histogram, int numClasses, int c) {
+
+		int width = numClasses + 1;
+		int[] left = new int[width];
+		int[] right = new int[width];
+		for (int i = 0; i < histogram.length; i++) {
+			right[i % width] += histogram[i];
+		}
+
+		double max = Double.NEGATIVE_INFINITY;
+		int[][] table = null;
+		for (int b = 0; b < histogram.length - width; b += width) {
+			// an empty bin has the threshold of the bin before it.
+			if (histogram[b + numClasses] == 0)
+				continue;
+			for (int k = 0; k <= numClasses; k++) {
+				left[k] += histogram[b + k];
+				right[k] -= histogram[b + k];
+			}
+			if (right[numClasses] == 0)
+				break;
+			double g = -(information(left, numClasses, left[numClasses])
+					+ information(right, numClasses, right[numClasses]));
+			if (g > max + TIE * c) {
+				max = g;
+				table = new int[][] { left.clone(), right.clone() };
+			}
+		}
+		return table;
+	}
+
+	/**
+	 * Gets the threshold of the given attribute with the given table, which
+	 * is the largest value of the first side, or the upper bound of its last
+	 * bin.
 	 * 
-	 * @param index
-	 *            the given index of the decision tree
 	 * @param attributeIndex
 	 *            the given index of attribute
-	 * @return the gain at the given index of the decision tree and index of
-	 *         attribute
+	 * @param from
+	 *            the start of the instances
+	 * @param table
+	 *            the table of the threshold
+	 * @param histograms
+	 *            the histograms of the instances by numeric attributes, null
+	 *            if there is no bin
+	 * @return the threshold, NaN if the attribute is not numeric
 	 */
-	private double gain(int index, int attributeIndex) {
+	private double threshold(int attributeIndex, int from, int[][] table,
+			int[][] histograms) {
+
+		if (!isNumeric(attributeIndex))
+			return Double.NaN;
+		int numClasses = table[0].length - 1;
+		int n = table[0][numClasses];
+		if (m_Bins == null)
+			return m_Trainset.getValue(m_Sorted[attributeIndex][from + n - 1],
+					attributeIndex);
+		return m_Cuts[attributeIndex][lastBin(histograms[attributeIndex],
+				numClasses, n)];
+	}
 
-		double e = entropy(index, null);
-		int c = count(index, null);
-		double ea = 0;
-		Map<String, String> values = new HashMap<String, String>();
-		Attribute a = m_Trainset.getAttributes().get(attributeIndex);
-		for (Map.Entry<String, Integer> entry : a.getValues().entrySet()) {
-			values.clear();
-			values.put(a.getName(), entry.getKey());
-			int t = count(index, values);
-			double ei = entropy(index, values);
-			ea += (double) t / (double) c * ei;
+	/**
+	 * Gets the last bin of the first side of a threshold with the given
+	 * histogram.
+	 * 
+	 * @param histogram
+	 *            the numbers of instances by bins and class codes, a bin has
+	 *            numClasses + 1 numbers and the last is the number of its
+	 *            instances
+	 * @param numClasses
+	 *            the number of classes
+	 * @param n
+	 *            the number of instances of the first side
+	 * @return the first bin where the first side ends
+	 */
+	static int lastBin(int[] histogram, int numClasses, int n) {
+
+		int b = 0;
+		int left = histogram[numClasses];
+		while (left < n) {
+			left += histogram[++b * (numClasses + 1) + numClasses];
 		}
-		return e - ea;
+		return b;
 	}
 
 	/**
-	 * Shows the decision tree at the given index of the decision tree.
+	 * Checks if the given attribute is numeric.
 	 * 
-	 * @param index
-	 *            the given index of the decision tree
-	 * @return the decision tree at the given index of the decision tree as a
-	 *         string
+	 * @param attributeIndex
+	 *            the given index of attribute
+	 * @return true if the attribute is numeric, false otherwise.
 	 */
-	private String showTree(int index) {
+	private boolean isNumeric(int attributeIndex) {
 
-		StringBuilder sb = new StringBuilder();
-		int deep = 0;
-		int in = index;
-		while (m_Tree.get(in).getPreNodeIndex() != -1) {
-			deep++;
-			in = m_Tree.get(in).getPreNodeIndex();
-		}
-		if (m_Tree.get(index).getPreNodeIndex() != -1) {
-			for (int i = 1; i < deep; i++)
-				sb.append("|  ");
-			sb.append(m_Trainset
-					.getAttributes()
-					.get(m_Tree.get(m_Tree.get(index).getPreNodeIndex())
-							.getAttributeIndex()).getName()
-					+ " = " + m_Tree.get(index).getPreValue() + "\n");
-		}
-		List<Map.Entry<Object, Integer>> infoIds = new ArrayList<Map.Entry<Object, Integer>>(
-				m_Tree.get(index).getPostNodeIndex().entrySet());
-		Collections.sort(infoIds, new Comparator<Map.Entry<Object, Integer>>() {
-			public int compare(Map.Entry<Object, Integer> o1,
-					Map.Entry<Object, Integer> o2) {
-				return m_Tree.get(o1.getValue()).numPostNodeIndex()
-						- m_Tree.get(o2.getValue()).numPostNodeIndex();
-			}
-		});
-		for (int i = 0; i < infoIds.size(); i++) {
-			if (infoIds.get(i).getValue() == index) {
-				if (sb.length() > 0)
+		return m_Trainset.getAttributes().get(attributeIndex).isNumeric();
+	}
+
+	/**
+	 * Sorts the indexes of instances by the values of each numeric attribute,
+	 * in parallel if there is a pool. Instances without value are put at the
+	 * end, and instances with equal values keep their order.
+	 * 
+	 * @return the sorted indexes by attributes, null for the other attributes
+	 */
+	private int[][] sort() {
+
+		final int[][] sorted = new int[m_Trainset.numAttributes()][];
+		List<ForkJoinTask<?>> tasks = new ArrayList<ForkJoinTask<?>>();
+		for (int i = 0; i < sorted.length - 1; i++) {
+			if (!isNumeric(i))
+				continue;
+			final int attributeIndex = i;
+			Runnable task = new Runnable() {
+				public void run() {
+					int[] rows = m_Rows.clone();
+					sort(rows, new int[rows.length],
+							m_Trainset.getNumericColumn(attributeIndex), 0,
+							rows.length);
+					sorted[attributeIndex] = rows;
+				}
+			};
+			if (m_Pool == null)
+				task.run();
+			else
+				tasks.add(m_Pool.submit(task));
+		}
+		for (ForkJoinTask<?> task : tasks) {
+			task.join();
+		}
+		return sorted;
+	}
+
+	/**
+	 * Sorts the given indexes from the given start to the given end by the
+	 * given values with a stable merge sort, NaN is the largest value.
+	 * 
+	 * @param rows
+	 *            the given indexes
+	 * @param buffer
+	 *            the buffer for merging
+	 * @param values
+	 *            the given values
+	 * @param from
+	 *            the given start
+	 * @param to
+	 *            the given end
+	 */
+	static void sort(int[] rows, int[] buffer, DoubleBuffer values,
+			int from, int to) {
+
+		if (to - from < 16) {
+			for (int i = from + 1; i < to; i++) {
+				int row = rows[i];
+				double value = values.get(row);
+				int j = i;
+				while (j > from
+						&& Double.compare(values.get(rows[j - 1]), value) > 0) {
+					rows[j] = rows[j - 1];
+					j--;
+				}
+				rows[j] = row;
+			}
+			return;
+		}
+		int middle = (from + to) >>> 1;
+		sort(rows, buffer, values, from, middle);
+		sort(rows, buffer, values, middle, to);
+		if (Double.compare(values.get(rows[middle - 1]),
+				values.get(rows[middle])) <= 0)
+			return;
+		System.arraycopy(rows, from, buffer, from, to - from);
+		int i = from;
+		int j = middle;
+		for (int k = from; k < to; k++) {
+			if (j >= to
+					|| (i < middle && Double.compare(values.get(buffer[i]),
+							values.get(buffer[j])) <= 0))
+				rows[k] = buffer[i++];
+			else
+				rows[k] = buffer[j++];
+		}
+	}
+
+	/**
+	 * Splits the values of each numeric attribute of the given train set into
+	 * the given number of bins, in parallel if there is a pool, and keeps the
+	 * bin codes of instances as bytes.
+	 * 
+	 * @param trainset
+	 *            the given train set
+	 * @param numBins
+	 *            the given number of bins
+	 * @param pool
+	 *            the pool to split the attributes, null to split them in turn
+	 * @param bins
+	 *            the bin codes of instances by attributes, which are set for
+	 *            numeric attributes
+	 * @param cuts
+	 *            the upper bounds of the bins but the last one by attributes,
+	 *            which are set for numeric attributes
+	 */
+	static void bin(final DataSet trainset, final int numBins,
+			ForkJoinPool pool, final byte[][] bins, final double[][] cuts) {
+
+		List<ForkJoinTask<?>> tasks = new ArrayList<ForkJoinTask<?>>();
+		for (int i = 0; i < trainset.numAttributes() - 1; i++) {
+			if (!trainset.getAttributes().get(i).isNumeric())
+				continue;
+			final int attributeIndex = i;
+			Runnable task = new Runnable() {
+				public void run() {
+					DoubleBuffer values = trainset
+							.getNumericColumn(attributeIndex);
+					int n = trainset.numInstances();
+					double[] bounds = cuts(values, n, numBins);
+					byte[] codes = new byte[n];
+					for (int row = 0; row < n; row++) {
+						double value = values.get(row);
+						codes[row] = (byte) (Double.isNaN(value) ? MISSING
+								: bin(bounds, value));
+					}
+					cuts[attributeIndex] = bounds;
+					bins[attributeIndex] = codes;
+				}
+			};
+			if (pool == null)
+				task.run();
+			else
+				tasks.add(pool.submit(task));
+		}
+		for (ForkJoinTask<?> task : tasks) {
+			task.join();
+		}
+	}
+
+	/**
+	 * Gets the upper bounds of the bins of the given values in one pass. The
+	 * bounds are the distinct values but the largest one if there are at most
+	 * numBins of them, or the distinct quantiles of a sketch of the values.
+	 * 
+	 * @param values
+	 *            the given values by instances
+	 * @param n
+	 *            the number of instances
+	 * @param numBins
+	 *            the number of bins
+	 * @return the upper bounds of the bins but the last one, in ascending
+	 *         order
+	 */
+	private static double[] cuts(DoubleBuffer values, int n, int numBins) {
+
+		QuantileSketch sketch = new QuantileSketch(SKETCH_SIZE * numBins);
+		// the distinct values, until there are more than numBins.
+		double[] distinct = new double[numBins + 1];
+		int numDistinct = 0;
+		for (int row = 0; row < n; row++) {
+			double value = values.get(row);
+			if (Double.isNaN(value))
+				continue;
+			sketch.add(value);
+			if (numDistinct > numBins)
+				continue;
+			int i = Arrays.binarySearch(distinct, 0, numDistinct, value);
+			if (i < 0) {
+				i = -i - 1;
+				System.arraycopy(distinct, i, distinct, i + 1, numDistinct - i);
+				distinct[i] = value;
+				numDistinct++;
+			}
+		}
+		if (numDistinct <= numBins)
+			return Arrays.copyOf(distinct, Math.max(0, numDistinct - 1));
+
+		double[] quantiles = sketch.quantiles(numBins);
+		int numCuts = 0;
+		for (double quantile : quantiles) {
+			if (numCuts == 0 || quantile > quantiles[numCuts - 1])
+				quantiles[numCuts++] = quantile;
+		}
+		return Arrays.copyOf(quantiles, numCuts);
+	}
+
+	/**
+	 * Gets the bin of the given value, which is the first bin whose upper
+	 * bound is not less than the value.
+	 * 
+	 * @param cuts
+	 *            the upper bounds of the bins but the last one
+	 * @param value
+	 *            the given value
+	 * @return the code of the bin
+	 */
+	private static int bin(double[] cuts, double value) {
+
+		int low = 0;
+		int high = cuts.length;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (cuts[middle] < value)
+				low = middle + 1;
+			else
+				high = middle;
+		}
+		return low;
+	}
+
+	/**
+	 * Counts the histogram of the given numeric attribute with the instances
+	 * from the given start to the given end of m_Rows.
+	 * 
+	 * @param attributeIndex
+	 *            the given index of numeric attribute
+	 * @param from
+	 *            the start of the instances
+	 * @param to
+	 *            the end of the instances
+	 * @return the numbers of instances by bins and class codes, a bin has
+	 *         numClasses + 1 numbers and the last is the number of its
+	 *         instances
+	 */
+	private int[] histogram(int attributeIndex, int from, int to) {
+
+		int classIndex = m_Trainset.numAttributes() - 1;
+		int numClasses = m_Orders[classIndex].length;
+		int width = numClasses + 1;
+		byte[] bins = m_Bins[attributeIndex];
+		IntBuffer classes = m_Trainset.getNominalColumn(classIndex);
+		int[] histogram = new int[(m_Cuts[attributeIndex].length + 1) * width];
+		for (int i = from; i < to; i++) {
+			int row = m_Rows[i];
+			int b = bins[row] & 0xFF;
+			if (b == MISSING)
+				continue;
+			histogram[b * width + numClasses]++;
+			int k = classes.get(row);
+			if (k >= 0)
+				histogram[b * width + k]++;
+		}
+		return histogram;
+	}
+
+	/**
+	 * Counts the histograms of the children of a split by the given numeric
+	 * attributes, in parallel if there is a pool and the split is large
+	 * enough. The histograms of the largest child are those of the parent
+	 * minus those of the other instances, the others are counted. Leaves need
+	 * no histogram, and an attribute that the parent did not score is counted
+	 * for all children.
+	 * 
+	 * @param attributeIndexs
+	 *            the unused attributes' index at the children
+	 * @param bounds
+	 *            the bounds of the instances of the children by value codes,
+	 *            the instances without value are at the end
+	 * @param table
+	 *            the numbers of instances by value codes and class codes of
+	 *            the attribute of the split
+	 * @param parent
+	 *            the histograms of the parent by numeric attributes, null for
+	 *            an attribute that is not scored
+	 * @return the histograms of the children by value codes and numeric
+	 *         attributes, null for a leaf
+	 */
+	private int[][][] histograms(List<Integer> attributeIndexs,
+			final int[] bounds, int[][] table, final int[][] parent) {
+
+		final int numValues = table.length;
+		int numClasses = table[0].length - 1;
+		int largest = 0;
+		for (int code = 1; code < numValues; code++) {
+			if (bounds[code + 1] - bounds[code] > bounds[largest + 1]
+					- bounds[largest])
+				largest = code;
+		}
+		final int[][][] histograms = new int[numValues + 1][][];
+		final int[][][] children = new int[numValues][][];
+		boolean subtract = false;
+		for (int code = 0; code < numValues; code++) {
+			int c = table[code][numClasses];
+			if (c > 0 && information(table[code], numClasses, c) != 0.0) {
+				histograms[code] = new int[parent.length][];
+				children[code] = histograms[code];
+				subtract |= code == largest;
+			}
+		}
+		if (subtract) {
+			// the other instances are counted to be subtracted.
+			for (int code = 0; code <= numValues; code++) {
+				if (code != largest && bounds[code] < bounds[code + 1]
+						&& histograms[code] == null)
+					histograms[code] = new int[parent.length][];
+			}
+		}
+		final int other = subtract ? largest : -1;
+
+		List<Runnable> tasks = new ArrayList<Runnable>();
+		for (final int attributeIndex : attributeIndexs) {
+			if (!isNumeric(attributeIndex))
+				continue;
+			tasks.add(new Runnable() {
+				public void run() {
+					int[] rest = null;
+					if (other >= 0 && parent[attributeIndex] != null) {
+						rest = parent[attributeIndex].clone();
+						histograms[other][attributeIndex] = rest;
+					}
+					for (int code = 0; code < histograms.length; code++) {
+						if (histograms[code] == null
+								|| (code == other && rest != null))
+							continue;
+						// only children need the counts without subtraction.
+						if (rest == null && (code == numValues
+								|| children[code] == null))
+							continue;
+						int[] histogram = histogram(attributeIndex,
+								bounds[code], bounds[code + 1]);
+						histograms[code][attributeIndex] = histogram;
+						if (rest == null)
+							continue;
+						for (int i = 0; i < rest.length; i++) {
+							rest[i] -= histogram[i];
+						}
+					}
+				}
+			});
+		}
+		int n = bounds[bounds.length - 1] - bounds[0];
+		if (m_Pool == null || tasks.size() < 2
+				|| (long) n * tasks.size() < MIN_PARALLEL_WORK) {
+			for (Runnable task : tasks) {
+				task.run();
+			}
+		} else {
+			List<ForkJoinTask<?>> forks = new ArrayList<ForkJoinTask<?>>();
+			for (Runnable task : tasks) {
+				forks.add(ForkJoinTask.adapt(task).fork());
+			}
+			for (ForkJoinTask<?> fork : forks) {
+				fork.join();
+			}
+		}
+
+		// the histograms of leaves and instances without value are dropped.
+		return children;
+	}
+
+	/**
+	 * Computes the gain of an attribute with the given table.
+	 * 
+	 * @param e
+	 *            the entropy of the instances
+	 * @param table
+	 *            the numbers of instances by value codes and class codes of
+	 *            the attribute
+	 * @param numClasses
+	 *            the number of classes
+	 * @param c
+	 *            the number of instances
+	 * @return the gain of the attribute
+	 */
+	static double gain(double e, int[][] table, int numClasses, int c) {
+
+		double information = 0;
+		for (int[] counts : table) {
+			information += information(counts, numClasses, counts[numClasses]);
+		}
+		return e - information / c;
+	}
+
+	/**
+	 * Partitions the instances from the given start to the given end of m_Rows
+	 * by the values of the given attribute, or by the sides of the given
+	 * threshold of a numeric attribute. The instances of each value keep
+	 * their order, instances without value are put at the end. The sorted
+	 * indexes of numeric attributes are partitioned in the same way.
+	 * 
+	 * @param attributeIndex
+	 *            the given index of attribute
+	 * @param threshold
+	 *            the threshold of a numeric attribute, NaN for the others
+	 * @param from
+	 *            the start of the instances
+	 * @param to
+	 *            the end of the instances
+	 * @return the bounds of the instances by value codes, the instances of
+	 *         code i are from bounds[i] to bounds[i + 1]
+	 */
+	private int[] partition(int attributeIndex, double threshold, int from,
+			int to) {
+
+		boolean numeric = isNumeric(attributeIndex);
+		int numValues = numeric ? 2 : m_Orders[attributeIndex].length;
+		IntBuffer codes = numeric ? null : m_Trainset
+				.getNominalColumn(attributeIndex);
+		DoubleBuffer values = numeric ? m_Trainset
+				.getNumericColumn(attributeIndex) : null;
+		byte[] bins = numeric && m_Bins != null ? m_Bins[attributeIndex]
+				: null;
+		// the threshold is the upper bound of this bin.
+		int last = bins != null ? bin(m_Cuts[attributeIndex], threshold) : 0;
+		int[] bounds = new int[numValues + 2];
+		for (int i = from; i < to; i++) {
+			int row = m_Rows[i];
+			int v;
+			if (bins != null) {
+				int b = bins[row] & 0xFF;
+				v = b == MISSING ? numValues : b <= last ? 0 : 1;
+			} else if (numeric) {
+				double value = values.get(row);
+				v = Double.isNaN(value) ? numValues : value <= threshold ? 0
+						: 1;
+			} else {
+				v = codes.get(row);
+				if (v < 0)
+					v = numValues;
+			}
+			m_Codes[row] = v;
+			bounds[v + 1]++;
+		}
+		bounds[0] = from;
+		for (int i = 1; i < bounds.length; i++) {
+			bounds[i] += bounds[i - 1];
+		}
+		scatter(m_Rows, bounds, from, to);
+		if (m_Sorted != null) {
+			for (int[] sorted : m_Sorted) {
+				if (sorted != null)
+					scatter(sorted, bounds, from, to);
+			}
+		}
+		return bounds;
+	}
+
+	/**
+	 * Moves the given indexes from the given start to the given end to the
+	 * bounds of their codes in m_Codes, keeping their order.
+	 * 
+	 * @param rows
+	 *            the given indexes
+	 * @param bounds
+	 *            the bounds of the indexes by codes
+	 * @param from
+	 *            the given start
+	 * @param to
+	 *            the given end
+	 */
+	private void scatter(int[] rows, int[] bounds, int from, int to) {
+
+		int[] next = Arrays.copyOf(bounds, bounds.length - 1);
+		System.arraycopy(rows, from, m_Buffer, from, to - from);
+		for (int i = from; i < to; i++) {
+			int row = m_Buffer[i];
+			rows[next[m_Codes[row]]++] = row;
+		}
+	}
+
+	/**
+	 * Shows the decision tree at the given node into the given string
+	 * builder. Children are shown in the order of the value map of the
+	 * attribute, stably sorted by their numbers of children, where a leaf
+	 * counts as one. The nodes are walked depth first with a stack of their
+	 * own, so a deep tree does not overflow the thread stack.
+	 * 
+	 * @param sb
+	 *            the given string builder
+	 * @param node
+	 *            the given node
+	 * @param deep
+	 *            the depth of the node
+	 */
+	private void showTree(StringBuilder sb, int node, int deep) {
+
+		// the nodes to show with their depths, the next one on the top.
+		ArrayDeque<int[]> stack = new ArrayDeque<int[]>();
+		stack.push(new int[] { node, deep });
+		while (!stack.isEmpty()) {
+			int[] entry = stack.pop();
+			node = entry[0];
+			deep = entry[1];
+			int parent = m_Tree.getParent(node);
+			if (parent != Tree.NONE) {
+				for (int i = 1; i < deep; i++)
+					sb.append("|  ");
+				Attribute a = m_Trainset.getAttributes().get(
+						m_Tree.getAttribute(parent));
+				double threshold = m_Tree.getThreshold(parent);
+				if (Double.isNaN(threshold))
+					sb.append(a.getName() + " = "
+							+ a.getValue(m_Tree.getValue(node)) + "\n");
+				else
+					sb.append(a.getName()
+							+ (m_Tree.getValue(node) == 0 ? " <= " : " > ")
+							+ threshold + "\n");
+			}
+			if (m_Tree.isLeaf(node)) {
+				if (parent != Tree.NONE)
 					sb.deleteCharAt(sb.length() - 1);
-				sb.append(": " + infoIds.get(i).getKey() + "\n");
-				return sb.toString();
+				sb.append(": "
+						+ m_Trainset.getAttributes()
+								.get(m_Trainset.numAttributes() - 1)
+								.getValue(m_Tree.getClassCode(node)) + "\n");
+				continue;
+			}
+			if (m_Tree.numChildren(node) == 0)
+				continue;
+			List<Integer> children = new ArrayList<Integer>();
+			if (!Double.isNaN(m_Tree.getThreshold(node))) {
+				children.add(m_Tree.getChild(node, 0));
+				children.add(m_Tree.getChild(node, 1));
+			} else {
+				for (int code : m_Orders[m_Tree.getAttribute(node)]) {
+					children.add(m_Tree.getChild(node, code));
+				}
+			}
+			Collections.sort(children, new Comparator<Integer>() {
+				public int compare(Integer o1, Integer o2) {
+					return numShown(o1) - numShown(o2);
+				}
+			});
+			// the first child is shown first.
+			for (int i = children.size() - 1; i >= 0; i--) {
+				stack.push(new int[] { children.get(i), deep + 1 });
 			}
-			sb.append(showTree(infoIds.get(i).getValue()));
 		}
-		return sb.toString();
+	}
+
+	/**
+	 * Gets the number of entries the given node is sorted by when shown.
+	 * 
+	 * @param node
+	 *            the given node
+	 * @return 1 for a leaf, the number of children otherwise
+	 */
+	private int numShown(int node) {
+
+		return m_Tree.isLeaf(node) ? 1 : m_Tree.numChildren(node);
 	}
 
 	/**
@@ -330,6 +1714,8 @@ public class Train {
 	 */
 	public String toString() {
 
-		return showTree(0);
+		StringBuilder sb = new StringBuilder();
+		showTree(sb, 0, 0);
+		return sb.toString();
 	}
 }
@@ -0,0 +1,560 @@
+/*
+ *    Tree.java
+ *    Copyright (C) 2016 NanChang University, JiangXi, China
+ *
+ */
+
+package cn.myluo.datamining.algorithm.ID3;
+
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+/**
+ * The decision tree of ID3 algorithm.
+ * 
+ * Nodes are indexes into arrays of ints. The root is node 0, and the children
+ * of a node are contiguous and ordered by the value codes of its attribute,
+ * so the child with a value code is found without searching. A node split by
+ * a numeric attribute has a threshold and two children, the first for values
+ * not greater than the threshold. A leaf has no attribute and keeps the code
+ * of its class; a node whose instances can not be split further has neither.
+ * 
+ * @author Luo Mingyuan
+ * @version 1612
+ */
+public class Tree implements Classifier {
+
+	/** the attribute or class of a node which has none. */
+	public static final int NONE = -1;
+
+	/** the initial number of nodes. */
+	private static final int INITIAL_CAPACITY = 16;
+
+	/** the number of nodes. */
+	private int m_NumNodes;
+
+	/** the indexes of parents by nodes. */
+	private int[] m_Parents;
+
+	/** the value codes of the parent's attribute by nodes. */
+	private int[] m_Values;
+
+	/** the indexes of attributes by nodes. */
+	private int[] m_Attributes;
+
+	/** the indexes of first children by nodes. */
+	private int[] m_FirstChildren;
+
+	/** the numbers of children by nodes. */
+	private int[] m_NumChildren;
+
+	/** the class codes of leaves by nodes. */
+	private int[] m_Classes;
+
+	/** the thresholds of numeric attributes by nodes, NaN for the others. */
+	private double[] m_Thresholds;
+
+	/**
+	 * Creates a tree with a root node.
+	 */
+	Tree() {
+
+		m_Parents = new int[INITIAL_CAPACITY];
+		m_Values = new int[INITIAL_CAPACITY];
+		m_Attributes = new int[INITIAL_CAPACITY];
+		m_FirstChildren = new int[INITIAL_CAPACITY];
+		m_NumChildren = new int[INITIAL_CAPACITY];
+		m_Classes = new int[INITIAL_CAPACITY];
+		m_Thresholds = new double[INITIAL_CAPACITY];
+		addNode(NONE, NONE);
+	}
+
+	/**
+	 * Creates a tree with the given nodes, the parents and value codes of the
+	 * nodes are found from their children.
+	 * 
+	 * @param attributes
+	 *            the indexes of attributes by nodes
+	 * @param firstChildren
+	 *            the indexes of first children by nodes
+	 * @param numChildren
+	 *            the numbers of children by nodes
+	 * @param classes
+	 *            the class codes of leaves by nodes
+	 * @param thresholds
+	 *            the thresholds of numeric attributes by nodes, null if there
+	 *            is no numeric attribute
+	 * @throws IllegalArgumentException
+	 *             if the nodes are not a tree whose children follow their
+	 *             parents
+	 */
+	Tree(int[] attributes, int[] firstChildren, int[] numChildren,
+			int[] classes, double[] thresholds) {
+
+		m_NumNodes = attributes.length;
+		if (m_NumNodes == 0)
+			throw new IllegalArgumentException("No root");
+		m_Attributes = attributes;
+		m_FirstChildren = firstChildren;
+		m_NumChildren = numChildren;
+		m_Classes = classes;
+		if (thresholds == null) {
+			thresholds = new double[m_NumNodes];
+			Arrays.fill(thresholds, Double.NaN);
+		}
+		m_Thresholds = thresholds;
+		m_Parents = new int[m_NumNodes];
+		m_Values = new int[m_NumNodes];
+		Arrays.fill(m_Parents, NONE);
+		m_Values[0] = NONE;
+		for (int node = 0; node < m_NumNodes; node++) {
+			int first = firstChildren[node];
+			int n = numChildren[node];
+			if (n == 0)
+				continue;
+			if (n < 0 || first <= node || first > m_NumNodes - n)
+				throw new IllegalArgumentException("Bad children of node "
+						+ node);
+			for (int i = 0; i < n; i++) {
+				if (m_Parents[first + i] != NONE)
+					throw new IllegalArgumentException("Node " + (first + i)
+							+ " has two parents");
+				m_Parents[first + i] = node;
+				m_Values[first + i] = i;
+			}
+		}
+		for (int node = 1; node < m_NumNodes; node++) {
+			if (m_Parents[node] == NONE)
+				throw new IllegalArgumentException("Node " + node
+						+ " has no parent");
+		}
+	}
+
+	/**
+	 * Gets the number of nodes.
+	 * 
+	 * @return the number of nodes
+	 */
+	public int numNodes() {
+
+		return m_NumNodes;
+	}
+
+	/**
+	 * Gets the parent of the given node.
+	 * 
+	 * @param node
+	 *            the given node
+	 * @return the index of the parent, NONE for the root
+	 */
+	public int getParent(int node) {
+
+		return m_Parents[node];
+	}
+
+	/**
+	 * Gets the value code of the parent's attribute of the given node.
+	 * 
+	 * @param node
+	 *            the given node
+	 * @return the value code, NONE for the root
+	 */
+	public int getValue(int node) {
+
+		return m_Values[node];
+	}
+
+	/**
+	 * Gets the attribute of the given node.
+	 * 
+	 * @param node
+	 *            the given node
+	 * @return the index of the attribute, NONE if the node is not split
+	 */
+	public int getAttribute(int node) {
+
+		return m_Attributes[node];
+	}
+
+	/**
+	 * Gets the threshold of the numeric attribute of the given node.
+	 * 
+	 * @param node
+	 *            the given node
+	 * @return the threshold, NaN if the attribute is not numeric
+	 */
+	public double getThreshold(int node) {
+
+		return m_Thresholds[node];
+	}
+
+	/**
+	 * Gets the first child of the given node.
+	 * 
+	 * @param node
+	 *            the given node
+	 * @return the index of the first child
+	 */
+	public int getFirstChild(int node) {
+
+		return m_FirstChildren[node];
+	}
+
+	/**
+	 * Gets the number of children of the given node.
+	 * 
+	 * @param node
+	 *            the given node
+	 * @return the number of children
+	 */
+	public int numChildren(int node) {
+
+		return m_NumChildren[node];
+	}
+
+	/**
+	 * Gets the child of the given node with the given value code.
+	 * 
+	 * @param node
+	 *            the given node
+	 * @param code
+	 *            the value code of the attribute of the node, 0 or 1 for the
+	 *            sides of a threshold
+	 * @return the index of the child, NONE if there is no such child
+	 */
+	public int getChild(int node, int code) {
+
+		if (code < 0 || code >= m_NumChildren[node])
+			return NONE;
+		return m_FirstChildren[node] + code;
+	}
+
+	/**
+	 * Gets the class code of the given leaf.
+	 * 
+	 * @param node
+	 *            the given node
+	 * @return the class code, NONE if the node is not a leaf
+	 */
+	public int getClassCode(int node) {
+
+		return m_Classes[node];
+	}
+
+	/**
+	 * Checks if the given node is a leaf.
+	 * 
+	 * @param node
+	 *            the given node
+	 * @return true if the node has a class, false otherwise.
+	 */
+	public boolean isLeaf(int node) {
+
+		return m_Classes[node] != NONE;
+	}
+
+	/**
+	 * Classifies an instance with the given value codes, an instance reaching
+	 * a numeric attribute has no class.
+	 * 
+	 * @param codes
+	 *            the value codes of the instance by attributes, negative if
+	 *            the value is missing or unknown
+	 * @return the class code, NONE if the tree has no class for the instance
+	 */
+	public int classify(int[] codes) {
+
+		return classify(codes, null);
+	}
+
+	/**
+	 * Classifies an instance with the given value codes and numeric values.
+	 * 
+	 * @param codes
+	 *            the value codes of the instance by attributes, negative if
+	 *            the value is missing or unknown
+	 * @param values
+	 *            the values of the instance by attributes, NaN if the value is
+	 *            missing, null if there is no numeric value
+	 * @return the class code, NONE if the tree has no class for the instance
+	 */
+	public int classify(int[] codes, double[] values) {
+
+		int node = 0;
+		while (m_Classes[node] == NONE) {
+			int attribute = m_Attributes[node];
+			if (attribute == NONE)
+				return NONE;
+			int code;
+			double threshold = m_Thresholds[node];
+			if (threshold != threshold) {
+				code = codes[attribute];
+			} else {
+				if (values == null || values[attribute] != values[attribute])
+					return NONE;
+				code = values[attribute] <= threshold ? 0 : 1;
+			}
+			if (code < 0 || code >= m_NumChildren[node])
+				return NONE;
+			node = m_FirstChildren[node] + code;
+		}
+		return m_Classes[node];
+	}
+
+	/**
+	 * Classifies the given row of the given columns. The columns of numeric
+	 * attributes are expected to have no codes, so an instance reaching a
+	 * numeric attribute has no class.
+	 * 
+	 * @param columns
+	 *            the value codes by attributes of the tree
+	 * @param maps
+	 *            the maps from the codes of the columns to the codes of the
+	 *            tree by attributes
+	 * @param row
+	 *            the given row
+	 * @return the class code, NONE if the tree has no class for the row
+	 */
+	public int classify(IntBuffer[] columns, int[][] maps, int row) {
+
+		int node = 0;
+		while (m_Classes[node] == NONE) {
+			int attribute = m_Attributes[node];
+			if (attribute == NONE)
+				return NONE;
+			int code = columns[attribute].get(row);
+			if (code < 0 || code >= maps[attribute].length)
+				return NONE;
+			code = maps[attribute][code];
+			if (code < 0 || code >= m_NumChildren[node])
+				return NONE;
+			node = m_FirstChildren[node] + code;
+		}
+		return m_Classes[node];
+	}
+
+	/**
+	 * Classifies the given row of the given columns and numeric columns.
+	 * 
+	 * @param columns
+	 *            the value codes by attributes of the tree
+	 * @param maps
+	 *            the maps from the codes of the columns to the codes of the
+	 *            tree by attributes
+	 * @param numbers
+	 *            the values by numeric attributes of the tree, NaN if a value
+	 *            is missing
+	 * @param row
+	 *            the given row
+	 * @return the class code, NONE if the tree has no class for the row
+	 */
+	public int classify(IntBuffer[] columns, int[][] maps,
+			DoubleBuffer[] numbers, int row) {
+
+		int node = 0;
+		while (m_Classes[node] == NONE) {
+			int attribute = m_Attributes[node];
+			if (attribute == NONE)
+				return NONE;
+			int code;
+			double threshold = m_Thresholds[node];
+			if (threshold != threshold) {
+				code = columns[attribute].get(row);
+				if (code < 0 || code >= maps[attribute].length)
+					return NONE;
+				code = maps[attribute][code];
+			} else {
+				double value = numbers[attribute].get(row);
+				if (value != value)
+					return NONE;
+				code = value <= threshold ? 0 : 1;
+			}
+			if (code < 0 || code >= m_NumChildren[node])
+				return NONE;
+			node = m_FirstChildren[node] + code;
+		}
+		return m_Classes[node];
+	}
+
+	/**
+	 * Checks if a node of this tree is split by a numeric attribute.
+	 * 
+	 * @return true if a node has a threshold, false otherwise.
+	 */
+	public boolean hasThresholds() {
+
+		for (int node = 0; node < m_NumNodes; node++) {
+			if (!Double.isNaN(m_Thresholds[node]))
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Compiles this tree into a class. Trees with numeric attributes are not
+	 * compiled.
+	 * 
+	 * @return the compiled classifier, this tree if it is too big to compile
+	 *         or has numeric attributes
+	 */
+	public Classifier compile() {
+
+		if (hasThresholds())
+			return this;
+		Classifier classifier = TreeCompiler.compile(this);
+		return classifier == null ? this : classifier;
+	}
+
+	/**
+	 * Sets the given node as a leaf with the given class code.
+	 * 
+	 * @param node
+	 *            the given node
+	 * @param classCode
+	 *            the given class code
+	 */
+	void setLeaf(int node, int classCode) {
+
+		m_Classes[node] = classCode;
+	}
+
+	/**
+	 * Splits the given node by the given attribute, a child is added for each
+	 * value code of the attribute.
+	 * 
+	 * @param node
+	 *            the given node
+	 * @param attribute
+	 *            the index of the given attribute
+	 * @param numValues
+	 *            the number of values of the attribute
+	 * @return the index of the first child
+	 */
+	int split(int node, int attribute, int numValues) {
+
+		m_Attributes[node] = attribute;
+		m_FirstChildren[node] = m_NumNodes;
+		m_NumChildren[node] = numValues;
+		for (int i = 0; i < numValues; i++) {
+			addNode(node, i);
+		}
+		return m_FirstChildren[node];
+	}
+
+	/**
+	 * Splits the given node by the given numeric attribute at the given
+	 * threshold, two children are added for the values not greater than the
+	 * threshold and the others.
+	 * 
+	 * @param node
+	 *            the given node
+	 * @param attribute
+	 *            the index of the given attribute
+	 * @param threshold
+	 *            the given threshold
+	 * @return the index of the first child
+	 */
+	int split(int node, int attribute, double threshold) {
+
+		int first = split(node, attribute, 2);
+		m_Thresholds[node] = threshold;
+		return first;
+	}
+
+	/**
+	 * Replaces the given node with the root of the given subtree, the other
+	 * nodes of the subtree are added at the end of this tree.
+	 * 
+	 * @param node
+	 *            the given node
+	 * @param subtree
+	 *            the given subtree
+	 */
+	void graft(int node, Tree subtree) {
+
+		// node i > 0 of the subtree becomes node offset + i.
+		int offset = m_NumNodes - 1;
+		ensureCapacity(m_NumNodes + subtree.m_NumNodes - 1);
+		for (int i = 0; i < subtree.m_NumNodes; i++) {
+			int index = i == 0 ? node : offset + i;
+			if (i > 0) {
+				m_Parents[index] = subtree.m_Parents[i] == 0 ? node
+						: offset + subtree.m_Parents[i];
+				m_Values[index] = subtree.m_Values[i];
+			}
+			m_Attributes[index] = subtree.m_Attributes[i];
+			m_FirstChildren[index] = subtree.m_NumChildren[i] > 0 ? offset
+					+ subtree.m_FirstChildren[i] : 0;
+			m_NumChildren[index] = subtree.m_NumChildren[i];
+			m_Classes[index] = subtree.m_Classes[i];
+			m_Thresholds[index] = subtree.m_Thresholds[i];
+		}
+		m_NumNodes += subtree.m_NumNodes - 1;
+	}
+
+	/**
+	 * Adds a node with the given parent and value code.
+	 * 
+	 * @param parent
+	 *            the index of the parent
+	 * @param value
+	 *            the value code of the parent's attribute
+	 */
+	private void addNode(int parent, int value) {
+
+		ensureCapacity(m_NumNodes + 1);
+		m_Parents[m_NumNodes] = parent;
+		m_Values[m_NumNodes] = value;
+		m_Attributes[m_NumNodes] = NONE;
+		m_FirstChildren[m_NumNodes] = 0;
+		m_NumChildren[m_NumNodes] = 0;
+		m_Classes[m_NumNodes] = NONE;
+		m_Thresholds[m_NumNodes] = Double.NaN;
+		m_NumNodes++;
+	}
+
+	/**
+	 * Grows the arrays to hold the given number of nodes.
+	 * 
+	 * @param capacity
+	 *            the given number of nodes
+	 */
+	private void ensureCapacity(int capacity) {
+
+		if (capacity <= m_Parents.length)
+			return;
+		int newCapacity = Math.max(capacity, m_Parents.length * 2);
+		m_Parents = Arrays.copyOf(m_Parents, newCapacity);
+		m_Values = Arrays.copyOf(m_Values, newCapacity);
+		m_Attributes = Arrays.copyOf(m_Attributes, newCapacity);
+		m_FirstChildren = Arrays.copyOf(m_FirstChildren, newCapacity);
+		m_NumChildren = Arrays.copyOf(m_NumChildren, newCapacity);
+		m_Classes = Arrays.copyOf(m_Classes, newCapacity);
+		m_Thresholds = Arrays.copyOf(m_Thresholds, newCapacity);
+	}
+
+	/**
+	 * Frees the unused capacity of the arrays.
+	 */
+	void trimToSize() {
+
+		m_Parents = Arrays.copyOf(m_Parents, m_NumNodes);
+		m_Values = Arrays.copyOf(m_Values, m_NumNodes);
+		m_Attributes = Arrays.copyOf(m_Attributes, m_NumNodes);
+		m_FirstChildren = Arrays.copyOf(m_FirstChildren, m_NumNodes);
+		m_NumChildren = Arrays.copyOf(m_NumChildren, m_NumNodes);
+		m_Classes = Arrays.copyOf(m_Classes, m_NumNodes);
+		m_Thresholds = Arrays.copyOf(m_Thresholds, m_NumNodes);
+	}
+
+	/**
+	 * Returns a description of this tree.
+	 * 
+	 * @return a description of this tree as a string
+	 */
+	public String toString() {
+
+		return "Tree {" + m_NumNodes + " nodes}";
+	}
+}
@@ -0,0 +1,716 @@
+/*
+ *    TreeCompiler.java
+ *    Copyright (C) 2016 NanChang University, JiangXi, China
+ *
+ */
+
+package cn.myluo.datamining.algorithm.ID3;
+
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Compiles a decision tree into a class which implements Classifier.
+ * 
+ * Each split becomes a tableswitch on the mapped value code, and each leaf
+ * returns its class code, so the tree is classified by straight-line code
+ * which the JIT compiles like a hand-written method. A method is kept under
+ * the size that the JIT compiles, the largest subtrees are moved into static
+ * methods of their own until it fits. The class file has version 49, which is
+ * verified without stack maps, and is defined by its own class loader so that
+ * it is unloaded with the classifier.
+ * 
+ * @author Luo Mingyuan
+ * @version 1612
+ */
+final class TreeCompiler {
+
+	/** The largest method the JIT compiles, see -XX:HugeMethodLimit. */
+	private static final int MAX_METHOD_SIZE = 8000;
+
+	/** The largest number of constants in a class file. */
+	private static final int MAX_CONSTANTS = 65535;
+
+	/** The size of code which calls the method of a subtree. */
+	private static final int CALL_SIZE = 7;
+
+	/** The size of code which returns NONE. */
+	private static final int NONE_SIZE = 2;
+
+	/** The name of the classify methods. */
+	private static final String CLASSIFY = "classify";
+
+	/** The descriptor of the classify methods. */
+	private static final String DESCRIPTOR = "([Ljava/nio/IntBuffer;[[II)I";
+
+	/** The number of compiled classes, used to name them. */
+	private static int m_NumClasses;
+
+	/** The tree. */
+	private Tree m_Tree;
+
+	/** The code sizes of nodes with their subtrees. */
+	private int[] m_Sizes;
+
+	/** Whether a node has a method of its own by nodes. */
+	private boolean[] m_Methods;
+
+	/** The number of nodes which have methods of their own. */
+	private int m_NumMethods;
+
+	/** The name of the class. */
+	private String m_Name;
+
+	/** The constant pool. */
+	private Bytes m_Pool;
+
+	/** The indexes of constants in the pool by their keys. */
+	private Map<String, Integer> m_Constants;
+
+	/** The code of the current method. */
+	private Bytes m_Code;
+
+	/** The positions of the branches to NONE in the current method. */
+	private int[] m_Branches;
+
+	/** The number of branches to NONE in the current method. */
+	private int m_NumBranches;
+
+	/** The positions of the switches in the current method. */
+	private int[] m_Switches;
+
+	/** The number of switches in the current method. */
+	private int m_NumSwitches;
+
+	/**
+	 * Creates a compiler with the given tree.
+	 * 
+	 * @param tree
+	 *            the given tree
+	 */
+	private TreeCompiler(Tree tree) {
+
+		this.m_Tree = tree;
+		m_Sizes = new int[tree.numNodes()];
+		m_Methods = new boolean[tree.numNodes()];
+		m_Pool = new Bytes();
+		m_Constants = new HashMap<String, Integer>();
+		m_Branches = new int[16];
+		m_Switches = new int[16];
+	}
+
+	/**
+	 * Compiles the given tree.
+	 * 
+	 * @param tree
+	 *            the given tree
+	 * @return the compiled classifier, null if the tree is too big to compile
+	 */
+	static Classifier compile(Tree tree) {
+
+		TreeCompiler compiler = new TreeCompiler(tree);
+		if (!compiler.layout())
+			return null;
+		byte[] bytes = compiler.toClassFile();
+		if (bytes == null)
+			return null;
+		try {
+			Class<?> c = new Loader().define(compiler.m_Name, bytes);
+			return (Classifier) c.getDeclaredConstructor().newInstance();
+		} catch (ReflectiveOperationException e) {
+			e.printStackTrace();
+			return null;
+		} catch (LinkageError e) {
+			e.printStackTrace();
+			return null;
+		}
+	}
+
+	/**
+	 * Computes the code sizes of nodes from the leaves to the root, and gives
+	 * the largest children of a node methods of their own while the code of
+	 * the node is too big.
+	 * 
+	 * @return true if every method fits, false otherwise.
+	 */
+	private boolean layout() {
+
+		m_Methods[0] = true;
+		m_NumMethods = 1;
+		// children always follow their parents.
+		for (int node = m_Tree.numNodes() - 1; node >= 0; node--) {
+			int size = ownSize(node);
+			int first = m_Tree.getFirstChild(node);
+			int n = m_Tree.getAttribute(node) == Tree.NONE ? 0 : m_Tree
+					.numChildren(node);
+			for (int i = 0; i < n; i++) {
+				size += m_Sizes[first + i];
+			}
+			while (size + NONE_SIZE > MAX_METHOD_SIZE) {
+				int largest = -1;
+				for (int i = 0; i < n; i++) {
+					if (!m_Methods[first + i]
+							&& m_Sizes[first + i] > CALL_SIZE
+							&& (largest < 0 || m_Sizes[first + i] > m_Sizes[largest]))
+						largest = first + i;
+				}
+				if (largest < 0)
+					return false;
+				size += CALL_SIZE - m_Sizes[largest];
+				m_Methods[largest] = true;
+				m_NumMethods++;
+			}
+			m_Sizes[node] = size;
+		}
+		// a name, a name and type and a method reference by methods.
+		return 3 * m_NumMethods + 32 < MAX_CONSTANTS;
+	}
+
+	/**
+	 * Gets the size of the code of the given node without its children.
+	 * 
+	 * @param node
+	 *            the given node
+	 * @return the size of the code, the padding of a switch is counted as
+	 *         its largest
+	 */
+	private int ownSize(int node) {
+
+		if (m_Tree.isLeaf(node))
+			return pushSize(m_Tree.getClassCode(node)) + 1;
+		int attribute = m_Tree.getAttribute(node);
+		if (attribute == Tree.NONE)
+			return NONE_SIZE;
+		return 2 * pushSize(attribute) + 43 + 4 * m_Tree.numChildren(node);
+	}
+
+	/**
+	 * Creates the class file.
+	 * 
+	 * @return the class file as bytes, null if the constant pool overflows
+	 */
+	private byte[] toClassFile() {
+
+		synchronized (TreeCompiler.class) {
+			m_Name = TreeCompiler.class.getPackage().getName() + ".Compiled"
+					+ m_NumClasses++;
+		}
+		String name = m_Name.replace('.', '/');
+		int thisClass = classConstant(name);
+		int superClass = classConstant("java/lang/Object");
+		int classifier = classConstant(Classifier.class.getName().replace(
+				'.', '/'));
+		int code = utf8Constant("Code");
+
+		Bytes methods = new Bytes();
+		methods.u2(2 + m_NumMethods);
+
+		// the constructor.
+		m_Code = new Bytes();
+		m_Code.u1(0x2a); // aload_0
+		m_Code.u1(0xb7); // invokespecial
+		m_Code.u2(methodConstant("java/lang/Object", "<init>", "()V"));
+		m_Code.u1(0xb1); // return
+		method(methods, 0x0001, "<init>", "()V", code, 1, 1);
+
+		// the interface method calls the method of the root.
+		m_Code = new Bytes();
+		m_Code.u1(0x2b); // aload_1
+		m_Code.u1(0x2c); // aload_2
+		m_Code.u1(0x1d); // iload_3
+		m_Code.u1(0xb8); // invokestatic
+		m_Code.u2(methodConstant(name, "n0", DESCRIPTOR));
+		m_Code.u1(0xac); // ireturn
+		method(methods, 0x0001, CLASSIFY, DESCRIPTOR, code, 3, 4);
+
+		for (int node = 0; node < m_Methods.length; node++) {
+			if (!m_Methods[node])
+				continue;
+			m_Code = new Bytes();
+			m_NumBranches = 0;
+			m_NumSwitches = 0;
+			emit(name, node);
+			// the branches to NONE jump here.
+			int none = m_Code.size();
+			m_Code.u1(0x02); // iconst_m1
+			m_Code.u1(0xac); // ireturn
+			for (int i = 0; i < m_NumBranches; i++) {
+				m_Code.patch2(m_Branches[i] + 1, none - m_Branches[i]);
+			}
+			for (int i = 0; i < m_NumSwitches; i++) {
+				// the default follows the padding after the opcode.
+				m_Code.patch4((m_Switches[i] + 4) & ~3, none - m_Switches[i]);
+			}
+			// private static.
+			method(methods, 0x000a, "n" + node, DESCRIPTOR, code, 3, 5);
+		}
+		if (m_Constants.size() + 1 >= MAX_CONSTANTS)
+			return null;
+
+		Bytes file = new Bytes();
+		file.u4(0xcafebabe);
+		file.u2(0);
+		file.u2(49);
+		file.u2(m_Constants.size() + 1);
+		file.append(m_Pool);
+		file.u2(0x0031); // public final super
+		file.u2(thisClass);
+		file.u2(superClass);
+		file.u2(1);
+		file.u2(classifier);
+		file.u2(0);
+		file.append(methods);
+		file.u2(0);
+		return file.toArray();
+	}
+
+	/**
+	 * Emits the code of the given node and its children which have no methods
+	 * of their own. The locals are the columns, the maps, the row, the value
+	 * code and the map of the attribute.
+	 * 
+	 * @param name
+	 *            the internal name of the class
+	 * @param node
+	 *            the given node
+	 */
+	private void emit(String name, int node) {
+
+		if (m_Tree.isLeaf(node)) {
+			push(m_Tree.getClassCode(node));
+			m_Code.u1(0xac); // ireturn
+			return;
+		}
+		int attribute = m_Tree.getAttribute(node);
+		if (attribute == Tree.NONE) {
+			m_Code.u1(0x02); // iconst_m1
+			m_Code.u1(0xac); // ireturn
+			return;
+		}
+
+		// code = columns[attribute].get(row)
+		m_Code.u1(0x2a); // aload_0
+		push(attribute);
+		m_Code.u1(0x32); // aaload
+		m_Code.u1(0x1c); // iload_2
+		m_Code.u1(0xb6); // invokevirtual
+		m_Code.u2(methodConstant("java/nio/IntBuffer", "get", "(I)I"));
+		m_Code.u1(0x3e); // istore_3
+		m_Code.u1(0x1d); // iload_3
+		branch(0x9b); // iflt
+
+		// code = maps[attribute][code] if code < maps[attribute].length
+		m_Code.u1(0x2b); // aload_1
+		push(attribute);
+		m_Code.u1(0x32); // aaload
+		m_Code.u1(0x3a); // astore
+		m_Code.u1(4);
+		m_Code.u1(0x1d); // iload_3
+		m_Code.u1(0x19); // aload
+		m_Code.u1(4);
+		m_Code.u1(0xbe); // arraylength
+		branch(0xa2); // if_icmpge
+		m_Code.u1(0x19); // aload
+		m_Code.u1(4);
+		m_Code.u1(0x1d); // iload_3
+		m_Code.u1(0x2e); // iaload
+
+		int n = m_Tree.numChildren(node);
+		int start = m_Code.size();
+		if (m_NumSwitches == m_Switches.length)
+			m_Switches = Arrays.copyOf(m_Switches, m_NumSwitches * 2);
+		m_Switches[m_NumSwitches++] = start;
+		m_Code.u1(0xaa); // tableswitch
+		while (m_Code.size() % 4 != 0) {
+			m_Code.u1(0);
+		}
+		int table = m_Code.size();
+		// the default jumps to NONE, it is patched at the end.
+		m_Code.u4(0);
+		m_Code.u4(0);
+		m_Code.u4(n - 1);
+		for (int i = 0; i < n; i++) {
+			m_Code.u4(0);
+		}
+
+		int first = m_Tree.getFirstChild(node);
+		for (int i = 0; i < n; i++) {
+			m_Code.patch4(table + 12 + 4 * i, m_Code.size() - start);
+			int child = first + i;
+			if (m_Methods[child]) {
+				m_Code.u1(0x2a); // aload_0
+				m_Code.u1(0x2b); // aload_1
+				m_Code.u1(0x1c); // iload_2
+				m_Code.u1(0xb8); // invokestatic
+				m_Code.u2(methodConstant(name, "n" + child, DESCRIPTOR));
+				m_Code.u1(0xac); // ireturn
+			} else {
+				emit(name, child);
+			}
+		}
+	}
+
+	/**
+	 * Emits a branch to NONE with the given opcode.
+	 * 
+	 * @param opcode
+	 *            the given opcode
+	 */
+	private void branch(int opcode) {
+
+		if (m_NumBranches == m_Branches.length)
+			m_Branches = Arrays.copyOf(m_Branches, m_NumBranches * 2);
+		m_Branches[m_NumBranches++] = m_Code.size();
+		m_Code.u1(opcode);
+		m_Code.u2(0);
+	}
+
+	/**
+	 * Emits the code which pushes the given int.
+	 * 
+	 * @param value
+	 *            the given int
+	 */
+	private void push(int value) {
+
+		if (value >= -1 && value <= 5) {
+			m_Code.u1(0x03 + value); // iconst
+		} else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+			m_Code.u1(0x10); // bipush
+			m_Code.u1(value);
+		} else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+			m_Code.u1(0x11); // sipush
+			m_Code.u2(value);
+		} else {
+			m_Code.u1(0x13); // ldc_w
+			m_Code.u2(intConstant(value));
+		}
+	}
+
+	/**
+	 * Gets the size of the code which pushes the given int.
+	 * 
+	 * @param value
+	 *            the given int
+	 * @return the size of the code
+	 */
+	private static int pushSize(int value) {
+
+		if (value >= -1 && value <= 5)
+			return 1;
+		if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE)
+			return 2;
+		return 3;
+	}
+
+	/**
+	 * Adds a method with the current code.
+	 * 
+	 * @param methods
+	 *            the methods of the class
+	 * @param access
+	 *            the access flags
+	 * @param name
+	 *            the name of the method
+	 * @param descriptor
+	 *            the descriptor of the method
+	 * @param code
+	 *            the index of the name of the code attribute
+	 * @param maxStack
+	 *            the largest depth of the operand stack
+	 * @param maxLocals
+	 *            the number of locals
+	 */
+	private void method(Bytes methods, int access, String name,
+			String descriptor, int code, int maxStack, int maxLocals) {
+
+		methods.u2(access);
+		methods.u2(utf8Constant(name));
+		methods.u2(utf8Constant(descriptor));
+		methods.u2(1);
+		methods.u2(code);
+		methods.u4(12 + m_Code.size());
+		methods.u2(maxStack);
+		methods.u2(maxLocals);
+		methods.u4(m_Code.size());
+		methods.append(m_Code);
+		methods.u2(0);
+		methods.u2(0);
+	}
+
+	/**
+	 * Gets the index of the given UTF-8 constant, the constant is added if it
+	 * is not in the pool.
+	 * 
+	 * @param value
+	 *            the given string
+	 * @return the index of the constant
+	 */
+	private int utf8Constant(String value) {
+
+		String key = "U" + value;
+		Integer index = m_Constants.get(key);
+		if (index != null)
+			return index;
+		byte[] bytes = value.getBytes(Charset.forName("UTF-8"));
+		m_Pool.u1(1);
+		m_Pool.u2(bytes.length);
+		m_Pool.append(bytes, bytes.length);
+		return add(key);
+	}
+
+	/**
+	 * Gets the index of the given int constant.
+	 * 
+	 * @param value
+	 *            the given int
+	 * @return the index of the constant
+	 */
+	private int intConstant(int value) {
+
+		String key = "I" + value;
+		Integer index = m_Constants.get(key);
+		if (index != null)
+			return index;
+		m_Pool.u1(3);
+		m_Pool.u4(value);
+		return add(key);
+	}
+
+	/**
+	 * Gets the index of the given class constant.
+	 * 
+	 * @param name
+	 *            the internal name of the class
+	 * @return the index of the constant
+	 */
+	private int classConstant(String name) {
+
+		String key = "C" + name;
+		Integer index = m_Constants.get(key);
+		if (index != null)
+			return index;
+		int utf8 = utf8Constant(name);
+		m_Pool.u1(7);
+		m_Pool.u2(utf8);
+		return add(key);
+	}
+
+	/**
+	 * Gets the index of the given name and type constant.
+	 * 
+	 * @param name
+	 *            the name of the member
+	 * @param descriptor
+	 *            the descriptor of the member
+	 * @return the index of the constant
+	 */
+	private int nameAndTypeConstant(String name, String descriptor) {
+
+		String key = "N" + name + descriptor;
+		Integer index = m_Constants.get(key);
+		if (index != null)
+			return index;
+		int n = utf8Constant(name);
+		int d = utf8Constant(descriptor);
+		m_Pool.u1(12);
+		m_Pool.u2(n);
+		m_Pool.u2(d);
+		return add(key);
+	}
+
+	/**
+	 * Gets the index of the given method reference constant.
+	 * 
+	 * @param owner
+	 *            the internal name of the class of the method
+	 * @param name
+	 *            the name of the method
+	 * @param descriptor
+	 *            the descriptor of the method
+	 * @return the index of the constant
+	 */
+	private int methodConstant(String owner, String name, String descriptor) {
+
+		String key = "M" + owner + "." + name + descriptor;
+		Integer index = m_Constants.get(key);
+		if (index != null)
+			return index;
+		int c = classConstant(owner);
+		int nameAndType = nameAndTypeConstant(name, descriptor);
+		m_Pool.u1(10);
+		m_Pool.u2(c);
+		m_Pool.u2(nameAndType);
+		return add(key);
+	}
+
+	/**
+	 * Adds the given key of the constant just written into the pool.
+	 * 
+	 * @param key
+	 *            the given key
+	 * @return the index of the constant
+	 */
+	private int add(String key) {
+
+		int index = m_Constants.size() + 1;
+		m_Constants.put(key, index);
+		return index;
+	}
+
+	/**
+	 * A growable array of bytes in big-endian order.
+	 */
+	private static class Bytes {
+
+		/** The bytes. */
+		private byte[] m_Bytes = new byte[256];
+
+		/** The number of bytes. */
+		private int m_Size;
+
+		/**
+		 * Gets the number of bytes.
+		 * 
+		 * @return the number of bytes
+		 */
+		int size() {
+
+			return m_Size;
+		}
+
+		/**
+		 * Appends a byte.
+		 * 
+		 * @param value
+		 *            the byte as an int
+		 */
+		void u1(int value) {
+
+			if (m_Size == m_Bytes.length)
+				m_Bytes = Arrays.copyOf(m_Bytes, m_Size * 2);
+			m_Bytes[m_Size++] = (byte) value;
+		}
+
+		/**
+		 * Appends two bytes.
+		 * 
+		 * @param value
+		 *            the bytes as an int
+		 */
+		void u2(int value) {
+
+			u1(value >>> 8);
+			u1(value);
+		}
+
+		/**
+		 * Appends four bytes.
+		 * 
+		 * @param value
+		 *            the bytes as an int
+		 */
+		void u4(int value) {
+
+			u2(value >>> 16);
+			u2(value);
+		}
+
+		/**
+		 * Appends the given bytes.
+		 * 
+		 * @param bytes
+		 *            the given bytes
+		 * @param length
+		 *            the number of bytes
+		 */
+		void append(byte[] bytes, int length) {
+
+			if (m_Size + length > m_Bytes.length)
+				m_Bytes = Arrays.copyOf(m_Bytes,
+						Math.max(m_Size + length, m_Bytes.length * 2));
+			System.arraycopy(bytes, 0, m_Bytes, m_Size, length);
+			m_Size += length;
+		}
+
+		/**
+		 * Appends the given bytes.
+		 * 
+		 * @param bytes
+		 *            the given bytes
+		 */
+		void append(Bytes bytes) {
+
+			append(bytes.m_Bytes, bytes.m_Size);
+		}
+
+		/**
+		 * Overwrites two bytes at the given position.
+		 * 
+		 * @param position
+		 *            the given position
+		 * @param value
+		 *            the bytes as an int
+		 */
+		void patch2(int position, int value) {
+
+			m_Bytes[position] = (byte) (value >>> 8);
+			m_Bytes[position + 1] = (byte) value;
+		}
+
+		/**
+		 * Overwrites four bytes at the given position.
+		 * 
+		 * @param position
+		 *            the given position
+		 * @param value
+		 *            the bytes as an int
+		 */
+		void patch4(int position, int value) {
+
+			patch2(position, value >>> 16);
+			patch2(position + 2, value);
+		}
+
+		/**
+		 * Gets a copy of the bytes.
+		 * 
+		 * @return the bytes
+		 */
+		byte[] toArray() {
+
+			return Arrays.copyOf(m_Bytes, m_Size);
+		}
+	}
+
+	/**
+	 * Defines a compiled class, each class has its own loader so that it is
+	 * unloaded with its classifier.
+	 */
+	private static class Loader extends ClassLoader {
+
+		/**
+		 * Creates a loader whose parent loads Classifier.
+		 */
+		Loader() {
+
+			super(Classifier.class.getClassLoader());
+		}
+
+		/**
+		 * Defines the class with the given name and bytes.
+		 * 
+		 * @param name
+		 *            the binary name of the class
+		 * @param bytes
+		 *            the class file
+		 * @return the class
+		 */
+		Class<?> define(String name, byte[] bytes) {
+
+			return defineClass(name, bytes, 0, bytes.length);
+		}
+	}
+}
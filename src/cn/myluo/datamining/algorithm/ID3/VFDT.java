@@ -0,0 +1,529 @@
+/*
+ *    VFDT.java
+ *    Copyright (C) 2016 NanChang University, JiangXi, China
+ *
+ */
+
+package cn.myluo.datamining.algorithm.ID3;
+
+import java.io.File;
+import java.util.Arrays;
+
+import cn.myluo.datamining.data.DataSet;
+import cn.myluo.datamining.util.Reader;
+
+/**
+ * Class for Very Fast Decision Tree (Hoeffding tree) algorithm.
+ * 
+ * Instances are learned one at a time and are not kept. Each leaf keeps the
+ * numbers of its instances by classes, and by values and classes of every
+ * unused attribute. After every grace period of instances at a leaf, the
+ * attributes are scored by the information gain of ID3. The leaf is split by
+ * the best attribute when its gain beats the second best, or not splitting,
+ * by more than the Hoeffding bound, or when the bound is below the tie
+ * threshold. The numbers are then dropped, so the memory of a leaf only
+ * depends on the numbers of attributes, values and classes.
+ * 
+ * The attributes are those of a data set, such as the data set of a reader in
+ * streaming mode, whose values grow as they are read. The last attribute is
+ * the class, and numeric attributes are not used.
+ * 
+ * @author Luo Mingyuan
+ * @version 1612
+ */
+public class VFDT {
+
+	/** the default probability that a split is not the best one. */
+	public static final double DEFAULT_DELTA = 1e-7;
+
+	/** the default bound under which the best attributes are taken as a tie. */
+	public static final double DEFAULT_TIE_THRESHOLD = 0.05;
+
+	/** the default number of instances at a leaf between split attempts. */
+	public static final int DEFAULT_GRACE_PERIOD = 200;
+
+	/** the data set whose attributes encode the instances. */
+	private DataSet m_Dataset;
+
+	/** the probability that a split is not the best one. */
+	private double m_Delta;
+
+	/** the bound under which the best attributes are taken as a tie. */
+	private double m_TieThreshold;
+
+	/** the number of instances at a leaf between split attempts. */
+	private int m_GracePeriod;
+
+	/** the root node. */
+	private Node m_Root;
+
+	/** the number of learned instances. */
+	private long m_NumInstances;
+
+	/** the number of nodes. */
+	private int m_NumNodes;
+
+	/** the decision tree of the nodes, null until it is built. */
+	private Tree m_Tree;
+
+	/**
+	 * Creates a VFDT with the given data set and the default parameters.
+	 * 
+	 * @param dataset
+	 *            the data set whose attributes encode the instances
+	 */
+	public VFDT(DataSet dataset) {
+
+		this(dataset, DEFAULT_DELTA, DEFAULT_TIE_THRESHOLD,
+				DEFAULT_GRACE_PERIOD);
+	}
+
+	/**
+	 * Creates a VFDT with the given data set and parameters.
+	 * 
+	 * @param dataset
+	 *            the data set whose attributes encode the instances
+	 * @param delta
+	 *            the probability that a split is not the best one
+	 * @param tieThreshold
+	 *            the bound under which the best attributes are taken as a tie
+	 * @param gracePeriod
+	 *            the number of instances at a leaf between split attempts
+	 */
+	public VFDT(DataSet dataset, double delta, double tieThreshold,
+			int gracePeriod) {
+
+		this.m_Dataset = dataset;
+		this.m_Delta = delta;
+		this.m_TieThreshold = tieThreshold;
+		this.m_GracePeriod = Math.max(1, gracePeriod);
+		int n = 0;
+		int[] attributeIndexs = new int[dataset.numAttributes() - 1];
+		for (int i = 0; i < attributeIndexs.length; i++) {
+			if (!dataset.getAttributes().get(i).isNumeric())
+				attributeIndexs[n++] = i;
+		}
+		m_Root = new Node(Arrays.copyOf(attributeIndexs, n), Tree.NONE);
+		m_NumNodes = 1;
+	}
+
+	/**
+	 * Gets the number of learned instances.
+	 * 
+	 * @return the number of learned instances
+	 */
+	public long numInstances() {
+
+		return m_NumInstances;
+	}
+
+	/**
+	 * Gets the number of nodes.
+	 * 
+	 * @return the number of nodes
+	 */
+	public int numNodes() {
+
+		return m_NumNodes;
+	}
+
+	/**
+	 * Learns all instances which are not read yet from the given reader in
+	 * streaming mode.
+	 * 
+	 * @param reader
+	 *            the given reader, whose data set is the data set of this VFDT
+	 * @return the number of learned instances
+	 */
+	public long learn(Reader reader) {
+
+		if (reader.getDataSet() != m_Dataset)
+			throw new IllegalArgumentException("Reader of another data set");
+		int[] codes = new int[m_Dataset.numAttributes()];
+		long n = 0;
+		while (reader.next()) {
+			for (int i = 0; i < codes.length; i++) {
+				codes[i] = m_Dataset.getAttributes().get(i).isNumeric() ? -1
+						: reader.getCode(i);
+			}
+			learn(codes);
+			n++;
+		}
+		return n;
+	}
+
+	/**
+	 * Learns an instance with the given value codes. An instance without
+	 * class is skipped, and an instance without the value of a split node
+	 * stops at the node.
+	 * 
+	 * @param codes
+	 *            the value codes of the instance by attributes, negative if
+	 *            the value is missing
+	 */
+	public void learn(int[] codes) {
+
+		int classIndex = m_Dataset.numAttributes() - 1;
+		int classCode = codes[classIndex];
+		if (classCode < 0)
+			return;
+		m_NumInstances++;
+		m_Tree = null;
+		Node node = m_Root;
+		while (node.m_Attribute != Tree.NONE) {
+			int code = codes[node.m_Attribute];
+			if (code < 0)
+				return;
+			if (code >= node.m_Children.length)
+				addChildren(node, code + 1);
+			node = node.m_Children[code];
+		}
+
+		int numClasses = numValues(classIndex);
+		if (node.m_ClassCounts.length < numClasses)
+			node.m_ClassCounts = Arrays.copyOf(node.m_ClassCounts, numClasses);
+		node.m_ClassCounts[classCode]++;
+		node.m_NumInstances++;
+		for (int j = 0; j < node.m_Attributes.length; j++) {
+			int v = codes[node.m_Attributes[j]];
+			if (v < 0)
+				continue;
+			int[][] table = node.m_Tables[j];
+			if (v >= table.length || table[v].length != numClasses + 1) {
+				table = Incremental.resize(table,
+						Math.max(v + 1, table.length), numClasses);
+				node.m_Tables[j] = table;
+			}
+			table[v][numClasses]++;
+			table[v][classCode]++;
+		}
+		if (node.m_NumInstances - node.m_NumChecked >= m_GracePeriod) {
+			node.m_NumChecked = node.m_NumInstances;
+			attemptSplit(node);
+		}
+	}
+
+	/**
+	 * Splits the given leaf if the Hoeffding bound shows that its best
+	 * attribute is better than the others and than not splitting.
+	 * 
+	 * @param node
+	 *            the given leaf
+	 */
+	private void attemptSplit(Node node) {
+
+		int numClasses = node.m_ClassCounts.length;
+		int c = node.m_NumInstances;
+		double information = Train.information(node.m_ClassCounts,
+				numClasses, c);
+		if (information == 0.0)
+			return;
+		double e = information / c;
+		// not splitting has no gain.
+		double first = 0;
+		double second = 0;
+		int best = -1;
+		for (int j = 0; j < node.m_Attributes.length; j++) {
+			int[][] table = Incremental.resize(node.m_Tables[j],
+					node.m_Tables[j].length, numClasses);
+			int seen = 0;
+			for (int[] counts : table) {
+				seen += counts[numClasses];
+			}
+			if (seen == 0)
+				continue;
+			double g = Train.gain(e, table, numClasses, c);
+			if (g > first) {
+				second = first;
+				first = g;
+				best = j;
+			} else if (g > second) {
+				second = g;
+			}
+		}
+		if (best < 0)
+			return;
+		double range = Math.log(numClasses) / Math.log(2.0);
+		double bound = Math.sqrt(range * range * Math.log(1 / m_Delta)
+				/ (2.0 * c));
+		if (first - second > bound || bound < m_TieThreshold)
+			split(node, best);
+	}
+
+	/**
+	 * Splits the given leaf by the given unused attribute. The children start
+	 * with the classes of their values at the leaf.
+	 * 
+	 * @param node
+	 *            the given leaf
+	 * @param best
+	 *            the position of the attribute in the unused attributes
+	 */
+	private void split(Node node, int best) {
+
+		int numClasses = node.m_ClassCounts.length;
+		int attributeIndex = node.m_Attributes[best];
+		int[] unused = new int[node.m_Attributes.length - 1];
+		System.arraycopy(node.m_Attributes, 0, unused, 0, best);
+		System.arraycopy(node.m_Attributes, best + 1, unused, best,
+				unused.length - best);
+		int[][] table = Incremental.resize(node.m_Tables[best],
+				numValues(attributeIndex), numClasses);
+
+		node.m_Class = majority(node.m_ClassCounts, node.m_Class);
+		node.m_Attribute = attributeIndex;
+		node.m_Attributes = unused;
+		node.m_Children = new Node[table.length];
+		for (int v = 0; v < table.length; v++) {
+			node.m_Children[v] = new Node(unused, majority(table[v],
+					node.m_Class));
+		}
+		m_NumNodes += table.length;
+		// a split node keeps only its class.
+		node.m_ClassCounts = null;
+		node.m_Tables = null;
+	}
+
+	/**
+	 * Adds leaves to the given split node for the new values of its
+	 * attribute.
+	 * 
+	 * @param node
+	 *            the given split node
+	 * @param numChildren
+	 *            the number of children
+	 */
+	private void addChildren(Node node, int numChildren) {
+
+		int n = node.m_Children.length;
+		node.m_Children = Arrays.copyOf(node.m_Children, numChildren);
+		for (int v = n; v < numChildren; v++) {
+			node.m_Children[v] = new Node(node.m_Attributes, node.m_Class);
+		}
+		m_NumNodes += numChildren - n;
+	}
+
+	/**
+	 * Gets the class with the most instances of the given numbers, the first
+	 * one wins a tie.
+	 * 
+	 * @param classCounts
+	 *            the numbers of instances by class codes
+	 * @param defaultClass
+	 *            the class if there is no instance
+	 * @return the code of the class
+	 */
+	private static int majority(int[] classCounts, int defaultClass) {
+
+		int max = 0;
+		int majority = defaultClass;
+		for (int k = 0; k < classCounts.length; k++) {
+			if (classCounts[k] > max) {
+				max = classCounts[k];
+				majority = k;
+			}
+		}
+		return majority;
+	}
+
+	/**
+	 * Classifies an instance with the given value codes by the current nodes.
+	 * 
+	 * @param codes
+	 *            the value codes of the instance by attributes, negative if
+	 *            the value is missing
+	 * @return the class code, Tree.NONE if there is no class for the instance
+	 */
+	public int classify(int[] codes) {
+
+		Node node = m_Root;
+		while (node.m_Attribute != Tree.NONE) {
+			int code = codes[node.m_Attribute];
+			if (code < 0)
+				return Tree.NONE;
+			if (code >= node.m_Children.length)
+				return node.m_Class;
+			node = node.m_Children[code];
+		}
+		return majority(node.m_ClassCounts, node.m_Class);
+	}
+
+	/**
+	 * Gets the decision tree of the current nodes, which is built again after
+	 * an instance is learned.
+	 * 
+	 * @return the decision tree
+	 */
+	public Tree getTree() {
+
+		if (m_Tree == null) {
+			Tree tree = new Tree();
+			build(tree, 0, m_Root);
+			tree.trimToSize();
+			m_Tree = tree;
+		}
+		return m_Tree;
+	}
+
+	/**
+	 * Gets the model of the current nodes.
+	 * 
+	 * @return the model
+	 */
+	public Model getModel() {
+
+		return new Model(m_Dataset.getAttributes(), getTree());
+	}
+
+	/**
+	 * Builds the decision tree at the given index of the given tree from the
+	 * subtree at the given node.
+	 * 
+	 * @param tree
+	 *            the given tree
+	 * @param index
+	 *            the given index
+	 * @param node
+	 *            the given node
+	 */
+	private void build(Tree tree, int index, Node node) {
+
+		if (node.m_Attribute == Tree.NONE) {
+			tree.setLeaf(index, majority(node.m_ClassCounts, node.m_Class));
+			return;
+		}
+		int numValues = numValues(node.m_Attribute);
+		int first = tree.split(index, node.m_Attribute, numValues);
+		for (int code = 0; code < numValues; code++) {
+			if (code < node.m_Children.length)
+				build(tree, first + code, node.m_Children[code]);
+			else
+				tree.setLeaf(first + code, node.m_Class);
+		}
+	}
+
+	/**
+	 * Gets the number of values of the given attribute.
+	 * 
+	 * @param attributeIndex
+	 *            the given index of attribute
+	 * @return the number of values
+	 */
+	private int numValues(int attributeIndex) {
+
+		return m_Dataset.getAttributes().get(attributeIndex).numValues();
+	}
+
+	/**
+	 * Returns the result of this VFDT.
+	 * 
+	 * @return the result of this VFDT
+	 */
+	public String toString() {
+
+		return new Train(m_Dataset, getTree()).toString();
+	}
+
+	/**
+	 * A node of the Hoeffding tree.
+	 */
+	private static class Node {
+
+		/** the unused attributes' index at the node. */
+		private int[] m_Attributes;
+
+		/** the index of the attribute of the node, Tree.NONE for a leaf. */
+		private int m_Attribute = Tree.NONE;
+
+		/** the children by value codes of the attribute. */
+		private Node[] m_Children;
+
+		/** the class of a split node, or of a leaf without instances. */
+		private int m_Class;
+
+		/** the number of instances of a leaf. */
+		private int m_NumInstances;
+
+		/** the number of instances of a leaf at the last split attempt. */
+		private int m_NumChecked;
+
+		/** the numbers of instances of a leaf by class codes. */
+		private int[] m_ClassCounts = new int[0];
+
+		/**
+		 * the numbers of instances of a leaf by value codes and class codes of
+		 * the unused attributes, the last number of a value is the number of
+		 * its instances.
+		 */
+		private int[][][] m_Tables;
+
+		/**
+		 * Creates a leaf with the given unused attributes and class.
+		 * 
+		 * @param attributes
+		 *            the unused attributes' index at the node
+		 * @param classCode
+		 *            the class of the leaf without instances
+		 */
+		Node(int[] attributes, int classCode) {
+
+			this.m_Attributes = attributes;
+			this.m_Class = classCode;
+			m_Tables = new int[attributes.length][0][];
+		}
+	}
+
+	/**
+	 * Tests this VFDT with the given data set, which is streamed. Each
+	 * instance is classified before it is learned, and the accuracy of these
+	 * predictions is shown.
+	 * 
+	 * @param args
+	 *            must contain the name of a data set file, and may contain the
+	 *            name of a file to save the model.
+	 */
+	public static void main(String[] args) {
+
+		if (args.length == 0) {
+			System.out.println("\nUsage: " + VFDT.class.getName()
+					+ " <dataset> [<model>]\n");
+			return;
+		}
+
+		try {
+			Reader reader = Reader.open(new File(args[0]));
+			DataSet dataset = reader.getDataSet();
+			VFDT vfdt = new VFDT(dataset);
+			int classIndex = dataset.numAttributes() - 1;
+			int[] codes = new int[dataset.numAttributes()];
+			long correct = 0;
+			long start = System.nanoTime();
+			try {
+				while (reader.next()) {
+					for (int i = 0; i < codes.length; i++) {
+						codes[i] = dataset.getAttributes().get(i).isNumeric() ? -1
+								: reader.getCode(i);
+					}
+					if (vfdt.classify(codes) == codes[classIndex])
+						correct++;
+					vfdt.learn(codes);
+				}
+			} finally {
+				reader.close();
+			}
+			long time = System.nanoTime() - start;
+			System.out.print(vfdt);
+			System.out.println("Instances: " + vfdt.numInstances()
+					+ ", nodes: " + vfdt.numNodes() + ", time: " + time
+					/ 1000000 + " ms, instances/s: "
+					+ (long) (vfdt.numInstances() * 1e9 / Math.max(1, time)));
+			System.out.println("Prequential accuracy: "
+					+ String.format("%.4f", (double) correct
+							/ Math.max(1, vfdt.numInstances())));
+			if (args.length > 1)
+				vfdt.getModel().save(new File(args[1]));
+		} catch (Exception e) {
+			System.out.println(e);
+		}
+	}
+}
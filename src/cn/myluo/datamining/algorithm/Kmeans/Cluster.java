@@ -6,149 +6,129 @@
 
 package cn.myluo.datamining.algorithm.Kmeans;
 
+import java.nio.DoubleBuffer;
 import java.text.DecimalFormat;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Arrays;
 
-import cn.myluo.datamining.data.Instance;
+import cn.myluo.datamining.data.DataSet;
 
 /**
  * The cluster of K-means algorithm.
  * 
+ * The center, mean and variance are kept as doubles by the numeric attributes
+ * of the data set, and instances are referred by their indexes, so values are
+ * read from the columns of the data set without parsing.
+ * 
  * @author Luo Mingyuan
  * @version 1612
  */
 public class Cluster {
 
+	/** the data set. */
+	private DataSet m_Dataset;
+
+	/** the indexes of numeric attributes. */
+	private int[] m_Attributes;
+
+	/** the columns of numeric attributes. */
+	private DoubleBuffer[] m_Columns;
+
 	/** the center of this cluster. */
-	private Instance m_Center;
+	private double[] m_Center;
 
 	/** the mean of instances in this cluster. */
-	private Instance m_Mean;
+	private double[] m_Mean;
 
 	/** the variance of instances in this cluster. */
-	private Instance m_Variance;
+	private double[] m_Variance;
 
-	/** the map of instances and distances of center in this cluster. */
-	private Map<Instance, Double> m_InstanceError;
+	/** the indexes of instances in this cluster. */
+	private int[] m_Instances;
 
-	/**
-	 * Creates a cluster.
-	 */
-	private Cluster() {
-
-		m_InstanceError = new HashMap<Instance, Double>();
-	}
+	/** the number of instances in this cluster. */
+	private int m_NumInstances;
 
 	/**
-	 * Creates a cluster with the given seed.
+	 * Creates a cluster with the given data set and seed.
 	 * 
+	 * @param dataset
+	 *            the given data set
 	 * @param seed
-	 *            the given seed
+	 *            the index of the seed instance
 	 */
-	Cluster(Instance seed) {
-
-		this();
-		m_Center = seed.clone();
-		center2double();
-		m_Mean = m_Center.clone();
-		m_Variance = m_Center.clone();
-		clear();
-	}
-
-	/**
-	 * Translate the center's values type to double
-	 */
-	private void center2double() {
-
-		if (m_Center.numValues() > 0) {
-			for (Map.Entry<String, Object> entry : m_Center.getValues()
-					.entrySet()) {
-				m_Center.append(entry.getKey(),
-						Double.parseDouble((String) entry.getValue()));
-			}
+	Cluster(DataSet dataset, int seed) {
+
+		this.m_Dataset = dataset;
+		int n = 0;
+		m_Attributes = new int[dataset.numAttributes()];
+		for (int i = 0; i < dataset.numAttributes(); i++) {
+			if (dataset.getAttributes().get(i).isNumeric())
+				m_Attributes[n++] = i;
 		}
+		m_Attributes = Arrays.copyOf(m_Attributes, n);
+		m_Columns = new DoubleBuffer[n];
+		m_Center = new double[n];
+		for (int i = 0; i < n; i++) {
+			m_Columns[i] = dataset.getNumericColumn(m_Attributes[i]);
+			m_Center[i] = m_Columns[i].get(seed);
+		}
+		m_Mean = new double[n];
+		m_Variance = new double[n];
+		m_Instances = new int[16];
+		clear();
 	}
 
 	/**
-	 * Clears the mean, variance and the map of instances and distances of
-	 * center.
+	 * Clears the mean, variance and the instances.
 	 */
 	private void clear() {
 
-		if (m_Mean.numValues() > 0) {
-			for (Map.Entry<String, Object> entry : m_Mean.getValues()
-					.entrySet()) {
-				m_Mean.append(entry.getKey(), 0.0);
-			}
-		}
-		if (m_Variance.numValues() > 0) {
-			for (Map.Entry<String, Object> entry : m_Variance.getValues()
-					.entrySet()) {
-				m_Variance.append(entry.getKey(), 0.0);
-			}
-		}
-		m_InstanceError.clear();
+		Arrays.fill(m_Mean, 0.0);
+		Arrays.fill(m_Variance, 0.0);
+		m_NumInstances = 0;
 	}
 
 	/**
 	 * Computes the distance of the center and the given instance.
 	 * 
 	 * @param instance
-	 *            the given instance
+	 *            the index of the given instance
 	 * @return the distance of the center and the given instance
 	 */
-	double distance(Instance instance) {
+	double distance(int instance) {
 
 		double d = 0;
-		for (Map.Entry<String, Object> entry : m_Center.getValues().entrySet()) {
-			d += Math.pow(
-					Double.parseDouble((String) instance.getValues()
-							.getOrDefault(entry.getKey(), 0.0))
-							- (Double) entry.getValue(), 2);
+		for (int i = 0; i < m_Attributes.length; i++) {
+			double x = m_Columns[i].get(instance) - m_Center[i];
+			d += x * x;
 		}
 		return Math.sqrt(d);
 	}
 
 	/**
-	 * Adds the given instance into the map of instances and distances of center
+	 * Adds the given instance into this cluster, and updates the mean and
+	 * variance.
 	 * 
 	 * @param instance
-	 *            the given instance
+	 *            the index of the given instance
 	 */
-	void appendInstance(Instance instance) {
-
-		// updates variance
-		if (m_Variance.numValues() > 0 && numInstances() > 0) {
-			for (Map.Entry<String, Object> entry : m_Variance.getValues()
-					.entrySet()) {
-				m_Variance.append(
-						entry.getKey(),
-						(Double) entry.getValue()
-								* ((double) numInstances() - 1.0)
-								/ (double) numInstances()
-								+ Math.pow(
-										Double.parseDouble((String) instance
-												.getValues()
-												.get(entry.getKey()))
-												- (Double) m_Mean.getValues()
-														.get(entry.getKey()),
-										2.0) / ((double) numInstances() + 1.0));
+	void appendInstance(int instance) {
+
+		double n = (double) m_NumInstances;
+		for (int i = 0; i < m_Attributes.length; i++) {
+			double value = m_Columns[i].get(instance);
+			// updates variance
+			if (m_NumInstances > 0) {
+				double x = value - m_Mean[i];
+				m_Variance[i] = m_Variance[i] * (n - 1.0) / n + x * x
+						/ (n + 1.0);
 			}
+			// updates mean
+			m_Mean[i] = (m_Mean[i] * n + value) / (n + 1.0);
 		}
-		// updates mean
-		if (m_Mean.numValues() > 0) {
-			for (Map.Entry<String, Object> entry : m_Mean.getValues()
-					.entrySet()) {
-				m_Mean.append(
-						entry.getKey(),
-						((Double) entry.getValue() * (double) numInstances() + Double
-								.parseDouble((String) instance.getValues().get(
-										entry.getKey())))
-								/ ((double) numInstances() + 1.0));
-			}
-		}
-		m_InstanceError.put(instance, distance(instance));
+		if (m_NumInstances == m_Instances.length)
+			m_Instances = Arrays.copyOf(m_Instances, m_NumInstances * 2);
+		m_Instances[m_NumInstances++] = instance;
 	}
 
 	/**
@@ -159,11 +139,8 @@ public class Cluster {
 	double SSE() {
 
 		double sse = 0;
-		if (m_Variance.numValues() > 0) {
-			for (Map.Entry<String, Object> entry : m_Variance.getValues()
-					.entrySet()) {
-				sse += (Double) entry.getValue();
-			}
+		for (int i = 0; i < m_Variance.length; i++) {
+			sse += m_Variance[i];
 		}
 		sse *= (double) numInstances() - 1.0;
 		return sse;
@@ -176,7 +153,7 @@ public class Cluster {
 	 */
 	boolean isChange() {
 
-		return m_Center.compareTo(m_Mean) == 0;
+		return !Arrays.equals(m_Center, m_Mean);
 	}
 
 	/**
@@ -195,7 +172,7 @@ public class Cluster {
 	 */
 	public int numInstances() {
 
-		return m_InstanceError.size();
+		return m_NumInstances;
 	}
 
 	/**
@@ -206,21 +183,20 @@ public class Cluster {
 	public String toString() {
 
 		StringBuilder sb = new StringBuilder();
-		sb.append("   :\n      ");
-		for (Map.Entry<String, Object> entry : m_Center.getValues().entrySet()) {
-			sb.append(entry.getKey()
-					+ "="
-					+ new DecimalFormat("#0.00").format((Double) entry
-							.getValue()) + ",");
+		DecimalFormat format = new DecimalFormat("#0.00");
+		sb.append("   中心:\n      ");
+		for (int i = 0; i < m_Attributes.length; i++) {
+			sb.append(m_Dataset.getAttributes().get(m_Attributes[i]).getName()
+					+ "=" + format.format(m_Center[i]) + ",");
 		}
 		if (sb.length() > 0)
 			sb.deleteCharAt(sb.length() - 1);
-		sb.append("\n   (" + numInstances() + "):\n");
-		for (Map.Entry<Instance, Double> entry : m_InstanceError.entrySet()) {
+		sb.append("\n   数据(" + numInstances() + "):\n");
+		for (int j = 0; j < m_NumInstances; j++) {
 			sb.append("      ");
-			for (Map.Entry<String, Object> e : entry.getKey().getValues()
-					.entrySet()) {
-				sb.append(e.getKey() + "=" + e.getValue() + ",");
+			for (int i = 0; i < m_Dataset.numAttributes(); i++) {
+				sb.append(m_Dataset.getAttributes().get(i).getName() + "="
+						+ m_Dataset.getObject(m_Instances[j], i) + ",");
 			}
 			if (sb.length() > 0)
 				sb.deleteCharAt(sb.length() - 1);
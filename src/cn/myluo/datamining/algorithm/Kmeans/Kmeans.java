@@ -61,8 +61,8 @@ public class Kmeans {
 		}
 
 		try {
-			System.out.println(new Kmeans(new Reader(new File(args[0]))
-					.getDataSet(), Integer.parseInt(args[1])));
+			System.out.println(new Kmeans(Reader.readDataSet(new File(args[0])),
+					Integer.parseInt(args[1])));
 		} catch (Exception e) {
 			System.out.println(e);
 		}
@@ -11,7 +11,6 @@ import java.util.ArrayList;
 import java.util.List;
 
 import cn.myluo.datamining.data.DataSet;
-import cn.myluo.datamining.data.Instance;
 
 /**
  * Class for partition with K-means algorithm.
@@ -62,11 +61,10 @@ public class Partition {
 		// picks cluster centers at random.
 		int[] randoms = random();
 		for (int i = 0; i < k; i++) {
-			clusterlist
-					.add(new Cluster(trainset.getInstances().get(randoms[i])));
+			clusterlist.add(new Cluster(trainset, randoms[i]));
 		}
 		while (true) {
-			for (Instance instance : trainset.getInstances()) {
+			for (int instance = 0; instance < trainset.numInstances(); instance++) {
 				// computes distances and picks the max distance.
 				double distance = Double.MAX_VALUE;
 				int clusterindex = -1;
@@ -150,11 +148,11 @@ public class Partition {
 	public String toString() {
 
 		StringBuilder sb = new StringBuilder();
-		sb.append("ƽ(SSE): " + new DecimalFormat("#0.00").format(SSE())
+		sb.append("误差平方和(SSE): " + new DecimalFormat("#0.00").format(SSE())
 				+ "\n\n");
-		sb.append("(" + clusterlist.size() + "):\n\n");
+		sb.append("簇(" + clusterlist.size() + "):\n\n");
 		for (int i = 0; i < clusterlist.size(); i++) {
-			sb.append(" #" + (i + 1) + "\n");
+			sb.append("簇 #" + (i + 1) + "\n");
 			sb.append(clusterlist.get(i).toString());
 			sb.append("\n");
 		}
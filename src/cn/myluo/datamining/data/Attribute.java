@@ -6,12 +6,22 @@
 
 package cn.myluo.datamining.data;
 
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
  * Class for handling an attribute.
  * 
+ * Each distinct value of a nominal attribute has a dense code starting at 0,
+ * codes are assigned in the order the values are first added and never
+ * change. Each value is kept as one string however many instances have it,
+ * and values read from a file can be looked up by their encoded bytes, so that
+ * no string is created for a known value.
+ * 
  * @author Luo Mingyuan
  * @version 1612
  */
@@ -23,15 +33,38 @@ public class Attribute {
 	/** The attribute type. */
 	private String n_Type;
 
-	/** The map of attribute values. */
-	private Map<String, Integer> n_Values = null;
+	/** The map of attribute values to codes. */
+	private Map<String, Integer> m_Codes = null;
+
+	/** The list of attribute values by codes. */
+	private List<String> m_Values = null;
+
+	/** The counts of attribute values by codes. */
+	private int[] m_Counts;
+
+	/** The charset of the encoded values. */
+	private Charset m_Charset;
+
+	/** The hash table of encoded values, null for empty slots. */
+	private byte[][] m_Keys;
+
+	/** The hashes of the encoded values in the hash table. */
+	private int[] m_KeyHashes;
+
+	/** The codes of the encoded values in the hash table. */
+	private int[] m_KeyCodes;
+
+	/** The number of encoded values in the hash table. */
+	private int m_NumKeys;
 
 	/**
 	 * Creates an attribute.
 	 */
 	public Attribute() {
 
-		n_Values = new HashMap<String, Integer>();
+		m_Codes = new HashMap<String, Integer>();
+		m_Values = new ArrayList<String>();
+		m_Counts = new int[8];
 	}
 
 	/**
@@ -92,13 +125,28 @@ public class Attribute {
 	}
 
 	/**
-	 * Gets the map of attribute values.
+	 * Checks if the attribute is numeric.
+	 * 
+	 * @return true if the attribute type is "0", false otherwise.
+	 */
+	public boolean isNumeric() {
+
+		return "0".equals(n_Type);
+	}
+
+	/**
+	 * Gets the map of attribute values and their numbers. The map is a copy
+	 * and values are added in the order of their codes.
 	 * 
 	 * @return the map of attribute values
 	 */
 	public Map<String, Integer> getValues() {
 
-		return n_Values;
+		Map<String, Integer> values = new HashMap<String, Integer>();
+		for (int i = 0; i < m_Values.size(); i++) {
+			values.put(m_Values.get(i), m_Counts[i]);
+		}
+		return values;
 	}
 
 	/**
@@ -108,7 +156,186 @@ public class Attribute {
 	 */
 	public int numValues() {
 
-		return n_Values.size();
+		return m_Values.size();
+	}
+
+	/**
+	 * Gets the attribute value with the given code.
+	 * 
+	 * @param code
+	 *            the given code
+	 * @return the attribute value
+	 */
+	public String getValue(int code) {
+
+		return m_Values.get(code);
+	}
+
+	/**
+	 * Gets the code of the given attribute value.
+	 * 
+	 * @param value
+	 *            the given value
+	 * @return the code of the given value, -1 if the value is unknown
+	 */
+	public int getCode(String value) {
+
+		Integer code = m_Codes.get(value);
+		return code == null ? -1 : code;
+	}
+
+	/**
+	 * Gets the number of the attribute value with the given code.
+	 * 
+	 * @param code
+	 *            the given code
+	 * @return the number of the attribute value
+	 */
+	public int getCount(int code) {
+
+		return m_Counts[code];
+	}
+
+	/**
+	 * Gets the numbers of the attribute values by codes.
+	 * 
+	 * @return the numbers of the attribute values
+	 */
+	public int[] getCounts() {
+
+		return Arrays.copyOf(m_Counts, m_Values.size());
+	}
+
+	/**
+	 * Adds the given value into the attribute values if it is unknown.
+	 * 
+	 * @param value
+	 *            the given value
+	 * @return the code of the given value
+	 */
+	public int addValue(String value) {
+
+		Integer code = m_Codes.get(value);
+		if (code == null) {
+			code = m_Values.size();
+			m_Codes.put(value, code);
+			m_Values.add(value);
+			if (code == m_Counts.length)
+				m_Counts = Arrays.copyOf(m_Counts, code * 2);
+		}
+		return code;
+	}
+
+	/**
+	 * Adds the value encoded in the given bytes into the attribute values if it
+	 * is unknown. A known value is found by its bytes without decoding them.
+	 * 
+	 * @param bytes
+	 *            the given bytes
+	 * @param offset
+	 *            the start of the value in the bytes
+	 * @param length
+	 *            the length of the value in the bytes
+	 * @param charset
+	 *            the charset of the bytes
+	 * @return the code of the given value
+	 */
+	public int addValue(byte[] bytes, int offset, int length, Charset charset) {
+
+		if (!charset.equals(m_Charset)) {
+			m_Charset = charset;
+			m_Keys = new byte[16][];
+			m_KeyHashes = new int[16];
+			m_KeyCodes = new int[16];
+			m_NumKeys = 0;
+		}
+
+		int hash = 1;
+		for (int i = offset; i < offset + length; i++) {
+			hash = 31 * hash + bytes[i];
+		}
+		hash ^= hash >>> 16;
+		int mask = m_Keys.length - 1;
+		for (int i = hash & mask; m_Keys[i] != null; i = (i + 1) & mask) {
+			if (m_KeyHashes[i] == hash
+					&& equals(m_Keys[i], bytes, offset, length))
+				return m_KeyCodes[i];
+		}
+
+		int code = addValue(new String(bytes, offset, length, charset));
+		if (2 * (m_NumKeys + 1) > m_Keys.length)
+			rehash(m_Keys.length * 2);
+		putKey(Arrays.copyOfRange(bytes, offset, offset + length), hash, code);
+		return code;
+	}
+
+	/**
+	 * Checks if the given key equals to the given bytes.
+	 * 
+	 * @param key
+	 *            the given key
+	 * @param bytes
+	 *            the given bytes
+	 * @param offset
+	 *            the start of the bytes
+	 * @param length
+	 *            the length of the bytes
+	 * @return true if they are equal, false otherwise.
+	 */
+	private static boolean equals(byte[] key, byte[] bytes, int offset,
+			int length) {
+
+		if (key.length != length)
+			return false;
+		for (int i = 0; i < length; i++) {
+			if (key[i] != bytes[offset + i])
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Puts the given key into the hash table.
+	 * 
+	 * @param key
+	 *            the encoded value
+	 * @param hash
+	 *            the hash of the key
+	 * @param code
+	 *            the code of the value
+	 */
+	private void putKey(byte[] key, int hash, int code) {
+
+		int mask = m_Keys.length - 1;
+		int i = hash & mask;
+		while (m_Keys[i] != null) {
+			i = (i + 1) & mask;
+		}
+		m_Keys[i] = key;
+		m_KeyHashes[i] = hash;
+		m_KeyCodes[i] = code;
+		m_NumKeys++;
+	}
+
+	/**
+	 * Resizes the hash table to the given capacity.
+	 * 
+	 * @param capacity
+	 *            the given capacity, a power of 2
+	 */
+	private void rehash(int capacity) {
+
+		byte[][] keys = m_Keys;
+		int[] hashes = m_KeyHashes;
+		int[] codes = m_KeyCodes;
+		m_Keys = new byte[capacity][];
+		m_KeyHashes = new int[capacity];
+		m_KeyCodes = new int[capacity];
+		m_NumKeys = 0;
+		for (int i = 0; i < keys.length; i++) {
+			if (keys[i] != null)
+				putKey(keys[i], hashes[i], codes[i]);
+		}
 	}
 
 	/**
@@ -123,12 +350,24 @@ public class Attribute {
 	 */
 	public boolean append(String value, int number) {
 
-		Object obj = n_Values.get(value);
-		if (obj == null) {
-			n_Values.put(value, number);
-		} else {
-			n_Values.put(value, (Integer) obj + number);
-		}
+		return append(addValue(value), number);
+	}
+
+	/**
+	 * Adds the given number to the attribute value with the given code.
+	 * 
+	 * @param code
+	 *            the given code
+	 * @param number
+	 *            the number of the attribute value
+	 * @return true if add success, false otherwise.
+	 */
+	public boolean append(int code, int number) {
+
+		if (code < 0 || code >= m_Values.size())
+			return false;
+
+		m_Counts[code] += number;
 		return true;
 	}
 
@@ -141,8 +380,8 @@ public class Attribute {
 
 		StringBuilder sb = new StringBuilder();
 		sb.append("Attribute:" + getName() + " type:" + getType() + " values:{");
-		for (Map.Entry<String, Integer> entry : n_Values.entrySet()) {
-			sb.append("{" + entry.getKey() + ":" + entry.getValue() + "}");
+		for (int i = 0; i < m_Values.size(); i++) {
+			sb.append("{" + m_Values.get(i) + ":" + m_Counts[i] + "}");
 		}
 		sb.append("}" + "\n");
 		return sb.toString();
@@ -0,0 +1,446 @@
+/*
+ *    Bitmap.java
+ *    Copyright (C) 2016 NanChang University, JiangXi, China
+ *
+ */
+
+package cn.myluo.datamining.data;
+
+import java.util.Arrays;
+
+/**
+ * A compressed set of instance indexes.
+ * 
+ * The indexes are split into containers by their high 16 bits, like the
+ * Roaring bitmap. A container keeps the low 16 bits in a sorted array while
+ * it has at most 4096 indexes, and in a bitmap of 1024 words otherwise, so
+ * that each container takes at most 8KB. Intersections are computed container
+ * by container, bitmaps by word ANDs and popcounts.
+ * 
+ * @author Luo Mingyuan
+ * @version 1612
+ */
+public class Bitmap {
+
+	/** The largest number of indexes in an array container. */
+	private static final int ARRAY_LIMIT = 4096;
+
+	/** The number of words in a bitmap container. */
+	private static final int WORDS = 1024;
+
+	/** The high 16 bits of containers, sorted. */
+	private char[] m_Keys;
+
+	/** The low 16 bits of array containers, null for bitmap containers. */
+	private char[][] m_Arrays;
+
+	/** The words of bitmap containers, null for array containers. */
+	private long[][] m_Words;
+
+	/** The numbers of indexes by containers. */
+	private int[] m_Cardinalities;
+
+	/** The number of containers. */
+	private int m_Size;
+
+	/**
+	 * Creates an empty bitmap.
+	 */
+	public Bitmap() {
+
+		this(4);
+	}
+
+	/**
+	 * Creates an empty bitmap with the given number of containers.
+	 * 
+	 * @param capacity
+	 *            the given number of containers
+	 */
+	private Bitmap(int capacity) {
+
+		capacity = Math.max(1, capacity);
+		m_Keys = new char[capacity];
+		m_Arrays = new char[capacity][];
+		m_Words = new long[capacity][];
+		m_Cardinalities = new int[capacity];
+	}
+
+	/**
+	 * Creates a bitmap with the given indexes.
+	 * 
+	 * @param indexes
+	 *            the given indexes
+	 * @param from
+	 *            the start of the indexes
+	 * @param to
+	 *            the end of the indexes
+	 */
+	public Bitmap(int[] indexes, int from, int to) {
+
+		this();
+		for (int i = from; i < to; i++) {
+			add(indexes[i]);
+		}
+	}
+
+	/**
+	 * Adds the given index. Indexes added in increasing order are appended
+	 * without searching.
+	 * 
+	 * @param index
+	 *            the given non-negative index
+	 */
+	public void add(int index) {
+
+		char key = (char) (index >>> 16);
+		char low = (char) index;
+		int i;
+		if (m_Size > 0 && m_Keys[m_Size - 1] == key) {
+			i = m_Size - 1;
+		} else {
+			i = Arrays.binarySearch(m_Keys, 0, m_Size, key);
+			if (i < 0) {
+				i = -i - 1;
+				insert(i, key);
+			}
+		}
+
+		if (m_Words[i] != null) {
+			long bit = 1L << low;
+			if ((m_Words[i][low >>> 6] & bit) == 0) {
+				m_Words[i][low >>> 6] |= bit;
+				m_Cardinalities[i]++;
+			}
+			return;
+		}
+		char[] array = m_Arrays[i];
+		int n = m_Cardinalities[i];
+		int j = n > 0 && array[n - 1] < low ? -n - 1 : Arrays.binarySearch(
+				array, 0, n, low);
+		if (j >= 0)
+			return;
+		j = -j - 1;
+		if (n == ARRAY_LIMIT) {
+			m_Words[i] = toWords(array, n);
+			m_Arrays[i] = null;
+			m_Words[i][low >>> 6] |= 1L << low;
+		} else {
+			if (n == array.length)
+				array = m_Arrays[i] = Arrays.copyOf(array,
+						Math.min(ARRAY_LIMIT, n * 2));
+			System.arraycopy(array, j, array, j + 1, n - j);
+			array[j] = low;
+		}
+		m_Cardinalities[i]++;
+	}
+
+	/**
+	 * Inserts an empty array container with the given key.
+	 * 
+	 * @param i
+	 *            the position of the container
+	 * @param key
+	 *            the given key
+	 */
+	private void insert(int i, char key) {
+
+		if (m_Size == m_Keys.length) {
+			int capacity = m_Size * 2;
+			m_Keys = Arrays.copyOf(m_Keys, capacity);
+			m_Arrays = Arrays.copyOf(m_Arrays, capacity);
+			m_Words = Arrays.copyOf(m_Words, capacity);
+			m_Cardinalities = Arrays.copyOf(m_Cardinalities, capacity);
+		}
+		System.arraycopy(m_Keys, i, m_Keys, i + 1, m_Size - i);
+		System.arraycopy(m_Arrays, i, m_Arrays, i + 1, m_Size - i);
+		System.arraycopy(m_Words, i, m_Words, i + 1, m_Size - i);
+		System.arraycopy(m_Cardinalities, i, m_Cardinalities, i + 1, m_Size
+				- i);
+		m_Keys[i] = key;
+		m_Arrays[i] = new char[4];
+		m_Words[i] = null;
+		m_Cardinalities[i] = 0;
+		m_Size++;
+	}
+
+	/**
+	 * Gets the number of indexes.
+	 * 
+	 * @return the number of indexes
+	 */
+	public int cardinality() {
+
+		int n = 0;
+		for (int i = 0; i < m_Size; i++) {
+			n += m_Cardinalities[i];
+		}
+		return n;
+	}
+
+	/**
+	 * Checks if the given index is in this bitmap.
+	 * 
+	 * @param index
+	 *            the given index
+	 * @return true if the index is in this bitmap, false otherwise.
+	 */
+	public boolean contains(int index) {
+
+		int i = Arrays.binarySearch(m_Keys, 0, m_Size, (char) (index >>> 16));
+		if (i < 0)
+			return false;
+		char low = (char) index;
+		if (m_Words[i] != null)
+			return (m_Words[i][low >>> 6] & (1L << low)) != 0;
+		return Arrays.binarySearch(m_Arrays[i], 0, m_Cardinalities[i], low) >= 0;
+	}
+
+	/**
+	 * Computes the intersection of this bitmap and the given bitmap.
+	 * 
+	 * @param bitmap
+	 *            the given bitmap
+	 * @return the intersection as a new bitmap
+	 */
+	public Bitmap and(Bitmap bitmap) {
+
+		Bitmap result = new Bitmap(Math.min(m_Size, bitmap.m_Size));
+		int i = 0;
+		int j = 0;
+		while (i < m_Size && j < bitmap.m_Size) {
+			if (m_Keys[i] < bitmap.m_Keys[j]) {
+				i++;
+			} else if (m_Keys[i] > bitmap.m_Keys[j]) {
+				j++;
+			} else {
+				result.andContainers(this, i, bitmap, j);
+				i++;
+				j++;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Appends the intersection of the given containers of the given bitmaps.
+	 * 
+	 * @param a
+	 *            the first bitmap
+	 * @param i
+	 *            the container of the first bitmap
+	 * @param b
+	 *            the second bitmap
+	 * @param j
+	 *            the container of the second bitmap
+	 */
+	private void andContainers(Bitmap a, int i, Bitmap b, int j) {
+
+		long[] x = a.m_Words[i];
+		long[] y = b.m_Words[j];
+		char[] array;
+		int n;
+		if (x != null && y != null) {
+			long[] words = new long[WORDS];
+			n = 0;
+			for (int k = 0; k < WORDS; k++) {
+				words[k] = x[k] & y[k];
+				n += Long.bitCount(words[k]);
+			}
+			if (n > ARRAY_LIMIT) {
+				append(a.m_Keys[i], null, words, n);
+				return;
+			}
+			array = toArray(words, n);
+		} else if (x != null || y != null) {
+			char[] source = x == null ? a.m_Arrays[i] : b.m_Arrays[j];
+			int m = x == null ? a.m_Cardinalities[i] : b.m_Cardinalities[j];
+			long[] words = x == null ? y : x;
+			array = new char[m];
+			n = 0;
+			for (int k = 0; k < m; k++) {
+				char low = source[k];
+				if ((words[low >>> 6] & (1L << low)) != 0)
+					array[n++] = low;
+			}
+		} else {
+			char[] p = a.m_Arrays[i];
+			char[] q = b.m_Arrays[j];
+			int pn = a.m_Cardinalities[i];
+			int qn = b.m_Cardinalities[j];
+			array = new char[Math.min(pn, qn)];
+			n = 0;
+			for (int k = 0, l = 0; k < pn && l < qn;) {
+				if (p[k] < q[l]) {
+					k++;
+				} else if (p[k] > q[l]) {
+					l++;
+				} else {
+					array[n++] = p[k];
+					k++;
+					l++;
+				}
+			}
+		}
+		if (n > 0)
+			append(a.m_Keys[i], array, null, n);
+	}
+
+	/**
+	 * Appends a container after the containers of this bitmap.
+	 * 
+	 * @param key
+	 *            the key of the container
+	 * @param array
+	 *            the array of the container, or null
+	 * @param words
+	 *            the words of the container, or null
+	 * @param n
+	 *            the number of indexes in the container
+	 */
+	private void append(char key, char[] array, long[] words, int n) {
+
+		if (m_Size == m_Keys.length) {
+			int capacity = m_Size * 2;
+			m_Keys = Arrays.copyOf(m_Keys, capacity);
+			m_Arrays = Arrays.copyOf(m_Arrays, capacity);
+			m_Words = Arrays.copyOf(m_Words, capacity);
+			m_Cardinalities = Arrays.copyOf(m_Cardinalities, capacity);
+		}
+		m_Keys[m_Size] = key;
+		m_Arrays[m_Size] = array;
+		m_Words[m_Size] = words;
+		m_Cardinalities[m_Size] = n;
+		m_Size++;
+	}
+
+	/**
+	 * Counts the indexes in both this bitmap and the given bitmap, without
+	 * creating the intersection.
+	 * 
+	 * @param bitmap
+	 *            the given bitmap
+	 * @return the number of indexes in the intersection
+	 */
+	public int andCardinality(Bitmap bitmap) {
+
+		int n = 0;
+		int i = 0;
+		int j = 0;
+		while (i < m_Size && j < bitmap.m_Size) {
+			if (m_Keys[i] < bitmap.m_Keys[j]) {
+				i++;
+			} else if (m_Keys[i] > bitmap.m_Keys[j]) {
+				j++;
+			} else {
+				n += andCardinality(this, i, bitmap, j);
+				i++;
+				j++;
+			}
+		}
+		return n;
+	}
+
+	/**
+	 * Counts the indexes in both the given containers of the given bitmaps.
+	 * 
+	 * @param a
+	 *            the first bitmap
+	 * @param i
+	 *            the container of the first bitmap
+	 * @param b
+	 *            the second bitmap
+	 * @param j
+	 *            the container of the second bitmap
+	 * @return the number of indexes in the intersection
+	 */
+	private static int andCardinality(Bitmap a, int i, Bitmap b, int j) {
+
+		long[] x = a.m_Words[i];
+		long[] y = b.m_Words[j];
+		int n = 0;
+		if (x != null && y != null) {
+			for (int k = 0; k < WORDS; k++) {
+				n += Long.bitCount(x[k] & y[k]);
+			}
+		} else if (x != null || y != null) {
+			char[] source = x == null ? a.m_Arrays[i] : b.m_Arrays[j];
+			int m = x == null ? a.m_Cardinalities[i] : b.m_Cardinalities[j];
+			long[] words = x == null ? y : x;
+			for (int k = 0; k < m; k++) {
+				char low = source[k];
+				if ((words[low >>> 6] & (1L << low)) != 0)
+					n++;
+			}
+		} else {
+			char[] p = a.m_Arrays[i];
+			char[] q = b.m_Arrays[j];
+			int pn = a.m_Cardinalities[i];
+			int qn = b.m_Cardinalities[j];
+			for (int k = 0, l = 0; k < pn && l < qn;) {
+				if (p[k] < q[l]) {
+					k++;
+				} else if (p[k] > q[l]) {
+					l++;
+				} else {
+					n++;
+					k++;
+					l++;
+				}
+			}
+		}
+		return n;
+	}
+
+	/**
+	 * Converts the given array container into a bitmap container.
+	 * 
+	 * @param array
+	 *            the low 16 bits of the indexes
+	 * @param n
+	 *            the number of indexes
+	 * @return the words of the bitmap container
+	 */
+	private static long[] toWords(char[] array, int n) {
+
+		long[] words = new long[WORDS];
+		for (int k = 0; k < n; k++) {
+			words[array[k] >>> 6] |= 1L << array[k];
+		}
+		return words;
+	}
+
+	/**
+	 * Converts the given bitmap container into an array container.
+	 * 
+	 * @param words
+	 *            the words of the bitmap container
+	 * @param n
+	 *            the number of indexes
+	 * @return the low 16 bits of the indexes
+	 */
+	private static char[] toArray(long[] words, int n) {
+
+		char[] array = new char[n];
+		int j = 0;
+		for (int k = 0; k < WORDS; k++) {
+			long word = words[k];
+			while (word != 0) {
+				array[j++] = (char) ((k << 6) + Long.numberOfTrailingZeros(word));
+				word &= word - 1;
+			}
+		}
+		return array;
+	}
+
+	/**
+	 * Returns a description of this bitmap.
+	 * 
+	 * @return a description of this bitmap as a string
+	 */
+	public String toString() {
+
+		return "Bitmap {" + cardinality() + " indexes in " + m_Size
+				+ " containers}";
+	}
+}
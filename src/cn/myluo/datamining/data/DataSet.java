@@ -6,33 +6,66 @@
 
 package cn.myluo.datamining.data;
 
+import java.nio.Buffer;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.List;
 
 /**
  * Saves the data set from an TXT file.
  * 
+ * The instances are stored by column: a double buffer for each numeric
+ * attribute and an int buffer of value codes for each nominal attribute. The
+ * columns are arrays on the heap, or views of a mapped file for data sets
+ * loaded from the binary format. The list of instances is only a view which
+ * creates the instances when they are read.
+ * 
+ * The instances of each nominal value can be indexed by bitmaps, which are
+ * built when they are used and dropped when the data set changes.
+ * 
  * @author Luo Mingyuan
  * @version 1612
  */
 public class DataSet {
 
+	/** The initial capacity of columns. */
+	private static final int INITIAL_CAPACITY = 16;
+
 	/** The data set name. */
 	private String m_Name;
 
 	/** The list of attributes. */
 	private List<Attribute> m_Attributes;
 
-	/** The list of instances. */
+	/** The number of instances. */
+	private int m_NumInstances;
+
+	/** The capacity of columns. */
+	private int m_Capacity;
+
+	/** The columns of numeric attributes, null for nominal attributes. */
+	private List<DoubleBuffer> m_NumericColumns;
+
+	/** The columns of nominal attributes, null for numeric attributes. */
+	private List<IntBuffer> m_NominalColumns;
+
+	/** The view of instances. */
 	private List<Instance> m_Instances;
 
+	/** The bitmaps of nominal attributes by value codes, null until used. */
+	private Bitmap[][] m_Bitmaps;
+
 	/**
 	 * Creates a data set.
 	 */
 	public DataSet() {
 
 		m_Attributes = new ArrayList<Attribute>();
-		m_Instances = new ArrayList<Instance>();
+		m_NumericColumns = new ArrayList<DoubleBuffer>();
+		m_NominalColumns = new ArrayList<IntBuffer>();
+		m_Instances = new InstanceList();
 	}
 
 	/**
@@ -46,6 +79,46 @@ public class DataSet {
 		this.m_Name = name;
 	}
 
+	/**
+	 * Creates a data set with the given name, attributes and columns. The
+	 * columns are used without copying, they are copied to the heap only when
+	 * an instance is added.
+	 * 
+	 * @param name
+	 *            the given name
+	 * @param attributes
+	 *            the given attributes
+	 * @param columns
+	 *            the columns by the indexes of attributes, a DoubleBuffer for
+	 *            each numeric attribute and an IntBuffer for each nominal
+	 *            attribute
+	 * @param numInstances
+	 *            the number of instances in the columns
+	 */
+	public DataSet(String name, List<Attribute> attributes, Buffer[] columns,
+			int numInstances) {
+
+		this(name);
+		if (attributes.size() != columns.length)
+			throw new IllegalArgumentException("Expected " + attributes.size()
+					+ " columns, but got " + columns.length);
+		for (int i = 0; i < columns.length; i++) {
+			if (columns[i].limit() < numInstances)
+				throw new IllegalArgumentException("Column " + i + " has only "
+						+ columns[i].limit() + " values");
+			m_Attributes.add(attributes.get(i));
+			if (attributes.get(i).isNumeric()) {
+				m_NumericColumns.add((DoubleBuffer) columns[i]);
+				m_NominalColumns.add(null);
+			} else {
+				m_NumericColumns.add(null);
+				m_NominalColumns.add((IntBuffer) columns[i]);
+			}
+		}
+		m_NumInstances = numInstances;
+		m_Capacity = numInstances;
+	}
+
 	/**
 	 * Gets the data set name.
 	 * 
@@ -88,7 +161,24 @@ public class DataSet {
 	}
 
 	/**
-	 * Gets the list of instances.
+	 * Gets the index of the attribute with the given name.
+	 * 
+	 * @param name
+	 *            the given name
+	 * @return the index of the attribute, -1 if not found
+	 */
+	public int indexOfAttribute(String name) {
+
+		for (int i = 0; i < m_Attributes.size(); i++) {
+			if (m_Attributes.get(i).getName().equals(name))
+				return i;
+		}
+		return -1;
+	}
+
+	/**
+	 * Gets the list of instances. The list is a read-only view of the columns,
+	 * each instance is created when it is read.
 	 * 
 	 * @return the list of instances
 	 */
@@ -104,7 +194,133 @@ public class DataSet {
 	 */
 	public int numInstances() {
 
-		return m_Instances.size();
+		return m_NumInstances;
+	}
+
+	/**
+	 * Gets the numeric value of the given instance and attribute.
+	 * 
+	 * @param instance
+	 *            the index of the given instance
+	 * @param attribute
+	 *            the index of the given numeric attribute
+	 * @return the numeric value
+	 */
+	public double getValue(int instance, int attribute) {
+
+		return m_NumericColumns.get(attribute).get(instance);
+	}
+
+	/**
+	 * Gets the value code of the given instance and attribute.
+	 * 
+	 * @param instance
+	 *            the index of the given instance
+	 * @param attribute
+	 *            the index of the given nominal attribute
+	 * @return the value code, -1 if the value is missing
+	 */
+	public int getCode(int instance, int attribute) {
+
+		return m_NominalColumns.get(attribute).get(instance);
+	}
+
+	/**
+	 * Gets the value of the given instance and attribute as an object, a
+	 * string for both numeric and nominal attributes. A numeric value is
+	 * formatted from its double, with an integer printed without ".0", so the
+	 * text of the file such as "1.50" or "1e3" is not kept.
+	 * 
+	 * @param instance
+	 *            the index of the given instance
+	 * @param attribute
+	 *            the index of the given attribute
+	 * @return the value, null if the value is missing
+	 */
+	public Object getObject(int instance, int attribute) {
+
+		if (m_Attributes.get(attribute).isNumeric()) {
+			double value = getValue(instance, attribute);
+			return Double.isNaN(value) ? null : format(value);
+		}
+		int code = getCode(instance, attribute);
+		return code < 0 ? null : m_Attributes.get(attribute).getValue(code);
+	}
+
+	/**
+	 * Formats the given numeric value as a double, an integer is printed
+	 * without ".0".
+	 * 
+	 * @param value
+	 *            the given numeric value
+	 * @return the value as a string
+	 */
+	private static String format(double value) {
+
+		if (value == Math.rint(value) && Math.abs(value) < 1e15)
+			return Long.toString((long) value);
+		return Double.toString(value);
+	}
+
+	/**
+	 * Gets the column of the given numeric attribute. The column is a
+	 * read-only view of numInstances() values, it is not copied.
+	 * 
+	 * @param attribute
+	 *            the index of the given numeric attribute
+	 * @return the column of the given numeric attribute
+	 */
+	public DoubleBuffer getNumericColumn(int attribute) {
+
+		DoubleBuffer column = m_NumericColumns.get(attribute)
+				.asReadOnlyBuffer();
+		column.limit(m_NumInstances);
+		return column;
+	}
+
+	/**
+	 * Gets the column of the given nominal attribute. The column is a
+	 * read-only view of numInstances() codes, it is not copied.
+	 * 
+	 * @param attribute
+	 *            the index of the given nominal attribute
+	 * @return the column of the given nominal attribute
+	 */
+	public IntBuffer getNominalColumn(int attribute) {
+
+		IntBuffer column = m_NominalColumns.get(attribute).asReadOnlyBuffer();
+		column.limit(m_NumInstances);
+		return column;
+	}
+
+	/**
+	 * Gets the bitmaps of the instances of the given nominal attribute, one
+	 * for each value code. The bitmaps are built on the first call and kept
+	 * until the data set changes.
+	 * 
+	 * @param attribute
+	 *            the index of the given nominal attribute
+	 * @return the bitmaps of the instances by value codes
+	 */
+	public synchronized Bitmap[] getBitmaps(int attribute) {
+
+		if (m_Bitmaps == null)
+			m_Bitmaps = new Bitmap[m_Attributes.size()][];
+		if (m_Bitmaps[attribute] == null) {
+			Bitmap[] bitmaps = new Bitmap[m_Attributes.get(attribute)
+					.numValues()];
+			for (int i = 0; i < bitmaps.length; i++) {
+				bitmaps[i] = new Bitmap();
+			}
+			IntBuffer column = m_NominalColumns.get(attribute);
+			for (int i = 0; i < m_NumInstances; i++) {
+				int code = column.get(i);
+				if (code >= 0 && code < bitmaps.length)
+					bitmaps[code].add(i);
+			}
+			m_Bitmaps[attribute] = bitmaps;
+		}
+		return m_Bitmaps[attribute];
 	}
 
 	/**
@@ -120,11 +336,20 @@ public class DataSet {
 			return false;
 
 		m_Attributes.add(attribute);
+		m_Bitmaps = null;
+		if (attribute.isNumeric()) {
+			m_NumericColumns.add(newNumericColumn(null, m_Capacity));
+			m_NominalColumns.add(null);
+		} else {
+			m_NumericColumns.add(null);
+			m_NominalColumns.add(newNominalColumn(null, m_Capacity));
+		}
 		return true;
 	}
 
 	/**
-	 * Adds the given instance into the list of instances.
+	 * Adds the given instance into the list of instances. The values are
+	 * copied into the columns and counted by the attributes.
 	 * 
 	 * @param instance
 	 *            the given instance
@@ -135,10 +360,184 @@ public class DataSet {
 		if (instance == null)
 			return false;
 
-		m_Instances.add(instance);
+		// checks numeric values before any column is changed.
+		double[] values = new double[numAttributes()];
+		for (int i = 0; i < values.length; i++) {
+			Attribute a = m_Attributes.get(i);
+			if (!a.isNumeric())
+				continue;
+			Object value = instance.getValues().get(a.getName());
+			if (value == null) {
+				values[i] = Double.NaN;
+			} else if (value instanceof Number) {
+				values[i] = ((Number) value).doubleValue();
+			} else {
+				try {
+					values[i] = Double.parseDouble(value.toString());
+				} catch (NumberFormatException e) {
+					return false;
+				}
+			}
+		}
+
+		int[] codes = new int[values.length];
+		for (int i = 0; i < codes.length; i++) {
+			Attribute a = m_Attributes.get(i);
+			if (a.isNumeric())
+				continue;
+			Object value = instance.getValues().get(a.getName());
+			codes[i] = value == null ? -1 : a.addValue(value.toString());
+		}
+		return appendInstance(values, codes);
+	}
+
+	/**
+	 * Adds an instance with the given values and codes into the list of
+	 * instances. The codes are counted by the attributes.
+	 * 
+	 * @param values
+	 *            the values of numeric attributes by the indexes of attributes
+	 * @param codes
+	 *            the codes of nominal attributes by the indexes of attributes,
+	 *            -1 for missing values
+	 * @return true if add success, false otherwise.
+	 */
+	public boolean appendInstance(double[] values, int[] codes) {
+
+		if (values == null || codes == null)
+			return false;
+
+		ensureCapacity(m_NumInstances + 1);
+		m_Bitmaps = null;
+		for (int i = 0; i < m_Attributes.size(); i++) {
+			if (m_Attributes.get(i).isNumeric()) {
+				m_NumericColumns.get(i).put(m_NumInstances, values[i]);
+			} else {
+				m_NominalColumns.get(i).put(m_NumInstances, codes[i]);
+				m_Attributes.get(i).append(codes[i], 1);
+			}
+		}
+		m_NumInstances++;
 		return true;
 	}
 
+	/**
+	 * Grows the columns to the given capacity at least. Columns which are not
+	 * on the heap are copied even if they are large enough.
+	 * 
+	 * @param capacity
+	 *            the given capacity
+	 */
+	private void ensureCapacity(int capacity) {
+
+		if (capacity <= m_Capacity && !isReadOnly())
+			return;
+		int newCapacity = Math.max(Math.max(INITIAL_CAPACITY, capacity),
+				m_Capacity + (m_Capacity >> 1));
+		resize(newCapacity);
+	}
+
+	/**
+	 * Shrinks the columns to the number of instances.
+	 */
+	public void trimToSize() {
+
+		if (m_Capacity > m_NumInstances && !isReadOnly())
+			resize(m_NumInstances);
+	}
+
+	/**
+	 * Checks if any column can not be changed.
+	 * 
+	 * @return true if any column is read-only, false otherwise.
+	 */
+	private boolean isReadOnly() {
+
+		for (int i = 0; i < m_Attributes.size(); i++) {
+			Buffer column = m_Attributes.get(i).isNumeric() ? m_NumericColumns
+					.get(i) : m_NominalColumns.get(i);
+			if (column.isReadOnly())
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Copies the columns into new heap columns with the given capacity.
+	 * 
+	 * @param capacity
+	 *            the given capacity
+	 */
+	private void resize(int capacity) {
+
+		for (int i = 0; i < m_Attributes.size(); i++) {
+			if (m_Attributes.get(i).isNumeric()) {
+				m_NumericColumns.set(i,
+						newNumericColumn(m_NumericColumns.get(i), capacity));
+			} else {
+				m_NominalColumns.set(i,
+						newNominalColumn(m_NominalColumns.get(i), capacity));
+			}
+		}
+		m_Capacity = capacity;
+	}
+
+	/**
+	 * Creates a numeric heap column with the given capacity, the instances in
+	 * the given column are copied and other values are missing.
+	 * 
+	 * @param column
+	 *            the given column, may be null
+	 * @param capacity
+	 *            the given capacity
+	 * @return the new column
+	 */
+	private DoubleBuffer newNumericColumn(DoubleBuffer column, int capacity) {
+
+		DoubleBuffer newColumn = DoubleBuffer.allocate(capacity);
+		int n = 0;
+		if (column != null) {
+			n = Math.min(m_NumInstances, capacity);
+			DoubleBuffer src = column.duplicate();
+			src.position(0);
+			src.limit(n);
+			newColumn.put(src);
+		}
+		for (int i = n; i < capacity; i++) {
+			newColumn.put(i, Double.NaN);
+		}
+		newColumn.clear();
+		return newColumn;
+	}
+
+	/**
+	 * Creates a nominal heap column with the given capacity, the instances in
+	 * the given column are copied and other codes are missing.
+	 * 
+	 * @param column
+	 *            the given column, may be null
+	 * @param capacity
+	 *            the given capacity
+	 * @return the new column
+	 */
+	private IntBuffer newNominalColumn(IntBuffer column, int capacity) {
+
+		IntBuffer newColumn = IntBuffer.allocate(capacity);
+		int n = 0;
+		if (column != null) {
+			n = Math.min(m_NumInstances, capacity);
+			IntBuffer src = column.duplicate();
+			src.position(0);
+			src.limit(n);
+			newColumn.put(src);
+		}
+		for (int i = n; i < capacity; i++) {
+			newColumn.put(i, -1);
+		}
+		newColumn.clear();
+		return newColumn;
+	}
+
 	/**
 	 * Gets an abstract of this data set.
 	 * 
@@ -147,9 +546,9 @@ public class DataSet {
 	public String getAbstract() {
 
 		StringBuilder sb = new StringBuilder();
-		sb.append("ݼ:       " + getName() + "\n");
-		sb.append(":         " + numInstances() + "\n");
-		sb.append(":         " + numAttributes() + "\n");
+		sb.append("数据集:       " + getName() + "\n");
+		sb.append("数据:         " + numInstances() + "\n");
+		sb.append("属性:         " + numAttributes() + "\n");
 		for (Attribute a : getAttributes()) {
 			sb.append("              " + a.getName() + "\n");
 		}
@@ -173,4 +572,49 @@ public class DataSet {
 		}
 		return sb.toString();
 	}
+
+	/**
+	 * The read-only list of instances backed by the columns.
+	 */
+	private class InstanceList extends AbstractList<Instance> {
+
+		/**
+		 * Creates the instance at the given index. Numeric values are put as
+		 * doubles, so they are not parsed again, and nominal values as
+		 * strings.
+		 * 
+		 * @param index
+		 *            the given index
+		 * @return the instance at the given index
+		 */
+		public Instance get(int index) {
+
+			if (index < 0 || index >= m_NumInstances)
+				throw new IndexOutOfBoundsException("Index: " + index
+						+ ", Size: " + m_NumInstances);
+			Instance instance = new Instance();
+			for (int i = 0; i < m_Attributes.size(); i++) {
+				Object value;
+				if (m_Attributes.get(i).isNumeric()) {
+					double number = getValue(index, i);
+					value = Double.isNaN(number) ? null : (Object) number;
+				} else {
+					value = getObject(index, i);
+				}
+				if (value != null)
+					instance.append(m_Attributes.get(i).getName(), value);
+			}
+			return instance;
+		}
+
+		/**
+		 * Gets the number of instances.
+		 * 
+		 * @return the number of instances
+		 */
+		public int size() {
+
+			return m_NumInstances;
+		}
+	}
 }
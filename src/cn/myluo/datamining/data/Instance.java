@@ -38,6 +38,26 @@ public class Instance implements Comparable<Instance>, Cloneable {
 		return m_Values;
 	}
 
+	/**
+	 * Gets the numeric value of the given attribute. Numeric values of
+	 * instances from a data set are doubles, values added as text are parsed.
+	 * 
+	 * @param attribute
+	 *            the given attribute
+	 * @return the numeric value, NaN if the attribute has no value
+	 * @throws NumberFormatException
+	 *             if the value is not a number
+	 */
+	public double getValue(String attribute) {
+
+		Object value = m_Values.get(attribute);
+		if (value == null)
+			return Double.NaN;
+		if (value instanceof Number)
+			return ((Number) value).doubleValue();
+		return Double.parseDouble(value.toString());
+	}
+
 	/**
 	 * Gets the number of the instance values.
 	 * 
@@ -0,0 +1,194 @@
+/*
+ *    QuantileSketch.java
+ *    Copyright (C) 2016 NanChang University, JiangXi, China
+ *
+ */
+
+package cn.myluo.datamining.data;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * A streaming sketch of the quantiles of numeric values.
+ * 
+ * The values are kept in levels of buffers with k values each, a value of
+ * level h stands for 2^h values of the stream. When a buffer is full, it is
+ * sorted and compacted into the next level by keeping every other value, from
+ * the first and the second one in turn. So the sketch keeps O(k log(n / k))
+ * values, and the rank of a quantile is wrong by about n * log2(n / k) / k at
+ * most. While there are at most k values, the quantiles are exact.
+ * 
+ * @author Luo Mingyuan
+ * @version 1612
+ */
+public class QuantileSketch {
+
+	/** The number of values of a buffer, even. */
+	private int m_K;
+
+	/** The buffers by levels. */
+	private double[][] m_Levels;
+
+	/** The numbers of values of the buffers by levels. */
+	private int[] m_Sizes;
+
+	/** The offsets of the next compactions by levels, 0 or 1. */
+	private int[] m_Offsets;
+
+	/** The number of values added. */
+	private long m_Count;
+
+	/**
+	 * Creates an empty sketch with the given number of values of a buffer.
+	 * 
+	 * @param k
+	 *            the given number, rounded up to an even number of at least 2
+	 */
+	public QuantileSketch(int k) {
+
+		this.m_K = Math.max(2, k + (k & 1));
+		m_Levels = new double[1][m_K];
+		m_Sizes = new int[1];
+		m_Offsets = new int[1];
+	}
+
+	/**
+	 * Adds the given value into this sketch, NaN is ignored.
+	 * 
+	 * @param value
+	 *            the given value
+	 */
+	public void add(double value) {
+
+		if (Double.isNaN(value))
+			return;
+		m_Levels[0][m_Sizes[0]++] = value;
+		m_Count++;
+		for (int h = 0; m_Sizes[h] == m_K; h++) {
+			compact(h);
+		}
+	}
+
+	/**
+	 * Compacts the full buffer of the given level into the next level.
+	 * 
+	 * @param h
+	 *            the given level
+	 */
+	private void compact(int h) {
+
+		if (h + 1 == m_Levels.length) {
+			m_Levels = Arrays.copyOf(m_Levels, h + 2);
+			m_Levels[h + 1] = new double[m_K];
+			m_Sizes = Arrays.copyOf(m_Sizes, h + 2);
+			m_Offsets = Arrays.copyOf(m_Offsets, h + 2);
+		}
+		double[] buffer = m_Levels[h];
+		double[] next = m_Levels[h + 1];
+		Arrays.sort(buffer);
+		for (int i = m_Offsets[h]; i < m_K; i += 2) {
+			next[m_Sizes[h + 1]++] = buffer[i];
+		}
+		m_Offsets[h] ^= 1;
+		m_Sizes[h] = 0;
+	}
+
+	/**
+	 * Gets the number of values added.
+	 * 
+	 * @return the number of values added, without NaN
+	 */
+	public long count() {
+
+		return m_Count;
+	}
+
+	/**
+	 * Gets the values at the ranks i / numParts of the added values, for i
+	 * from 1 to numParts - 1.
+	 * 
+	 * @param numParts
+	 *            the number of parts the values are split into
+	 * @return the values in ascending order, empty if no value is added
+	 */
+	public double[] quantiles(int numParts) {
+
+		if (m_Count == 0 || numParts < 2)
+			return new double[0];
+		int size = 0;
+		for (int s : m_Sizes) {
+			size += s;
+		}
+		// the values with their weights, sorted by values.
+		double[] values = new double[size];
+		long[] weights = new long[size];
+		int n = 0;
+		for (int h = 0; h < m_Levels.length; h++) {
+			for (int i = 0; i < m_Sizes[h]; i++) {
+				values[n] = m_Levels[h][i];
+				weights[n++] = 1L << h;
+			}
+		}
+		sort(values, weights);
+
+		double[] quantiles = new double[numParts - 1];
+		long total = 0;
+		for (long w : weights) {
+			total += w;
+		}
+		long rank = 0;
+		int j = 0;
+		for (int i = 1; i < numParts; i++) {
+			// the first value whose rank reaches total * i / numParts.
+			double target = (double) total * i / numParts;
+			while (j < n - 1 && rank + weights[j] < target) {
+				rank += weights[j++];
+			}
+			quantiles[i - 1] = values[j];
+		}
+		return quantiles;
+	}
+
+	/**
+	 * Sorts the given values with their weights by the values.
+	 * 
+	 * @param values
+	 *            the given values
+	 * @param weights
+	 *            the weights of the values
+	 */
+	private static void sort(double[] values, long[] weights) {
+
+		Integer[] order = new Integer[values.length];
+		for (int i = 0; i < order.length; i++) {
+			order[i] = i;
+		}
+		final double[] keys = values.clone();
+		Arrays.sort(order, new Comparator<Integer>() {
+			public int compare(Integer o1, Integer o2) {
+				return Double.compare(keys[o1], keys[o2]);
+			}
+		});
+		long[] w = weights.clone();
+		for (int i = 0; i < order.length; i++) {
+			values[i] = keys[order[i]];
+			weights[i] = w[order[i]];
+		}
+	}
+
+	/**
+	 * Returns a description of this sketch.
+	 * 
+	 * @return a description of this sketch as a string
+	 */
+	public String toString() {
+
+		int size = 0;
+		for (int s : m_Sizes) {
+			size += s;
+		}
+		return "QuantileSketch {k: " + m_K + ", count: " + m_Count
+				+ ", levels: " + m_Levels.length + ", values: " + size + "}";
+	}
+}
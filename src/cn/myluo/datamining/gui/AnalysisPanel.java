@@ -24,6 +24,7 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.List;
 
 import javax.swing.BorderFactory;
 import javax.swing.DefaultComboBoxModel;
@@ -44,6 +45,7 @@ import cn.myluo.datamining.algorithm.ID3.ID3;
 import cn.myluo.datamining.algorithm.Kmeans.Kmeans;
 import cn.myluo.datamining.data.Attribute;
 import cn.myluo.datamining.data.DataSet;
+import cn.myluo.datamining.util.BinaryReader;
 import cn.myluo.datamining.util.Reader;
 
 /**
@@ -58,7 +60,7 @@ public class AnalysisPanel extends JPanel {
 	private static final long serialVersionUID = -4913007978534178569L;
 
 	/** The label for no source. */
-	protected JLabel m_FromLab = new JLabel("");
+	protected JLabel m_FromLab = new JLabel("无数据");
 
 	/** The file chooser for data source. */
 	protected JFileChooser m_FileChooser = new JFileChooser(new File(
@@ -75,10 +77,10 @@ public class AnalysisPanel extends JPanel {
 	protected Thread m_SaveThread;
 
 	/** The choose file button. */
-	protected JButton m_FromFileBut = new JButton("ļ...");
+	protected JButton m_FromFileBut = new JButton("文件...");
 
 	/** The algorithm label. */
-	protected JLabel m_AlgorithmClassesLabel = new JLabel("㷨",
+	protected JLabel m_AlgorithmClassesLabel = new JLabel("算法",
 			SwingConstants.RIGHT);
 
 	/** The string array for data mining algorithms. */
@@ -99,10 +101,10 @@ public class AnalysisPanel extends JPanel {
 	protected JTextField m_KTex = new JTextField("" + m_K);
 
 	/** The start mining button. */
-	protected JButton m_StartBtn = new JButton("ʼھ");
+	protected JButton m_StartBtn = new JButton("开始挖掘");
 
 	/** The save file button. */
-	protected JButton m_SaveBtn = new JButton("");
+	protected JButton m_SaveBtn = new JButton("保存结果");
 
 	/** The text area saving operations. */
 	protected JTextArea m_OperateText = new JTextArea();
@@ -156,7 +158,7 @@ public class AnalysisPanel extends JPanel {
 
 		// p1 is the choose file panel in the north of the analysis panel.
 		JPanel p1 = new JPanel();
-		p1.setBorder(BorderFactory.createTitledBorder("ݼ"));
+		p1.setBorder(BorderFactory.createTitledBorder("数据集"));
 		// p2 is the button panel in p1.
 		JPanel p2 = new JPanel();
 		p2.setBorder(BorderFactory.createEmptyBorder(5, 5, 10, 5));
@@ -180,7 +182,7 @@ public class AnalysisPanel extends JPanel {
 
 		// p3 is the panel including algorithms' parameters.
 		JPanel p3 = new JPanel();
-		p3.setBorder(BorderFactory.createTitledBorder("б"));
+		p3.setBorder(BorderFactory.createTitledBorder("参数列表"));
 		GridBagLayout gbL = new GridBagLayout();
 		p3.setLayout(gbL);
 
@@ -282,12 +284,12 @@ public class AnalysisPanel extends JPanel {
 				// check if the data set could mining in selected algorithm.
 				String error = getError();
 				if (error != null) {
-					if (JOptionPane.showOptionDialog(AnalysisPanel.this, "ݼ'"
-							+ m_Main.m_DataPanel.getDataSet().getName() + "'ʹ"
-							+ m_Algorithms[m_SelectedAlgorithmIndex] + "㷨.\n"
-							+ "ԭ:\n" + error, "ʼھ", 0,
+					if (JOptionPane.showOptionDialog(AnalysisPanel.this, "数据集'"
+							+ m_Main.m_DataPanel.getDataSet().getName() + "'不能使用"
+							+ m_Algorithms[m_SelectedAlgorithmIndex] + "算法.\n"
+							+ "原因:\n" + error, "开始挖掘", 0,
 							JOptionPane.ERROR_MESSAGE, null,
-							new String[] { "ȷ" }, null) == 1) {
+							new String[] { "确定" }, null) == 1) {
 
 					}
 					return;
@@ -304,7 +306,7 @@ public class AnalysisPanel extends JPanel {
 							.getAbstract();
 				// get data mining result.
 				String result = analysis();
-				printResult("㷨:         " + scheme + datasetAbstract, result);
+				printResult("算法:         " + scheme + datasetAbstract, result);
 			}
 		});
 		// bts adds start mining button.
@@ -350,7 +352,7 @@ public class AnalysisPanel extends JPanel {
 		// operation is the panel save all operations.
 		JPanel operation = new JPanel();
 		operation.setLayout(new BorderLayout());
-		operation.setBorder(BorderFactory.createTitledBorder("б"));
+		operation.setBorder(BorderFactory.createTitledBorder("操作列表"));
 		m_OperateText.setFont(new Font("Monospaced", Font.PLAIN, 12));
 		m_OperateText.setBorder(BorderFactory.createEmptyBorder(5, 5, 5, 5));
 		m_OperateText.setEditable(false);
@@ -368,7 +370,7 @@ public class AnalysisPanel extends JPanel {
 		// output is the result panel.
 		JPanel output = new JPanel();
 		output.setLayout(new BorderLayout());
-		output.setBorder(BorderFactory.createTitledBorder("ھ"));
+		output.setBorder(BorderFactory.createTitledBorder("挖掘结果"));
 		m_OutText.setFont(new Font("Monospaced", Font.PLAIN, 12));
 		m_OutText.setBorder(BorderFactory.createEmptyBorder(5, 5, 5, 5));
 		m_OutText.setEditable(false);
@@ -413,18 +415,22 @@ public class AnalysisPanel extends JPanel {
 
 		String error = null;
 		if (m_Main.m_DataPanel.getDataSet().numInstances() == 0) {
-			error = "û!";
+			error = "没有数据!";
 		} else if (m_SelectedAlgorithmIndex == 1
 				&& m_Main.m_DataPanel.getDataSet().numInstances() == 1) {
-			error = "û㹻!";
+			error = "没有足够的数据!";
 		} else {
-			for (Attribute a : m_Main.m_DataPanel.getDataSet().getAttributes()) {
-				if (m_SelectedAlgorithmIndex == 0 && a.getType().equals("0")) {
-					error = "!";
+			List<Attribute> attributes = m_Main.m_DataPanel.getDataSet()
+					.getAttributes();
+			for (Attribute a : attributes) {
+				// ID3 splits numeric attributes by thresholds.
+				if (m_SelectedAlgorithmIndex == 0 && a.getType().equals("0")
+						&& a == attributes.get(attributes.size() - 1)) {
+					error = "类别属性是连续型属性!";
 					break;
 				} else if (m_SelectedAlgorithmIndex == 1
 						&& a.getType().equals("1")) {
-					error = "!";
+					error = "包含分类型属性!";
 					break;
 				}
 			}
@@ -481,9 +487,9 @@ public class AnalysisPanel extends JPanel {
 			}
 		}
 		if (flag)
-			printOperation("\n");
-		JOptionPane.showMessageDialog(this, flag ? "ɹ!\nע⣺зʹLF" : "ʧ!",
-				"", JOptionPane.INFORMATION_MESSAGE);
+			printOperation("保存结果\n");
+		JOptionPane.showMessageDialog(this, flag ? "结果保存成功!\n注意：换行符使用LF！" : "结果保存失败!",
+				"保存结果", JOptionPane.INFORMATION_MESSAGE);
 	}
 
 	/**
@@ -511,9 +517,9 @@ public class AnalysisPanel extends JPanel {
 	 */
 	public void printResult(String runInfo, String result) {
 
-		m_OutText.setText("=== ھϢ ===\n\n");
+		m_OutText.setText("=== 挖掘信息 ===\n\n");
 		m_OutText.append(runInfo);
-		m_OutText.append("\n===  ===\n\n");
+		m_OutText.append("\n=== 结果 ===\n\n");
 		m_OutText.append(result);
 		m_OutText.paintImmediately(m_OutText.getBounds());
 		m_OutText.setCaretPosition(m_OutText.getText().length());
@@ -529,12 +535,21 @@ public class AnalysisPanel extends JPanel {
 
 		String fileType = file.getName();
 		try {
-			m_FromLab.setText("ȡļ...");
-			if (file.getName().toLowerCase().endsWith(".txt")) {
-				fileType = "txt";
-				Reader reader = new Reader(file);
-				DataSet dataset = reader.getDataSet();
-				int numErrorInstances = reader.numErrorInstances();
+			m_FromLab.setText("读取文件...");
+			if (Reader.accept(file) || BinaryReader.accept(file)) {
+				DataSet dataset;
+				int numErrorInstances = 0;
+				if (BinaryReader.accept(file)) {
+					fileType = BinaryReader.FILE_EXTENSION.substring(1);
+					dataset = new BinaryReader(file).getDataSet();
+				} else {
+					fileType = "txt";
+					Reader reader = new Reader(file);
+					if (reader.getError() != null)
+						throw reader.getError();
+					dataset = reader.getDataSet();
+					numErrorInstances = reader.numErrorInstances();
+				}
 				if (m_Main != null) {
 					m_Main.m_DataPanel.setDataSet(dataset);
 					m_Main.m_TabbedPane.setEnabledAt(1, true);
@@ -544,27 +559,27 @@ public class AnalysisPanel extends JPanel {
 				changeAlgorithm();
 				if (!m_StartBtn.isEnabled())
 					m_StartBtn.setEnabled(true);
-				printOperation("ݼ\n");
-				m_FromLab.setText("" + dataset.numInstances() + "");
+				printOperation("加载数据集\n");
+				m_FromLab.setText("获得" + dataset.numInstances() + "个数据");
 				if (numErrorInstances > 0) {
-					if (JOptionPane.showOptionDialog(AnalysisPanel.this, "ݼ'"
-							+ dataset.getName() + "'" + numErrorInstances
-							+ "(ֵȱʧʹ)!", "ݼ", 0,
+					if (JOptionPane.showOptionDialog(AnalysisPanel.this, "数据集'"
+							+ dataset.getName() + "'包含的" + numErrorInstances
+							+ "个错误数据(属性值缺失或类型错误)被忽略!", "加载数据集", 0,
 							JOptionPane.WARNING_MESSAGE, null,
-							new String[] { "ȷ" }, null) == 1) {
+							new String[] { "确定" }, null) == 1) {
 
 					}
 				}
 			} else {
-				throw new Exception("ʶļ");
+				throw new Exception("不能识别的文件类型");
 			}
 		} catch (Exception ex) {
-			m_FromLab.setText("ļ'" + file.getName() + "'ʶΪ" + fileType
-					+ "ļ.");
+			m_FromLab.setText("文件'" + file.getName() + "'不能识别为" + fileType
+					+ "文件.");
 			if (JOptionPane.showOptionDialog(AnalysisPanel.this,
-					"ļ'" + file.getName() + "'ʶΪ" + fileType + "ļ.\n"
-							+ "ԭ:\n" + ex.getMessage(), "ݼ", 0,
-					JOptionPane.ERROR_MESSAGE, null, new String[] { "ȷ" },
+					"文件'" + file.getName() + "'不能识别为" + fileType + "文件.\n"
+							+ "原因:\n" + ex.getMessage(), "加载数据集", 0,
+					JOptionPane.ERROR_MESSAGE, null, new String[] { "确定" },
 					null) == 1) {
 
 			}
@@ -580,7 +595,7 @@ public class AnalysisPanel extends JPanel {
 	public static void main(String[] args) {
 
 		try {
-			final JFrame jf = new JFrame("AnalysisPanel--ﲻܲ㷨");
+			final JFrame jf = new JFrame("AnalysisPanel--这里不能测试算法");
 			jf.getContentPane().setLayout(new BorderLayout());
 			AnalysisPanel sp = new AnalysisPanel();
 			jf.getContentPane().add(sp, BorderLayout.CENTER);
@@ -103,8 +103,7 @@ public class DataPanel extends JPanel {
 		 */
 		public Object getValueAt(int row, int column) {
 
-			return m_Dataset.getInstances().get(row).getValues()
-					.get(getColumnName(column));
+			return m_Dataset.getObject(row, column);
 		}
 
 		/**
@@ -141,7 +140,8 @@ public class DataPanel extends JPanel {
 		 */
 		public Class<?> getColumnClass(int col) {
 
-			return getValueAt(0, col).getClass();
+			Object value = getValueAt(0, col);
+			return value == null ? String.class : value.getClass();
 		}
 
 		/**
@@ -276,7 +276,7 @@ public class DataPanel extends JPanel {
 			final JFrame jf = new JFrame("DataPanel");
 			jf.getContentPane().setLayout(new BorderLayout());
 			DataPanel sp = new DataPanel();
-			sp.setDataSet(new Reader(new File(args[0])).getDataSet());
+			sp.setDataSet(Reader.readDataSet(new File(args[0])));
 			jf.getContentPane().add(sp, BorderLayout.CENTER);
 			jf.addWindowListener(new WindowAdapter() {
 				public void windowClosing(WindowEvent e) {
@@ -44,8 +44,8 @@ public class Main extends JPanel {
 		m_AnalysisPanel = new AnalysisPanel(this);
 		m_DataPanel = new DataPanel();
 
-		m_TabbedPane.addTab("ھ", m_AnalysisPanel);
-		m_TabbedPane.addTab("", m_DataPanel);
+		m_TabbedPane.addTab("挖掘", m_AnalysisPanel);
+		m_TabbedPane.addTab("数据", m_DataPanel);
 
 		m_TabbedPane.setSelectedIndex(0);
 		m_TabbedPane.setEnabledAt(1, false);
@@ -82,7 +82,7 @@ public class Main extends JPanel {
 
 		setLookAndFeel();
 		Main main = new Main();
-		final JFrame jf = new JFrame("ھ");
+		final JFrame jf = new JFrame("数据挖掘");
 		jf.getContentPane().setLayout(new BorderLayout());
 		jf.getContentPane().add(main, BorderLayout.CENTER);
 		jf.addWindowListener(new WindowAdapter() {
@@ -0,0 +1,244 @@
+/*
+ *    BinaryReader.java
+ *    Copyright (C) 2016 NanChang University, JiangXi, China
+ *
+ */
+
+package cn.myluo.datamining.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+import cn.myluo.datamining.data.Attribute;
+import cn.myluo.datamining.data.DataSet;
+
+/**
+ * Reads data set from a binary file written by BinaryWriter.
+ * 
+ * Only the header is parsed, the columns are mapped into memory and used by
+ * the data set without copying.
+ * 
+ * @author Luo Mingyuan
+ * @version 1612
+ */
+public class BinaryReader {
+
+	/** The file extension of binary data set files. */
+	public static final String FILE_EXTENSION = ".dmb";
+
+	/** The magic number of binary data set files, "DMB1" in the file. */
+	static final int MAGIC = 0x31424D44;
+
+	/** The version of the file format. */
+	static final int VERSION = 1;
+
+	/** The data set file. */
+	private File m_File;
+
+	/** The data set. */
+	private DataSet m_Dataset;
+
+	/**
+	 * Creates a reader with the given data set file.
+	 * 
+	 * @param file
+	 *            the given data set file
+	 * @throws IOException
+	 *             if the file can not be read or is not a binary data set
+	 */
+	public BinaryReader(File file) throws IOException {
+
+		this.m_File = file;
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			read(raf.getChannel());
+		} finally {
+			// the mapped columns stay valid after the file is closed.
+			raf.close();
+		}
+	}
+
+	/**
+	 * Gets the data set file
+	 * 
+	 * @return the data set file
+	 */
+	public File getFile() {
+
+		return m_File;
+	}
+
+	/**
+	 * Gets the data set
+	 * 
+	 * @return the data set
+	 */
+	public DataSet getDataSet() {
+
+		return m_Dataset;
+	}
+
+	/**
+	 * Checks if the given file is a binary data set file by its name.
+	 * 
+	 * @param file
+	 *            the given file
+	 * @return true if the file name ends with FILE_EXTENSION, false otherwise.
+	 */
+	public static boolean accept(File file) {
+
+		return file.getName().toLowerCase().endsWith(FILE_EXTENSION);
+	}
+
+	/**
+	 * Reads the header and maps the columns of the given channel.
+	 * 
+	 * @param channel
+	 *            the given channel
+	 * @throws IOException
+	 *             if the file can not be read or is not a binary data set
+	 */
+	private void read(FileChannel channel) throws IOException {
+
+		ByteBuffer prefix = ByteBuffer.allocate(12).order(
+				ByteOrder.LITTLE_ENDIAN);
+		readFully(channel, prefix, 0);
+		if (prefix.getInt(0) != MAGIC)
+			throw new IOException("Not a binary data set file: " + m_File);
+		if (prefix.getInt(4) != VERSION)
+			throw new IOException("Unsupported binary data set version: "
+					+ prefix.getInt(4));
+		int length = prefix.getInt(8);
+		if (length < 0 || 12L + length > channel.size())
+			throw new IOException("Broken binary data set header: " + m_File);
+		ByteBuffer header = ByteBuffer.allocate(length);
+		readFully(channel, header, 12);
+
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(
+				header.array()));
+		String name = readString(in);
+		int numInstances = in.readInt();
+		int numAttributes = in.readInt();
+		List<Attribute> attributes = new ArrayList<Attribute>();
+		for (int i = 0; i < numAttributes; i++) {
+			Attribute a = new Attribute(readString(in), readString(in));
+			int numValues = in.readInt();
+			for (int j = 0; j < numValues; j++) {
+				a.append(readString(in), in.readInt());
+			}
+			attributes.add(a);
+		}
+
+		Buffer[] columns = new Buffer[numAttributes];
+		long position = align(12L + length);
+		for (int i = 0; i < numAttributes; i++) {
+			long size = (attributes.get(i).isNumeric() ? 8L : 4L)
+					* numInstances;
+			if (size > Integer.MAX_VALUE)
+				throw new IOException("Column " + attributes.get(i).getName()
+						+ " is too large to be mapped");
+			if (position + size > channel.size())
+				throw new IOException("Broken binary data set file: " + m_File);
+			ByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY,
+					position, size).order(ByteOrder.LITTLE_ENDIAN);
+			columns[i] = attributes.get(i).isNumeric() ? bytes
+					.asDoubleBuffer() : bytes.asIntBuffer();
+			position = align(position + size);
+		}
+		m_Dataset = new DataSet(name, attributes, columns, numInstances);
+	}
+
+	/**
+	 * Reads the given buffer fully from the given position of the channel.
+	 * 
+	 * @param channel
+	 *            the given channel
+	 * @param buffer
+	 *            the given buffer
+	 * @param position
+	 *            the given position
+	 * @throws IOException
+	 *             if the end of file is reached
+	 */
+	private void readFully(FileChannel channel, ByteBuffer buffer,
+			long position) throws IOException {
+
+		while (buffer.hasRemaining()) {
+			int n = channel.read(buffer, position);
+			if (n < 0)
+				throw new IOException("Unexpected end of file: " + m_File);
+			position += n;
+		}
+	}
+
+	/**
+	 * Reads a string written by BinaryWriter.
+	 * 
+	 * @param in
+	 *            the input stream
+	 * @return the string, may be null
+	 * @throws IOException
+	 *             if the string can not be read
+	 */
+	public static String readString(DataInputStream in) throws IOException {
+
+		int length = in.readInt();
+		if (length < 0)
+			return null;
+		byte[] bytes = new byte[length];
+		in.readFully(bytes);
+		return new String(bytes, "UTF-8");
+	}
+
+	/**
+	 * Rounds the given position up to a multiple of 8.
+	 * 
+	 * @param position
+	 *            the given position
+	 * @return the aligned position
+	 */
+	public static long align(long position) {
+
+		return (position + 7) & ~7L;
+	}
+
+	/**
+	 * Returns a description of this BinaryReader.
+	 * 
+	 * @return a description of this BinaryReader as a string
+	 */
+	public String toString() {
+
+		return m_Dataset.toString();
+	}
+
+	/**
+	 * Tests this BinaryReader with the given data set in input file.
+	 * 
+	 * @param args
+	 *            should contain the name of an input file.
+	 */
+	public static void main(String[] args) {
+
+		if (args.length == 0) {
+			System.out.println("\nUsage: " + BinaryReader.class.getName()
+					+ " <dataset>\n");
+			return;
+		}
+
+		try {
+			System.out.println(new BinaryReader(new File(args[0])));
+		} catch (Exception e) {
+			System.out.println(e);
+		}
+	}
+}
@@ -0,0 +1,229 @@
+/*
+ *    BinaryWriter.java
+ *    Copyright (C) 2016 NanChang University, JiangXi, China
+ *
+ */
+
+package cn.myluo.datamining.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+
+import cn.myluo.datamining.data.Attribute;
+import cn.myluo.datamining.data.DataSet;
+
+/**
+ * Writes data set into a binary file.
+ * 
+ * The file starts with the magic number, the version and the length of the
+ * header. The header holds the data set name, the number of instances and the
+ * attributes with their values and numbers. The columns follow the header in
+ * the order of attributes, doubles for numeric attributes and value codes for
+ * nominal attributes, each column starts at a multiple of 8 bytes. The
+ * columns are little-endian so that they can be mapped by BinaryReader.
+ * 
+ * @author Luo Mingyuan
+ * @version 1612
+ */
+public class BinaryWriter {
+
+	/** The data set. */
+	private DataSet m_Dataset;
+
+	/**
+	 * Creates a writer with the given data set.
+	 * 
+	 * @param dataset
+	 *            the given data set
+	 */
+	public BinaryWriter(DataSet dataset) {
+
+		this.m_Dataset = dataset;
+	}
+
+	/**
+	 * Writes the data set into the given file.
+	 * 
+	 * @param file
+	 *            the given file
+	 * @throws IOException
+	 *             if the file can not be written
+	 */
+	public void write(File file) throws IOException {
+
+		byte[] header = header();
+		RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		try {
+			raf.setLength(0);
+			FileChannel channel = raf.getChannel();
+			ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16).order(
+					ByteOrder.LITTLE_ENDIAN);
+			buffer.putInt(BinaryReader.MAGIC);
+			buffer.putInt(BinaryReader.VERSION);
+			buffer.putInt(header.length);
+			long position = 12;
+			for (int i = 0; i < header.length;) {
+				int n = Math.min(buffer.remaining(), header.length - i);
+				buffer.put(header, i, n);
+				i += n;
+				position += n;
+				if (!buffer.hasRemaining())
+					flush(channel, buffer);
+			}
+			pad(channel, buffer, position);
+			for (int i = 0; i < m_Dataset.numAttributes(); i++) {
+				if (m_Dataset.getAttributes().get(i).isNumeric()) {
+					DoubleBuffer column = m_Dataset.getNumericColumn(i);
+					while (column.hasRemaining()) {
+						if (buffer.remaining() < 8)
+							flush(channel, buffer);
+						buffer.putDouble(column.get());
+					}
+					position = BinaryReader.align(position) + 8L
+							* m_Dataset.numInstances();
+				} else {
+					IntBuffer column = m_Dataset.getNominalColumn(i);
+					while (column.hasRemaining()) {
+						if (buffer.remaining() < 4)
+							flush(channel, buffer);
+						buffer.putInt(column.get());
+					}
+					position = BinaryReader.align(position) + 4L
+							* m_Dataset.numInstances();
+				}
+				pad(channel, buffer, position);
+			}
+			flush(channel, buffer);
+		} finally {
+			raf.close();
+		}
+	}
+
+	/**
+	 * Creates the header of the data set.
+	 * 
+	 * @return the header as bytes
+	 * @throws IOException
+	 *             never for an in-memory stream
+	 */
+	private byte[] header() throws IOException {
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		writeString(out, m_Dataset.getName());
+		out.writeInt(m_Dataset.numInstances());
+		out.writeInt(m_Dataset.numAttributes());
+		for (Attribute a : m_Dataset.getAttributes()) {
+			writeString(out, a.getName());
+			writeString(out, a.getType());
+			out.writeInt(a.numValues());
+			for (int i = 0; i < a.numValues(); i++) {
+				writeString(out, a.getValue(i));
+				out.writeInt(a.getCount(i));
+			}
+		}
+		out.flush();
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * Writes the given string as its length and UTF-8 bytes, the length is -1
+	 * for null.
+	 * 
+	 * @param out
+	 *            the output stream
+	 * @param str
+	 *            the given string
+	 * @throws IOException
+	 *             if the string can not be written
+	 */
+	public static void writeString(DataOutputStream out, String str)
+			throws IOException {
+
+		if (str == null) {
+			out.writeInt(-1);
+			return;
+		}
+		byte[] bytes = str.getBytes("UTF-8");
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	/**
+	 * Writes zero bytes until the given position is a multiple of 8.
+	 * 
+	 * @param channel
+	 *            the file channel
+	 * @param buffer
+	 *            the write buffer
+	 * @param position
+	 *            the given position
+	 * @throws IOException
+	 *             if the buffer can not be written
+	 */
+	private void pad(FileChannel channel, ByteBuffer buffer, long position)
+			throws IOException {
+
+		for (long i = position; i < BinaryReader.align(position); i++) {
+			if (!buffer.hasRemaining())
+				flush(channel, buffer);
+			buffer.put((byte) 0);
+		}
+	}
+
+	/**
+	 * Writes the content of the given buffer into the given channel.
+	 * 
+	 * @param channel
+	 *            the given channel
+	 * @param buffer
+	 *            the given buffer
+	 * @throws IOException
+	 *             if the buffer can not be written
+	 */
+	private void flush(FileChannel channel, ByteBuffer buffer)
+			throws IOException {
+
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+
+	/**
+	 * Converts the given TXT data set file into a binary file.
+	 * 
+	 * @param args
+	 *            must contain the name of an input file and an output file.
+	 */
+	public static void main(String[] args) {
+
+		if (args.length < 2) {
+			System.out.println("\nUsage: " + BinaryWriter.class.getName()
+					+ " <dataset> <output>\n");
+			return;
+		}
+
+		try {
+			Reader reader = new Reader(new File(args[0]), Runtime.getRuntime()
+					.availableProcessors());
+			if (reader.getError() != null)
+				throw reader.getError();
+			new BinaryWriter(reader.getDataSet()).write(new File(args[1]));
+			System.out.println(reader.getDataSet().numInstances()
+					+ " instances written, " + reader.numErrorInstances()
+					+ " error instances skipped.");
+		} catch (Exception e) {
+			System.out.println(e);
+		}
+	}
+}
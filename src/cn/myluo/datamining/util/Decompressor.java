@@ -0,0 +1,173 @@
+/*
+ *    Decompressor.java
+ *    Copyright (C) 2016 NanChang University, JiangXi, China
+ *
+ */
+
+package cn.myluo.datamining.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Reads a compressed stream on its own thread.
+ * 
+ * The thread fills buffers with the decompressed bytes and passes them to the
+ * reader of this stream through a bounded queue, so that decompressing and
+ * parsing run at the same time. Buffers are returned to the thread after they
+ * are read, the number of buffers limits the memory used ahead of the reader.
+ * 
+ * @author Luo Mingyuan
+ * @version 1612
+ */
+class Decompressor extends InputStream {
+
+	/** The size of buffers. */
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	/** The number of buffers. */
+	private static final int NUM_BUFFERS = 8;
+
+	/** The buffer which marks the end of stream. */
+	private static final ByteBuffer END = ByteBuffer.allocate(0);
+
+	/** The compressed stream. */
+	private InputStream m_In;
+
+	/** The buffers filled by the thread. */
+	private BlockingQueue<ByteBuffer> m_Full;
+
+	/** The buffers which can be filled. */
+	private BlockingQueue<ByteBuffer> m_Free;
+
+	/** The buffer being read. */
+	private ByteBuffer m_Current;
+
+	/** The thread which decompresses the stream. */
+	private Thread m_Thread;
+
+	/** The error of the thread. */
+	private volatile IOException m_Error;
+
+	/**
+	 * Creates a stream with the given compressed stream and starts the thread.
+	 * 
+	 * @param in
+	 *            the given compressed stream
+	 * @param name
+	 *            the name of the thread
+	 */
+	Decompressor(InputStream in, String name) {
+
+		this.m_In = in;
+		m_Full = new ArrayBlockingQueue<ByteBuffer>(NUM_BUFFERS + 1);
+		m_Free = new ArrayBlockingQueue<ByteBuffer>(NUM_BUFFERS);
+		for (int i = 0; i < NUM_BUFFERS; i++) {
+			m_Free.add(ByteBuffer.allocate(BUFFER_SIZE));
+		}
+		m_Thread = new Thread(name) {
+			public void run() {
+				decompress();
+			}
+		};
+		m_Thread.setDaemon(true);
+		m_Thread.start();
+	}
+
+	/**
+	 * Fills free buffers with the decompressed bytes until the end of stream.
+	 */
+	private void decompress() {
+
+		try {
+			try {
+				while (true) {
+					ByteBuffer buffer = m_Free.take();
+					buffer.clear();
+					byte[] b = buffer.array();
+					int n = 0;
+					while (n < b.length) {
+						int r = m_In.read(b, n, b.length - n);
+						if (r < 0)
+							break;
+						n += r;
+					}
+					if (n > 0) {
+						buffer.limit(n);
+						m_Full.put(buffer);
+					}
+					if (n < b.length)
+						break;
+				}
+			} catch (IOException e) {
+				m_Error = e;
+			}
+			m_Full.put(END);
+		} catch (InterruptedException e) {
+			// the stream is closed.
+		}
+	}
+
+	public int read() throws IOException {
+
+		if (!next())
+			return -1;
+		return m_Current.get() & 0xFF;
+	}
+
+	public int read(byte[] b, int off, int len) throws IOException {
+
+		if (len == 0)
+			return 0;
+		if (!next())
+			return -1;
+		int n = Math.min(len, m_Current.remaining());
+		m_Current.get(b, off, n);
+		return n;
+	}
+
+	/**
+	 * Takes the next filled buffer if the current buffer is read.
+	 * 
+	 * @return true if there are bytes to read, false if the end of stream is
+	 *         reached
+	 * @throws IOException
+	 *             if the compressed stream can not be read
+	 */
+	private boolean next() throws IOException {
+
+		while (m_Current == null || !m_Current.hasRemaining()) {
+			if (m_Current == END)
+				return false;
+			if (m_Current != null)
+				m_Free.add(m_Current);
+			try {
+				m_Current = m_Full.take();
+			} catch (InterruptedException e) {
+				throw new InterruptedIOException();
+			}
+			if (m_Current == END && m_Error != null)
+				throw new IOException(m_Error.getMessage(), m_Error);
+		}
+		return true;
+	}
+
+	/**
+	 * Stops the thread and closes the compressed stream.
+	 */
+	public void close() throws IOException {
+
+		m_Thread.interrupt();
+		try {
+			m_Thread.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		m_Current = END;
+		m_In.close();
+	}
+}
@@ -6,15 +6,29 @@
 
 package cn.myluo.datamining.util;
 
-import java.io.BufferedReader;
+import java.io.BufferedInputStream;
+import java.io.Closeable;
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.StreamTokenizer;
+import java.io.UncheckedIOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipInputStream;
 
 import cn.myluo.datamining.data.Attribute;
 import cn.myluo.datamining.data.DataSet;
@@ -23,19 +37,33 @@ import cn.myluo.datamining.data.Instance;
 /**
  * Reads data set from an TXT file.
  * 
+ * The reader either loads all instances into the data set, or streams them
+ * one by one when it is created by open(File), so that files larger than
+ * memory can be read. In streaming mode the data set only holds the name and
+ * attributes.
+ * 
+ * A reader created with a parallelism greater than 1 splits the instances of
+ * the file into chunks at line boundaries and parses them on a fork-join pool.
+ * The chunks are merged in the order of the file, so the instances, value
+ * codes and numbers are the same as those of a sequential load.
+ * 
+ * TXT files compressed by gzip (".gz") or zip (".zip", the first entry) are
+ * read directly, they are decompressed on another thread while the parser
+ * reads the decompressed bytes. Compressed files are always read sequentially.
+ * 
  * @author Luo Mingyuan
  * @version 1612
  */
-public class Reader {
+public class Reader implements Iterable<Instance>, Closeable {
 
 	/** The data set file. */
 	private File m_File;
 
-	/** The file reader. */
-	private java.io.Reader m_Reader;
+	/** The file input stream. */
+	private InputStream m_In;
 
 	/** The file tokenizer. */
-	private StreamTokenizer m_Tokenizer;
+	private Tokenizer m_Tokenizer;
 
 	/** The data set. */
 	private DataSet m_Dataset;
@@ -43,6 +71,30 @@ public class Reader {
 	/** The number of error instances. */
 	private int m_NumErrorInstances;
 
+	/** The numeric values of the current instance. */
+	private double[] m_Values;
+
+	/** The value codes of the current instance. */
+	private int[] m_Codes;
+
+	/** Whether the first data line is read with the attributes. */
+	private boolean m_Pending;
+
+	/** The error which ended the reading, null if there is none. */
+	private IOException m_Error;
+
+	/** The file extension of TXT data set files. */
+	public static final String FILE_EXTENSION = ".txt";
+
+	/** The file extensions of compressed TXT data set files. */
+	public static final String[] COMPRESSED_EXTENSIONS = { ".gz", ".zip" };
+
+	/** The minimum number of bytes of a chunk in parallel mode. */
+	private static final int MIN_CHUNK_SIZE = 1 << 20;
+
+	/** The number of chunks for each thread in parallel mode. */
+	private static final int CHUNKS_PER_THREAD = 4;
+
 	/**
 	 * Creates a reader.
 	 */
@@ -63,6 +115,49 @@ public class Reader {
 		setReader(file);
 		initTokenizer();
 		read();
+		close();
+	}
+
+	/**
+	 * Creates a reader with the given data set file, the instances are parsed
+	 * by the given number of threads.
+	 * 
+	 * @param file
+	 *            the given data set file
+	 * @param parallelism
+	 *            the number of threads, the file is read sequentially if it is
+	 *            not greater than 1
+	 */
+	public Reader(File file, int parallelism) {
+
+		this();
+		setReader(file);
+		initTokenizer();
+		readHeader();
+		if (parallelism > 1 && m_Pending && !isCompressed(file)) {
+			readChunks(parallelism);
+		} else {
+			readInstances();
+		}
+		close();
+	}
+
+	/**
+	 * Opens the given data set file for streaming. Only the data set name and
+	 * attributes are read, the instances are read by next() or the iterator
+	 * and are not kept.
+	 * 
+	 * @param file
+	 *            the given data set file
+	 * @return the reader in streaming mode
+	 */
+	public static Reader open(File file) {
+
+		Reader reader = new Reader();
+		reader.setReader(file);
+		reader.initTokenizer();
+		reader.readHeader();
+		return reader;
 	}
 
 	/**
@@ -85,6 +180,18 @@ public class Reader {
 		return m_Dataset;
 	}
 
+	/**
+	 * Gets the error which ended the reading, such as a file which can not be
+	 * opened or a corrupt compressed file. The data set has only the
+	 * instances before the error.
+	 * 
+	 * @return the error, null if the whole file is read
+	 */
+	public IOException getError() {
+
+		return m_Error;
+	}
+
 	/**
 	 * Gets the number of the error instances.
 	 * 
@@ -95,6 +202,85 @@ public class Reader {
 		return m_NumErrorInstances;
 	}
 
+	/**
+	 * Checks if the given file is a TXT data set file or a compressed one by its
+	 * name.
+	 * 
+	 * @param file
+	 *            the given file
+	 * @return true if the file name ends with FILE_EXTENSION, with or without
+	 *         one of COMPRESSED_EXTENSIONS, false otherwise.
+	 */
+	public static boolean accept(File file) {
+
+		String name = file.getName().toLowerCase();
+		for (String extension : COMPRESSED_EXTENSIONS) {
+			if (name.endsWith(extension))
+				name = name.substring(0, name.length() - extension.length());
+		}
+		return name.endsWith(FILE_EXTENSION);
+	}
+
+	/**
+	 * Checks if the given file is compressed by its name.
+	 * 
+	 * @param file
+	 *            the given file
+	 * @return true if the file name ends with one of COMPRESSED_EXTENSIONS,
+	 *         false otherwise.
+	 */
+	public static boolean isCompressed(File file) {
+
+		String name = file.getName().toLowerCase();
+		for (String extension : COMPRESSED_EXTENSIONS) {
+			if (name.endsWith(extension))
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Reads the data set from the given TXT file or binary file.
+	 * 
+	 * @param file
+	 *            the given data set file
+	 * @return the data set
+	 * @throws IOException
+	 *             if the file can not be read
+	 */
+	public static DataSet readDataSet(File file) throws IOException {
+
+		if (BinaryReader.accept(file))
+			return new BinaryReader(file).getDataSet();
+		Reader reader = new Reader(file);
+		if (reader.getError() != null)
+			throw reader.getError();
+		return reader.getDataSet();
+	}
+
+	/**
+	 * Reads the data set from the given TXT file or binary file, the TXT file
+	 * is parsed by the given number of threads.
+	 * 
+	 * @param file
+	 *            the given data set file
+	 * @param parallelism
+	 *            the number of threads
+	 * @return the data set
+	 * @throws IOException
+	 *             if the file can not be read
+	 */
+	public static DataSet readDataSet(File file, int parallelism)
+			throws IOException {
+
+		if (BinaryReader.accept(file))
+			return new BinaryReader(file).getDataSet();
+		Reader reader = new Reader(file, parallelism);
+		if (reader.getError() != null)
+			throw reader.getError();
+		return reader.getDataSet();
+	}
+
 	/**
 	 * Sets the reader with the given data set file.
 	 * 
@@ -104,33 +290,56 @@ public class Reader {
 	private void setReader(File file) {
 
 		try {
-			m_Reader = new BufferedReader(new InputStreamReader(
-					new FileInputStream(file)));
+			m_In = openStream(file);
 			this.m_File = file;
-		} catch (FileNotFoundException e) {
-			e.printStackTrace();
+		} catch (IOException e) {
+			m_Error = e;
 		}
 	}
 
 	/**
-	 * Initializes the StreamTokenizer used for reading the TXT file.
+	 * Opens the given file, a compressed file is decompressed by a
+	 * Decompressor.
+	 * 
+	 * @param file
+	 *            the given file
+	 * @return the input stream of the TXT content
+	 * @throws IOException
+	 *             if the file can not be opened
+	 */
+	private static InputStream openStream(File file) throws IOException {
+
+		InputStream in = new FileInputStream(file);
+		if (!isCompressed(file))
+			return in;
+
+		String name = file.getName().toLowerCase();
+		try {
+			if (name.endsWith(".gz"))
+				return new Decompressor(new GZIPInputStream(in, 1 << 16),
+						"Decompressor-" + file.getName());
+
+			ZipInputStream zip = new ZipInputStream(new BufferedInputStream(
+					in, 1 << 16));
+			if (zip.getNextEntry() == null)
+				throw new IOException("Empty zip file: " + file);
+			return new Decompressor(zip, "Decompressor-" + file.getName());
+		} catch (IOException e) {
+			in.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Initializes the Tokenizer used for reading the TXT file. Words are
+	 * decoded with the default charset.
 	 */
 	private void initTokenizer() {
 
-		if (m_Reader == null)
+		if (m_In == null)
 			return;
 
-		m_Tokenizer = new StreamTokenizer(m_Reader);
-		m_Tokenizer.resetSyntax();
-		m_Tokenizer.whitespaceChars(0, ' ' - 1);
-		m_Tokenizer.wordChars(' ', '\u00FF');
-		m_Tokenizer.whitespaceChars(',', ',');
-		m_Tokenizer.commentChar('%');
-		m_Tokenizer.quoteChar('"');
-		// tokenizer.quoteChar('\'');
-		m_Tokenizer.ordinaryChar('{');
-		m_Tokenizer.ordinaryChar('}');
-		m_Tokenizer.eolIsSignificant(true);
+		m_Tokenizer = new Tokenizer(m_In, Charset.defaultCharset());
 	}
 
 	/**
@@ -138,123 +347,495 @@ public class Reader {
 	 */
 	private void read() {
 
-		if (m_Tokenizer == null)
-			return;
+		readHeader();
+		readInstances();
+	}
 
-		m_Dataset.setName(readName());
+	/**
+	 * Reads the instances after the attributes into the data set.
+	 */
+	private void readInstances() {
 
-		// Saves the current line.
-		List<String> line = null;
-		boolean dataStart = false;
+		while (readNext()) {
+			m_Dataset.appendInstance(m_Values, m_Codes);
+		}
+		m_Dataset.trimToSize();
+	}
+
+	/**
+	 * Reads the instances after the attributes in chunks with the given number
+	 * of threads. Each chunk is read into its own data set, and the chunks are
+	 * merged in the order of the file.
+	 * 
+	 * @param parallelism
+	 *            the given number of threads
+	 */
+	private void readChunks(int parallelism) {
+
+		long start = m_Tokenizer.getLineStart();
+		close();
+		ForkJoinPool pool = new ForkJoinPool(parallelism);
 		try {
-			while (m_Tokenizer.nextToken() != StreamTokenizer.TT_EOF) {
-				if (m_Tokenizer.ttype != StreamTokenizer.TT_EOL) {
-					if (line == null)
-						line = new ArrayList<String>();
-					if (m_Tokenizer.ttype == StreamTokenizer.TT_WORD) {
-						line.add(m_Tokenizer.sval);
-					} else if (m_Tokenizer.ttype == StreamTokenizer.TT_NUMBER) {
-						line.add("" + m_Tokenizer.nval);
-					}
-				} else {
-					// Checks if the current line is attribute.
-					if (!dataStart
-							&& line != null
-							&& line.size() == 2
-							&& (line.get(1).equals("0") || line.get(1).equals(
-									"1"))) {
-						m_Dataset.appendAttribute(readAttribute(line));
-					} else if (line != null && line.size() > 0) {
-						dataStart = true;
-						m_Dataset.appendInstance(readInstance(
-								m_Dataset.getAttributes(), line));
-					}
-					line = null;
+			RandomAccessFile raf = new RandomAccessFile(m_File, "r");
+			try {
+				final FileChannel channel = raf.getChannel();
+				long[] bounds = split(channel, start, channel.size(),
+						parallelism * CHUNKS_PER_THREAD);
+				List<ForkJoinTask<Reader>> tasks = new ArrayList<ForkJoinTask<Reader>>();
+				for (int i = 0; i + 1 < bounds.length; i++) {
+					final long from = bounds[i];
+					final long to = bounds[i + 1];
+					tasks.add(pool.submit(new Callable<Reader>() {
+
+						public Reader call() {
+
+							return readChunk(channel, from, to);
+						}
+					}));
 				}
+				List<Reader> chunks = new ArrayList<Reader>();
+				for (ForkJoinTask<Reader> task : tasks) {
+					Reader chunk = task.join();
+					if (m_Error == null)
+						m_Error = chunk.m_Error;
+					chunks.add(chunk);
+				}
+				merge(chunks, pool);
+			} finally {
+				raf.close();
 			}
-			if (!dataStart && line != null && line.size() == 2
-					&& (line.get(1).equals("0") || line.get(1).equals("1"))) {
-				m_Dataset.appendAttribute(readAttribute(line));
-			} else if (line != null && line.size() > 0) {
-				dataStart = true;
-				m_Dataset.appendInstance(readInstance(
-						m_Dataset.getAttributes(), line));
-			}
-			line = null;
 		} catch (IOException e) {
-			e.printStackTrace();
+			m_Error = e;
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Reads the instances between the given positions of the channel into a
+	 * new data set with the attributes of this reader.
+	 * 
+	 * @param channel
+	 *            the channel of the data set file
+	 * @param from
+	 *            the start of the chunk, at the start of a line
+	 * @param to
+	 *            the end of the chunk, at the start of a line
+	 * @return the reader of the chunk
+	 */
+	private Reader readChunk(FileChannel channel, long from, long to) {
+
+		Reader chunk = new Reader();
+		chunk.m_File = m_File;
+		chunk.m_Dataset.setName(m_Dataset.getName());
+		for (Attribute a : m_Dataset.getAttributes()) {
+			chunk.m_Dataset.appendAttribute(new Attribute(a.getName(), a
+					.getType()));
 		}
+		chunk.m_In = new ChunkInputStream(channel, from, to);
+		chunk.initTokenizer();
+		chunk.readInstances();
+		chunk.close();
+		return chunk;
 	}
 
 	/**
-	 * Reads the data set name.
+	 * Merges the given chunks into the data set in order. Value codes of the
+	 * chunks are mapped to the codes of the data set, which are added in the
+	 * order of chunks, and the columns are copied in parallel.
 	 * 
-	 * @return the data set name
+	 * @param chunks
+	 *            the readers of the chunks in the order of the file
+	 * @param pool
+	 *            the pool to copy the columns
 	 */
-	private String readName() {
+	private void merge(List<Reader> chunks, ForkJoinPool pool) {
+
+		List<Attribute> attributes = m_Dataset.getAttributes();
+		final int[][][] maps = new int[chunks.size()][attributes.size()][];
+		final int[] offsets = new int[chunks.size()];
+		int numInstances = 0;
+		for (int i = 0; i < chunks.size(); i++) {
+			Reader chunk = chunks.get(i);
+			for (int j = 0; j < attributes.size(); j++) {
+				Attribute a = attributes.get(j);
+				Attribute local = chunk.m_Dataset.getAttributes().get(j);
+				if (a.isNumeric())
+					continue;
+				maps[i][j] = new int[local.numValues()];
+				for (int k = 0; k < local.numValues(); k++) {
+					maps[i][j][k] = a.addValue(local.getValue(k));
+					a.append(maps[i][j][k], local.getCount(k));
+				}
+			}
+			offsets[i] = numInstances;
+			numInstances += chunk.m_Dataset.numInstances();
+			m_NumErrorInstances += chunk.m_NumErrorInstances;
+		}
+
+		final Buffer[] columns = new Buffer[attributes.size()];
+		for (int j = 0; j < attributes.size(); j++) {
+			columns[j] = attributes.get(j).isNumeric() ? DoubleBuffer
+					.allocate(numInstances) : IntBuffer.allocate(numInstances);
+		}
+		List<ForkJoinTask<?>> tasks = new ArrayList<ForkJoinTask<?>>();
+		for (int i = 0; i < chunks.size(); i++) {
+			final DataSet chunk = chunks.get(i).m_Dataset;
+			final int index = i;
+			tasks.add(pool.submit(new Runnable() {
+
+				public void run() {
+
+					copy(chunk, columns, offsets[index], maps[index]);
+				}
+			}));
+		}
+		for (ForkJoinTask<?> task : tasks) {
+			task.join();
+		}
+		m_Dataset = new DataSet(m_Dataset.getName(), attributes, columns,
+				numInstances);
+	}
+
+	/**
+	 * Copies the columns of the given chunk into the given columns at the
+	 * given offset.
+	 * 
+	 * @param chunk
+	 *            the data set of the chunk
+	 * @param columns
+	 *            the columns of the data set
+	 * @param offset
+	 *            the index of the first instance of the chunk
+	 * @param maps
+	 *            the maps from the value codes of the chunk to the value codes
+	 *            of the data set by attributes
+	 */
+	private static void copy(DataSet chunk, Buffer[] columns, int offset,
+			int[][] maps) {
+
+		for (int j = 0; j < columns.length; j++) {
+			if (maps[j] == null) {
+				DoubleBuffer column = ((DoubleBuffer) columns[j]).duplicate();
+				column.position(offset);
+				column.put(chunk.getNumericColumn(j));
+			} else {
+				IntBuffer column = (IntBuffer) columns[j];
+				IntBuffer codes = chunk.getNominalColumn(j);
+				for (int k = 0; k < chunk.numInstances(); k++) {
+					column.put(offset + k, maps[j][codes.get(k)]);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Splits the given range of the channel into chunks at line boundaries.
+	 * 
+	 * @param channel
+	 *            the channel of the data set file
+	 * @param start
+	 *            the start of the range, at the start of a line
+	 * @param end
+	 *            the end of the range
+	 * @param numChunks
+	 *            the maximum number of chunks
+	 * @return the bounds of chunks, from start to end
+	 * @throws IOException
+	 *             if the file can not be read
+	 */
+	private static long[] split(FileChannel channel, long start, long end,
+			int numChunks) throws IOException {
+
+		numChunks = (int) Math.max(1,
+				Math.min(numChunks, (end - start) / MIN_CHUNK_SIZE));
+		List<Long> bounds = new ArrayList<Long>();
+		bounds.add(start);
+		ByteBuffer buffer = ByteBuffer.allocate(1 << 12);
+		for (int i = 1; i < numChunks; i++) {
+			long position = Math.max(start + (end - start) * i / numChunks,
+					bounds.get(bounds.size() - 1));
+			position = nextLine(channel, buffer, position, end);
+			if (position < end && position > bounds.get(bounds.size() - 1))
+				bounds.add(position);
+		}
+		bounds.add(end);
+		long[] result = new long[bounds.size()];
+		for (int i = 0; i < result.length; i++) {
+			result[i] = bounds.get(i);
+		}
+		return result;
+	}
+
+	/**
+	 * Finds the start of the line after the given position. "\r", "\n" and
+	 * "\r\n" all end a line like in the Tokenizer.
+	 * 
+	 * @param channel
+	 *            the channel of the data set file
+	 * @param buffer
+	 *            the buffer to read the channel
+	 * @param position
+	 *            the given position
+	 * @param end
+	 *            the end of the range
+	 * @return the start of the next line, or end if there is none
+	 * @throws IOException
+	 *             if the file can not be read
+	 */
+	private static long nextLine(FileChannel channel, ByteBuffer buffer,
+			long position, long end) throws IOException {
+
+		boolean cr = false;
+		while (position < end) {
+			buffer.clear();
+			int n = channel.read(buffer, position);
+			if (n <= 0)
+				break;
+			for (int i = 0; i < n && position < end; i++, position++) {
+				byte b = buffer.get(i);
+				if (cr)
+					return b == '\n' ? position + 1 : position;
+				if (b == '\n')
+					return position + 1;
+				cr = b == '\r';
+			}
+		}
+		return end;
+	}
+
+	/**
+	 * Reads the data set name and attributes. The first data line is kept
+	 * for the first instance.
+	 */
+	private void readHeader() {
+
+		if (m_Tokenizer == null)
+			return;
 
-		String name = null;
 		try {
-			while (m_Tokenizer.nextToken() != StreamTokenizer.TT_EOF) {
-				if (name != null && m_Tokenizer.ttype == StreamTokenizer.TT_EOL)
+			// the first word is the data set name.
+			if (m_Tokenizer.readLine() < 0) {
+				m_Dataset.setName("");
+				return;
+			}
+			m_Dataset.setName(m_Tokenizer.getString(0));
+
+			while (m_Tokenizer.readLine() >= 0) {
+				// Checks if the current line is attribute.
+				if (m_Tokenizer.numWords() == 2
+						&& (m_Tokenizer.isChar(1, '0') || m_Tokenizer.isChar(1,
+								'1'))) {
+					m_Dataset.appendAttribute(readAttribute());
+				} else {
+					m_Pending = true;
 					break;
-				if (m_Tokenizer.ttype == StreamTokenizer.TT_WORD
-						&& name == null) {
-					name = m_Tokenizer.sval;
 				}
 			}
 		} catch (IOException e) {
-			e.printStackTrace();
+			m_Error = e;
 		}
-		return name != null ? name : "";
 	}
 
 	/**
 	 * Reads a attribute with the current line.
 	 * 
-	 * @param line
-	 *            the current line
 	 * @return the attribute with the current line
 	 */
-	private Attribute readAttribute(List<String> line) {
+	private Attribute readAttribute() {
+
+		return new Attribute(m_Tokenizer.getString(0),
+				m_Tokenizer.getString(1));
+	}
+
+	/**
+	 * Reads the next instance which is not an error instance. An error of the
+	 * file ends the reading and is kept by getError().
+	 * 
+	 * @return true if an instance is read, false if the end of file is reached
+	 *         or the file can not be read
+	 */
+	private boolean readNext() {
+
+		if (m_Tokenizer == null || m_Error != null)
+			return false;
 
-		return new Attribute(line.get(0), line.get(1));
+		try {
+			boolean line = m_Pending || m_Tokenizer.readLine() >= 0;
+			m_Pending = false;
+			while (line) {
+				if (readInstance(m_Dataset.getAttributes()))
+					return true;
+				line = m_Tokenizer.readLine() >= 0;
+			}
+		} catch (IOException e) {
+			m_Error = e;
+		}
+		return false;
 	}
 
 	/**
-	 * Reads a instance with the current line and the given attributes.
+	 * Reads a instance with the current line and the given attributes. Numeric
+	 * values are parsed from the bytes of the line, and nominal values are
+	 * stored as the codes of the given attributes.
 	 * 
 	 * @param attributes
 	 *            the given attributes
-	 * @param line
-	 *            the current line
-	 * @return the instance with the current line and the given attributes
+	 * @return true if the instance is read, false if it is an error instance.
 	 */
-	private Instance readInstance(List<Attribute> attributes, List<String> line) {
+	private boolean readInstance(List<Attribute> attributes) {
 
 		// Checks length
-		if (attributes.size() != line.size()) {
+		if (attributes.size() != m_Tokenizer.numWords()) {
 			m_NumErrorInstances++;
-			return null;
+			return false;
 		}
 
-		Instance instance = new Instance();
-		for (int i = 0; i < line.size(); i++) {
+		if (m_Codes == null || m_Codes.length != attributes.size()) {
+			m_Values = new double[attributes.size()];
+			m_Codes = new int[attributes.size()];
+		}
+		for (int i = 0; i < m_Values.length; i++) {
 			// Checks type
-			if (attributes.get(i).getType().equals("0")) {
+			if (attributes.get(i).isNumeric()) {
 				try {
-					Double.parseDouble(line.get(i));
+					m_Values[i] = m_Tokenizer.getDouble(i);
 				} catch (NumberFormatException e) {
 					m_NumErrorInstances++;
-					return null;
+					return false;
 				}
 			}
-			instance.append(attributes.get(i).getName(), line.get(i));
-			attributes.get(i).append(line.get(i), 1);
+		}
+		for (int i = 0; i < m_Codes.length; i++) {
+			if (!attributes.get(i).isNumeric())
+				m_Codes[i] = m_Tokenizer.addValue(i, attributes.get(i));
+		}
+		return true;
+	}
+
+	/**
+	 * Reads the next instance in streaming mode. Error instances are skipped
+	 * and counted by numErrorInstances(), the values of the instance are
+	 * counted by the attributes.
+	 * 
+	 * @return true if an instance is read, false if the end of file is reached
+	 * @throws UncheckedIOException
+	 *             if the file can not be read, such as a corrupt compressed
+	 *             file
+	 */
+	public boolean next() {
+
+		if (!readNext()) {
+			if (m_Error != null)
+				throw new UncheckedIOException(m_Error);
+			return false;
+		}
+		for (int i = 0; i < m_Codes.length; i++) {
+			Attribute a = m_Dataset.getAttributes().get(i);
+			if (!a.isNumeric())
+				a.append(m_Codes[i], 1);
+		}
+		return true;
+	}
+
+	/**
+	 * Gets the numeric value of the given attribute in the current instance.
+	 * 
+	 * @param attribute
+	 *            the index of the given numeric attribute
+	 * @return the numeric value
+	 */
+	public double getValue(int attribute) {
+
+		return m_Values[attribute];
+	}
+
+	/**
+	 * Gets the value code of the given attribute in the current instance.
+	 * 
+	 * @param attribute
+	 *            the index of the given nominal attribute
+	 * @return the value code
+	 */
+	public int getCode(int attribute) {
+
+		return m_Codes[attribute];
+	}
+
+	/**
+	 * Gets the current instance.
+	 * 
+	 * @return the current instance
+	 */
+	public Instance getInstance() {
+
+		Instance instance = new Instance();
+		for (int i = 0; i < m_Codes.length; i++) {
+			Attribute a = m_Dataset.getAttributes().get(i);
+			instance.append(a.getName(),
+					a.isNumeric() ? (Object) m_Values[i] : a
+							.getValue(m_Codes[i]));
 		}
 		return instance;
 	}
 
+	/**
+	 * Gets the iterator of the instances which are not read yet in streaming
+	 * mode. Its hasNext() throws an UncheckedIOException like next() if the
+	 * file can not be read.
+	 * 
+	 * @return the iterator of the instances
+	 */
+	public Iterator<Instance> iterator() {
+
+		return new Iterator<Instance>() {
+
+			/** Whether the current instance is read but not returned. */
+			private boolean m_Ready;
+
+			/** Whether the end of file is reached. */
+			private boolean m_End;
+
+			public boolean hasNext() {
+
+				if (!m_Ready && !m_End) {
+					m_Ready = Reader.this.next();
+					m_End = !m_Ready;
+				}
+				return m_Ready;
+			}
+
+			public Instance next() {
+
+				if (!hasNext())
+					throw new NoSuchElementException();
+				m_Ready = false;
+				return getInstance();
+			}
+
+			public void remove() {
+
+				throw new UnsupportedOperationException();
+			}
+		};
+	}
+
+	/**
+	 * Closes the data set file.
+	 */
+	public void close() {
+
+		if (m_Tokenizer == null)
+			return;
+
+		try {
+			m_Tokenizer.close();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+		m_Tokenizer = null;
+	}
+
 	/**
 	 * Returns a description of this Reader in TXT format.
 	 * 
@@ -275,14 +856,68 @@ public class Reader {
 
 		if (args.length == 0) {
 			System.out.println("\nUsage: " + Reader.class.getName()
-					+ " <dataset>\n");
+					+ " <dataset> [<threads>]\n");
 			return;
 		}
 
 		try {
-			System.out.println(new Reader(new File(args[0])));
+			Reader reader = args.length > 1 ? new Reader(new File(args[0]),
+					Integer.parseInt(args[1])) : new Reader(new File(args[0]));
+			if (reader.getError() != null)
+				throw reader.getError();
+			System.out.println(reader);
 		} catch (Exception e) {
 			System.out.println(e);
 		}
 	}
+
+	/**
+	 * Input stream of a range of a file channel. The channel is read with
+	 * absolute positions, so it can be shared by chunks.
+	 */
+	private static class ChunkInputStream extends InputStream {
+
+		/** The channel. */
+		private FileChannel m_Channel;
+
+		/** The position of the next byte. */
+		private long m_Position;
+
+		/** The end of the range. */
+		private long m_End;
+
+		/**
+		 * Creates a stream with the given channel and range.
+		 * 
+		 * @param channel
+		 *            the given channel
+		 * @param from
+		 *            the start of the range
+		 * @param to
+		 *            the end of the range
+		 */
+		ChunkInputStream(FileChannel channel, long from, long to) {
+
+			this.m_Channel = channel;
+			this.m_Position = from;
+			this.m_End = to;
+		}
+
+		public int read() throws IOException {
+
+			byte[] b = new byte[1];
+			return read(b, 0, 1) < 0 ? -1 : b[0] & 0xFF;
+		}
+
+		public int read(byte[] b, int off, int len) throws IOException {
+
+			if (m_Position >= m_End)
+				return -1;
+			len = (int) Math.min(len, m_End - m_Position);
+			int n = m_Channel.read(ByteBuffer.wrap(b, off, len), m_Position);
+			if (n > 0)
+				m_Position += n;
+			return n;
+		}
+	}
 }
@@ -0,0 +1,481 @@
+/*
+ *    Tokenizer.java
+ *    Copyright (C) 2016 NanChang University, JiangXi, China
+ *
+ */
+
+package cn.myluo.datamining.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+import cn.myluo.datamining.data.Attribute;
+
+/**
+ * Splits a TXT data set file into lines of words.
+ * 
+ * The tokenizer works on the bytes of the file and follows the syntax of the
+ * StreamTokenizer used before: words are separated by commas and control
+ * characters, '%' starts a comment, quoted strings and braces are skipped, and
+ * lines without words are ignored. The bytes of the current line stay in the
+ * buffer, so that words are only converted to strings or numbers when they
+ * are used.
+ * 
+ * @author Luo Mingyuan
+ * @version 1612
+ */
+class Tokenizer {
+
+	/** The initial size of the buffer. */
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	/** Whether a byte can be a part of a word. */
+	private static final boolean[] WORD = new boolean[256];
+
+	/** The powers of ten which are exact doubles. */
+	private static final double[] POWERS = new double[23];
+
+	static {
+		for (int i = ' '; i < WORD.length; i++) {
+			WORD[i] = true;
+		}
+		WORD[','] = false;
+		WORD['%'] = false;
+		WORD['"'] = false;
+		WORD['{'] = false;
+		WORD['}'] = false;
+		POWERS[0] = 1.0;
+		for (int i = 1; i < POWERS.length; i++) {
+			POWERS[i] = POWERS[i - 1] * 10.0;
+		}
+	}
+
+	/** The input stream. */
+	private InputStream m_In;
+
+	/** The charset of words. */
+	private Charset m_Charset;
+
+	/** Whether a byte over 0x7F is followed by a trail byte of the charset. */
+	private boolean m_LeadBytes;
+
+	/** The buffer of bytes. */
+	private byte[] m_Buffer;
+
+	/** The position of the next byte in the buffer. */
+	private int m_Position;
+
+	/** The end of bytes in the buffer. */
+	private int m_Limit;
+
+	/** The start of the current line in the buffer. */
+	private int m_Mark;
+
+	/** The position of the start of the buffer in the input stream. */
+	private long m_Offset;
+
+	/** The start of the current word in the buffer. */
+	private int m_WordStart;
+
+	/** The number of words in the current line. */
+	private int m_NumWords;
+
+	/** The starts of words in the current line. */
+	private int[] m_Starts;
+
+	/** The ends of words in the current line. */
+	private int[] m_Ends;
+
+	/**
+	 * Creates a tokenizer with the given input stream and charset.
+	 * 
+	 * @param in
+	 *            the given input stream
+	 * @param charset
+	 *            the charset of words
+	 */
+	Tokenizer(InputStream in, Charset charset) {
+
+		this.m_In = in;
+		this.m_Charset = charset;
+		// the trail bytes of double-byte charsets may look like separators.
+		m_LeadBytes = charset.newEncoder().maxBytesPerChar() > 1
+				&& !charset.name().equals("UTF-8");
+		m_Buffer = new byte[BUFFER_SIZE];
+		m_Starts = new int[16];
+		m_Ends = new int[16];
+	}
+
+	/**
+	 * Reads the next line which has words.
+	 * 
+	 * @return the number of words in the line, -1 if the end of file is
+	 *         reached
+	 * @throws IOException
+	 *             if the file can not be read
+	 */
+	int readLine() throws IOException {
+
+		while (true) {
+			m_Mark = m_Position;
+			m_NumWords = 0;
+			boolean eof = scanLine();
+			if (m_NumWords > 0)
+				return m_NumWords;
+			if (eof)
+				return -1;
+		}
+	}
+
+	/**
+	 * Gets the number of words in the current line.
+	 * 
+	 * @return the number of words
+	 */
+	int numWords() {
+
+		return m_NumWords;
+	}
+
+	/**
+	 * Gets the position of the current line in the input stream.
+	 * 
+	 * @return the position of the first byte of the current line
+	 */
+	long getLineStart() {
+
+		return m_Offset + m_Mark;
+	}
+
+	/**
+	 * Gets the given word of the current line as a string.
+	 * 
+	 * @param index
+	 *            the index of the word
+	 * @return the word
+	 */
+	String getString(int index) {
+
+		return new String(m_Buffer, m_Starts[index], m_Ends[index]
+				- m_Starts[index], m_Charset);
+	}
+
+	/**
+	 * Adds the given word of the current line into the values of the given
+	 * attribute. No string is created if the value is known.
+	 * 
+	 * @param index
+	 *            the index of the word
+	 * @param attribute
+	 *            the given nominal attribute
+	 * @return the code of the value
+	 */
+	int addValue(int index, Attribute attribute) {
+
+		return attribute.addValue(m_Buffer, m_Starts[index], m_Ends[index]
+				- m_Starts[index], m_Charset);
+	}
+
+	/**
+	 * Checks if the given word of the current line is the given character.
+	 * 
+	 * @param index
+	 *            the index of the word
+	 * @param c
+	 *            the given ASCII character
+	 * @return true if the word is the single character, false otherwise.
+	 */
+	boolean isChar(int index, char c) {
+
+		return m_Ends[index] - m_Starts[index] == 1
+				&& m_Buffer[m_Starts[index]] == c;
+	}
+
+	/**
+	 * Parses the given word of the current line as a double. The word is
+	 * parsed from its bytes in the common case, other forms are left to
+	 * Double.parseDouble so that the same numbers are accepted.
+	 * 
+	 * @param index
+	 *            the index of the word
+	 * @return the double value
+	 * @throws NumberFormatException
+	 *             if the word is not a number
+	 */
+	double getDouble(int index) {
+
+		byte[] b = m_Buffer;
+		int start = m_Starts[index];
+		int end = m_Ends[index];
+		// trims the spaces like Double.parseDouble.
+		while (start < end && (b[start] & 0xFF) <= ' ')
+			start++;
+		while (end > start && (b[end - 1] & 0xFF) <= ' ')
+			end--;
+
+		int i = start;
+		boolean negative = false;
+		if (i < end && (b[i] == '-' || b[i] == '+'))
+			negative = b[i++] == '-';
+		long mantissa = 0;
+		int digits = 0;
+		int scale = 0;
+		boolean any = false;
+		for (; i < end && b[i] >= '0' && b[i] <= '9'; i++) {
+			any = true;
+			if (mantissa != 0 || b[i] != '0') {
+				mantissa = mantissa * 10 + (b[i] - '0');
+				digits++;
+			}
+			if (digits > 15)
+				return parseDouble(start, end);
+		}
+		if (i < end && b[i] == '.') {
+			for (i++; i < end && b[i] >= '0' && b[i] <= '9'; i++) {
+				any = true;
+				if (mantissa != 0 || b[i] != '0') {
+					mantissa = mantissa * 10 + (b[i] - '0');
+					digits++;
+				}
+				scale--;
+				if (digits > 15)
+					return parseDouble(start, end);
+			}
+		}
+		if (!any)
+			return parseDouble(start, end);
+		if (i < end && (b[i] == 'e' || b[i] == 'E')) {
+			i++;
+			boolean negativeExponent = false;
+			if (i < end && (b[i] == '-' || b[i] == '+'))
+				negativeExponent = b[i++] == '-';
+			int exponent = 0;
+			int from = i;
+			for (; i < end && b[i] >= '0' && b[i] <= '9'; i++) {
+				exponent = exponent * 10 + (b[i] - '0');
+				if (exponent > 1000)
+					return parseDouble(start, end);
+			}
+			if (i == from)
+				return parseDouble(start, end);
+			scale += negativeExponent ? -exponent : exponent;
+		}
+		if (i != end)
+			return parseDouble(start, end);
+
+		// both the mantissa and the power of ten are exact doubles, so one
+		// rounding gives the same result as Double.parseDouble.
+		double value = mantissa;
+		if (mantissa == 0) {
+			value = 0.0;
+		} else if (scale >= 0 && scale < POWERS.length) {
+			value *= POWERS[scale];
+		} else if (scale < 0 && -scale < POWERS.length) {
+			value /= POWERS[-scale];
+		} else {
+			return parseDouble(start, end);
+		}
+		return negative ? -value : value;
+	}
+
+	/**
+	 * Parses the given bytes with Double.parseDouble.
+	 * 
+	 * @param start
+	 *            the start of the bytes
+	 * @param end
+	 *            the end of the bytes
+	 * @return the double value
+	 * @throws NumberFormatException
+	 *             if the bytes are not a number
+	 */
+	private double parseDouble(int start, int end) {
+
+		char[] chars = new char[end - start];
+		for (int i = 0; i < chars.length; i++) {
+			chars[i] = (char) (m_Buffer[start + i] & 0xFF);
+		}
+		return Double.parseDouble(new String(chars));
+	}
+
+	/**
+	 * Scans the words of a line until the end of the line.
+	 * 
+	 * @return true if the end of file is reached, false otherwise.
+	 * @throws IOException
+	 *             if the file can not be read
+	 */
+	private boolean scanLine() throws IOException {
+
+		while (true) {
+			int c = read();
+			if (c < 0)
+				return true;
+			if (c == '\n')
+				return false;
+			if (c == '\r') {
+				// "\r\n" is one end of line.
+				int next = read();
+				if (next >= 0 && next != '\n')
+					unread();
+				return false;
+			}
+			if (c == '%') {
+				skipComment();
+			} else if (c == '"') {
+				skipQuote();
+			} else if (WORD[c]) {
+				m_WordStart = m_Position - 1;
+				if (scanWord())
+					return true;
+			}
+		}
+	}
+
+	/**
+	 * Scans the rest of the current word and adds it into the current line.
+	 * 
+	 * @return true if the end of file is reached, false otherwise.
+	 * @throws IOException
+	 *             if the file can not be read
+	 */
+	private boolean scanWord() throws IOException {
+
+		boolean eof = false;
+		int c = m_Buffer[m_WordStart] & 0xFF;
+		while (true) {
+			if (c > 0x7F && m_LeadBytes && read() < 0) {
+				eof = true;
+				break;
+			}
+			c = read();
+			if (c < 0) {
+				eof = true;
+				break;
+			}
+			if (!WORD[c]) {
+				unread();
+				break;
+			}
+		}
+		if (m_NumWords == m_Starts.length) {
+			m_Starts = Arrays.copyOf(m_Starts, m_NumWords * 2);
+			m_Ends = Arrays.copyOf(m_Ends, m_NumWords * 2);
+		}
+		m_Starts[m_NumWords] = m_WordStart;
+		m_Ends[m_NumWords] = m_Position;
+		m_NumWords++;
+		return eof;
+	}
+
+	/**
+	 * Skips a comment until the end of the line.
+	 * 
+	 * @throws IOException
+	 *             if the file can not be read
+	 */
+	private void skipComment() throws IOException {
+
+		int c;
+		while ((c = read()) >= 0) {
+			if (c == '\n' || c == '\r') {
+				unread();
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Skips a quoted string until the closing quote or the end of the line.
+	 * 
+	 * @throws IOException
+	 *             if the file can not be read
+	 */
+	private void skipQuote() throws IOException {
+
+		int c;
+		while ((c = read()) >= 0) {
+			if (c == '"')
+				return;
+			if (c == '\n' || c == '\r') {
+				unread();
+				return;
+			}
+			if (c == '\\') {
+				c = read();
+				if (c == '\n' || c == '\r') {
+					unread();
+					return;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Reads the next byte.
+	 * 
+	 * @return the next byte, -1 if the end of file is reached
+	 * @throws IOException
+	 *             if the file can not be read
+	 */
+	private int read() throws IOException {
+
+		if (m_Position == m_Limit && !fill())
+			return -1;
+		return m_Buffer[m_Position++] & 0xFF;
+	}
+
+	/**
+	 * Returns the last byte which is read.
+	 */
+	private void unread() {
+
+		m_Position--;
+	}
+
+	/**
+	 * Reads more bytes into the buffer. The bytes of the current line are
+	 * moved to the start of the buffer, and the buffer grows if the line
+	 * fills it.
+	 * 
+	 * @return true if any byte is read, false if the end of file is reached
+	 * @throws IOException
+	 *             if the file can not be read
+	 */
+	private boolean fill() throws IOException {
+
+		if (m_Mark > 0) {
+			int shift = m_Mark;
+			System.arraycopy(m_Buffer, shift, m_Buffer, 0, m_Limit - shift);
+			m_Position -= shift;
+			m_Limit -= shift;
+			m_WordStart -= shift;
+			for (int i = 0; i < m_NumWords; i++) {
+				m_Starts[i] -= shift;
+				m_Ends[i] -= shift;
+			}
+			m_Mark = 0;
+			m_Offset += shift;
+		}
+		if (m_Limit == m_Buffer.length)
+			m_Buffer = Arrays.copyOf(m_Buffer, m_Buffer.length * 2);
+		int n = m_In.read(m_Buffer, m_Limit, m_Buffer.length - m_Limit);
+		if (n <= 0)
+			return false;
+		m_Limit += n;
+		return true;
+	}
+
+	/**
+	 * Closes the input stream.
+	 * 
+	 * @throws IOException
+	 *             if the stream can not be closed
+	 */
+	void close() throws IOException {
+
+		m_In.close();
+	}
+}